@@ -1,4 +1,5 @@
 import controller.CommandExecutor;
+import controller.ImageStorage;
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
@@ -50,6 +51,7 @@ public class RunScript {
   private static void runInteractiveMode() throws IOException {
     BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
     System.out.println("Entering interactive mode. Type commands or 'exit' to quit:");
+    ImageStorage.setRecycling(true);
     String line;
     while (!(line = reader.readLine()).equalsIgnoreCase("exit")) {
       try {
@@ -71,6 +73,7 @@ public class RunScript {
    */
   private static void runScriptFile(String filename) throws IOException {
     try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+      ImageStorage.setRecycling(true);
       String line;
       while ((line = br.readLine()) != null) {
         try {
@@ -2,16 +2,20 @@ package controller;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import model.AdjustIntensity;
 import model.AdjustLevel;
 import model.Blur;
+import model.BufferPool;
 import model.ColorCorrect;
 import model.CombineImages;
 import model.CompressImage;
+import model.CompressionSweep;
 import model.Flip;
+import model.GaussianBlur;
 import model.Image;
-import model.Pixel;
+import model.ImageOperation;
 import model.Sepia;
 import model.Sharpen;
 import model.SplitComponents;
@@ -21,10 +25,19 @@ import model.VisualizeHistogram;
 import model.enums.Channel;
 import model.enums.Color;
 import model.enums.Direction;
+import model.enums.EdgePolicy;
 import model.enums.Intensity;
 
 /**
  * A controller class that takes in command lines to execute specific image processing operations.
+ * Pointwise operations are not run when their command executes: the destination image is a
+ * pointwise view of the source, so consecutive pointwise commands fuse into a single pass over the
+ * pixels that runs only when the result is read. A view that a second command reads is
+ * materialized then, so its chain does not run again for every reader and it stops reading through
+ * to its source. Filters, compression and color correction run in the background: their
+ * destination is filled in when it is first used, and work whose destination is overwritten before
+ * then is cancelled. Their results are written into images taken from the
+ * {@link BufferPool}, which the image storage refills with images that are no longer used.
  */
 public class CommandExecutor {
 
@@ -98,6 +111,9 @@ public class CommandExecutor {
       case "compress":
         handleCompress(commandParts);
         break;
+      case "compress-sweep":
+        handleCompressSweep(commandParts);
+        break;
       case "histogram":
         handleHistogram(commandParts);
         break;
@@ -130,6 +146,9 @@ public class CommandExecutor {
           ".jpg")) {
         Image loadedImage = ImageUtil.readJPGorPNG(filePath);
         ImageStorage.associateImageWithName(imageName, loadedImage);
+      } else if (filePath.endsWith(".hwc")) {
+        Image loadedImage = ImageUtil.readHWC(filePath);
+        ImageStorage.associateImageWithName(imageName, loadedImage);
       }
     } else {
       System.out.println("Invalid command format: " + line);
@@ -195,7 +214,7 @@ public class CommandExecutor {
         } else {
           brightenOperation = new AdjustIntensity(increment, Intensity.DARKEN);
         }
-        Image brightenedImage = brightenOperation.apply(srcImage);
+        Image brightenedImage = srcImage.pointwiseView(brightenOperation);
         ImageStorage.associateImageWithName(destImageName, brightenedImage);
       } else {
         System.out.println("Source image not found: " + srcImageName);
@@ -206,8 +225,8 @@ public class CommandExecutor {
   }
 
   private void handleFlip(Direction flipType, String[] commandParts) {
-    if (findSrcImage(line) != null) {
-      Image srcImage = findSrcImage(line);
+    Image srcImage = findSrcImage(line);
+    if (srcImage != null) {
       String destImageName = commandParts[2];
       Flip flipOperation = new Flip(flipType);
       Image verticalImage = flipOperation.apply(srcImage);
@@ -234,29 +253,39 @@ public class CommandExecutor {
     Image transformedImage;
     switch (operationType) {
       case "blur":
+        if (commandParts.length >= 5) {
+          // blur <src> <dest> <split> <sigma> [<radius>] runs a Gaussian blur of any strength
+          double sigma = Double.parseDouble(commandParts[4]);
+          int radius = (commandParts.length >= 6) ? Integer.parseInt(commandParts[5])
+              : GaussianBlur.defaultRadius(sigma);
+          GaussianBlur gaussianOperation = new GaussianBlur(sigma, radius,
+              Integer.parseInt(commandParts[3]), EdgePolicy.CLAMP);
+          applyInBackground(gaussianOperation, srcImage, destImageName);
+          return;
+        }
         Blur blurOperation = new Blur(splitPercentage);
-        transformedImage = blurOperation.apply(srcImage);
-        break;
+        applyInBackground(blurOperation, srcImage, destImageName);
+        return;
       case "sharpen":
         Sharpen sharpenOperation = new Sharpen(splitPercentage);
-        transformedImage = sharpenOperation.apply(srcImage);
-        break;
+        applyInBackground(sharpenOperation, srcImage, destImageName);
+        return;
       case "sepia":
         Sepia sepiaOperation = new Sepia(splitPercentage);
-        transformedImage = sepiaOperation.apply(srcImage);
+        transformedImage = srcImage.pointwiseView(sepiaOperation);
         break;
       case "value":
         ValueIntensityLuma valueOperation = new ValueIntensityLuma(Channel.VALUE, splitPercentage);
-        transformedImage = valueOperation.apply(srcImage);
+        transformedImage = srcImage.pointwiseView(valueOperation);
         break;
       case "intensity":
         ValueIntensityLuma intensityOperation = new ValueIntensityLuma(Channel.INTENSITY,
             splitPercentage);
-        transformedImage = intensityOperation.apply(srcImage);
+        transformedImage = srcImage.pointwiseView(intensityOperation);
         break;
       case "luma":
         ValueIntensityLuma lumaOperation = new ValueIntensityLuma(Channel.LUMA, splitPercentage);
-        transformedImage = lumaOperation.apply(srcImage);
+        transformedImage = srcImage.pointwiseView(lumaOperation);
         break;
 
       default:
@@ -285,7 +314,7 @@ public class CommandExecutor {
 
     VisualizeComponents operation = new VisualizeComponents(
         Color.valueOf(componentType.toUpperCase()));
-    Image resultImage = operation.apply(srcImage);
+    Image resultImage = srcImage.pointwiseView(operation);
     ImageStorage.associateImageWithName(destImageName, resultImage);
   }
 
@@ -308,8 +337,38 @@ public class CommandExecutor {
     }
 
     CompressImage operation = new CompressImage(percentage);
-    Image compressedImage = operation.apply(srcImage);
-    ImageStorage.associateImageWithName(destImageName, compressedImage);
+    applyInBackground(operation, srcImage, destImageName);
+  }
+
+  private void handleCompressSweep(String[] commandParts) throws IllegalArgumentException {
+    // compress-sweep src dest-prefix p1 p2 ... names the results dest-prefix-p1, dest-prefix-p2
+    if (commandParts.length < 4) {
+      throw new IllegalArgumentException("Invalid command format for compress-sweep: " + line);
+    }
+    String srcImageName = commandParts[1];
+    String destPrefix = commandParts[2];
+    double[] percentages = new double[commandParts.length - 3];
+    for (int i = 0; i < percentages.length; i++) {
+      int percentage = Integer.parseInt(commandParts[i + 3]);
+      if (percentage < 0 || percentage > 100) {
+        throw new IllegalArgumentException("Compression percentage must be between 0 and 100.");
+      }
+      percentages[i] = percentage;
+    }
+    Image srcImage = ImageStorage.getImageByName(srcImageName);
+
+    if (srcImage == null) {
+      System.out.println("Source image not found: " + srcImageName);
+      return;
+    }
+
+    CompletableFuture<List<Image>> results =
+        new CompressionSweep(percentages).applyAsync(null, srcImage);
+    for (int i = 0; i < percentages.length; i++) {
+      int index = i;
+      ImageStorage.associateFutureWithName(destPrefix + "-" + commandParts[i + 3],
+          results.thenApply(images -> images.get(index)), srcImage);
+    }
   }
 
   private void handleHistogram(String[] commandParts) {
@@ -338,8 +397,7 @@ public class CommandExecutor {
       int splitPercentage = (commandParts.length == 4) ? Integer.parseInt(commandParts[3]) : 0;
       if (srcImage != null) {
         ColorCorrect colorCorrectOperation = new ColorCorrect(splitPercentage);
-        Image colorCorrectedImage = colorCorrectOperation.apply(srcImage);
-        ImageStorage.associateImageWithName(destImageName, colorCorrectedImage);
+        applyInBackground(colorCorrectOperation, srcImage, destImageName);
       } else {
         System.out.println("Source image not found: " + srcImageName);
       }
@@ -363,16 +421,8 @@ public class CommandExecutor {
         int splitPercentage = (commandParts.length == 7) ? Integer.parseInt(commandParts[6]) : 0;
 
         AdjustLevel adjuster = new AdjustLevel(black, mid, white, splitPercentage);
-        Image adjustedImage = adjuster.apply(srcImage);
-
-        if (splitPercentage > 0) {
-          // Draw a vertical line only if splitPercentage is provided
-          int splitPoint = (int) (adjustedImage.getWidth() * splitPercentage / 100.0);
-          for (int y = 0; y < adjustedImage.getHeight(); y++) {
-            adjustedImage.getPixels()[y][splitPoint] = new Pixel(0, 0, 0);
-          }
-        }
-
+        // The adjuster draws the split line itself, so the view stays lazy
+        Image adjustedImage = srcImage.pointwiseView(adjuster);
         ImageStorage.associateImageWithName(destImageName, adjustedImage);
       } else {
         System.out.println("Source image not found: " + srcImageName);
@@ -384,7 +434,9 @@ public class CommandExecutor {
 
 
   private void handleSave(String[] commandParts) throws IOException {
-    if (commandParts.length == 3) {
+    // Wavelet files may be compressed as they are written: save image.hwc name [percentage]
+    boolean compressed = commandParts.length == 4 && commandParts[1].endsWith(".hwc");
+    if (commandParts.length == 3 || compressed) {
       String filePath = commandParts[1];
       String imageName = commandParts[2];
       String format = "JPEG";
@@ -394,6 +446,8 @@ public class CommandExecutor {
         format = "JPEG";
       } else if (filePath.endsWith(".png")) {
         format = "PNG";
+      } else if (filePath.endsWith(".hwc")) {
+        format = "HWC";
       }
       Image imageToSave = ImageStorage.getImageByName(imageName);
       if (imageToSave == null) {
@@ -402,6 +456,9 @@ public class CommandExecutor {
       try {
         if (format.equals("PPM")) {
           ImageUtil.writePPM(imageToSave, filePath);
+        } else if (format.equals("HWC")) {
+          double percentage = compressed ? Double.parseDouble(commandParts[3]) : 0;
+          ImageUtil.writeHWC(imageToSave, filePath, percentage);
         } else {
           ImageUtil.writeJPGorPNG(imageToSave, filePath, format);
         }
@@ -414,6 +471,22 @@ public class CommandExecutor {
     }
   }
 
+  /**
+   * Starts an operation in the background, writing its result into a pooled image, and associates
+   * the destination name with the result.
+   *
+   * @param operation     The operation to run.
+   * @param srcImage      The input image.
+   * @param destImageName The name of the result.
+   */
+  private static void applyInBackground(ImageOperation<Image> operation, Image srcImage,
+      String destImageName) {
+    Image destination = BufferPool.acquireImage(srcImage.getWidth(), srcImage.getHeight());
+    ImageOperation<Image> intoDestination = inputs -> operation.apply(inputs, destination);
+    CompletableFuture<Image> result = intoDestination.applyAsync(null, srcImage);
+    ImageStorage.associateFutureWithName(destImageName, result, srcImage);
+  }
+
   private static Image findSrcImage(String line) {
     String[] commandParts = line.split(" ");
     String srcImageName;
@@ -1,5 +1,8 @@
 package controller;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.DoubleConsumer;
+
 import model.AdjustLevel;
 import model.Blur;
 import model.ColorCorrect;
@@ -89,6 +92,66 @@ public class GUICommandHandler {
     return sepiaOperation.apply(image);
   }
 
+  /**
+   * Create a split preview of a blur of the given image. The preview is lazy: its tiles are only
+   * computed when they are read, so a window showing part of it only pays for that part.
+   *
+   * @param image The input image.
+   * @param split The split value for the blur operation.
+   * @return The lazy preview.
+   */
+  public Image previewBlur(Image image, int split) {
+    return new Blur(split).applyLazily(image);
+  }
+
+  /**
+   * Create a lazy split preview of a sharpening of the given image.
+   *
+   * @param image The input image.
+   * @param split The split value for the sharpen operation.
+   * @return The lazy preview.
+   */
+  public Image previewSharpen(Image image, int split) {
+    return new Sharpen(split).applyLazily(image);
+  }
+
+  /**
+   * Create a lazy split preview of the grayscale conversion of the given image.
+   *
+   * @param image The input image.
+   * @param split The split value for the grayscale conversion.
+   * @return The lazy preview.
+   */
+  public Image previewGreyScale(Image image, int split) {
+    return new ValueIntensityLuma(Channel.LUMA, split).applyLazily(image);
+  }
+
+  /**
+   * Create a lazy split preview of the sepia tone effect on the given image.
+   *
+   * @param image The input image.
+   * @param split The split value for the sepia effect.
+   * @return The lazy preview.
+   */
+  public Image previewSepia(Image image, int split) {
+    return new Sepia(split).applyLazily(image);
+  }
+
+  /**
+   * Create a lazy split preview of a level adjustment of the given image.
+   *
+   * @param image           The input image.
+   * @param splitPercentage The split percentage for level adjustment.
+   * @param black           The black level for adjustment.
+   * @param mid             The mid-level for adjustment.
+   * @param white           The white level for adjustment.
+   * @return The lazy preview.
+   */
+  public Image previewLevel(Image image, int splitPercentage, double black, double mid,
+      double white) {
+    return new AdjustLevel(black, mid, white, splitPercentage).applyLazily(image);
+  }
+
   /**
    * Visualize the red component of the given image.
    *
@@ -196,4 +259,18 @@ public class GUICommandHandler {
     CompressImage compress = new CompressImage(percentage);
     return compress.apply(image);
   }
+
+  /**
+   * Start compressing the given image in the background.
+   *
+   * @param image      The input image.
+   * @param percentage The compression percentage.
+   * @param progress   Receives the fraction of the compression done, off the event thread.
+   * @return The compressed image, once done; cancelling it stops the compression.
+   */
+  public CompletableFuture<Image> applyCompressAsync(Image image, int percentage,
+      DoubleConsumer progress) {
+    CompressImage compress = new CompressImage(percentage);
+    return compress.applyAsync(progress, image);
+  }
 }
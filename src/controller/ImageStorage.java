@@ -1,25 +1,72 @@
 package controller;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import model.BufferPool;
 import model.Image;
 
 /**
  * This class represents a storage system for images. It provides methods to associate image names
- * with image objects and retrieve images with their names.
+ * with image objects and retrieve images with their names. A name may also be associated with an
+ * image that is still being computed; retrieving it waits for the result, and associating the name
+ * with anything else first cancels the work, since its result can no longer be retrieved.
+ *
+ * <p>With recycling enabled, an image whose name is given to another image is handed to the
+ * {@link BufferPool} once no name and no running operation refers to it any more, so that later
+ * commands can write their results into it. Recycling is only safe when nothing outside the
+ * storage keeps images it has retrieved, as in script and interactive mode.
  */
 public class ImageStorage {
 
   private static Map<String, Image> imageMap = new HashMap<>();
+  private static Map<String, CompletableFuture<Image>> pendingMap = new HashMap<>();
+  private static Map<CompletableFuture<Image>, Image[]> pendingInputs = new HashMap<>();
+  private static List<Image> retiredImages = new ArrayList<>();
+  private static boolean recycling = false;
 
   /**
-   * Retrieves an Image object associated with the given image name.
+   * Enables or disables the recycling of images that are no longer associated with a name.
+   *
+   * @param enabled true to recycle images, false to leave them to the garbage collector.
+   */
+  public static void setRecycling(boolean enabled) {
+    recycling = enabled;
+    if (!enabled) {
+      retiredImages.clear();
+    }
+  }
+
+  /**
+   * Retrieves an Image object associated with the given image name, waiting for it if it is still
+   * being computed. If computing it failed, the exception it failed with is thrown here. Every
+   * retrieval counts as one more reader of the image, see {@link Image#addConsumer()}.
    *
    * @param imageName The name of the image
    * @return image object, or null if not found
    */
   public static Image getImageByName(String imageName) {
-    return imageMap.get(imageName);
+    CompletableFuture<Image> pending = pendingMap.remove(imageName);
+    if (pending != null) {
+      pendingInputs.remove(pending);
+      try {
+        imageMap.put(imageName, pending.join());
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+    Image image = imageMap.get(imageName);
+    if (image != null) {
+      image.addConsumer();
+    }
+    return image;
   }
 
   /**
@@ -29,7 +76,67 @@ public class ImageStorage {
    * @param image     The image associated with the name
    */
   public static void associateImageWithName(String imageName, Image image) {
-    imageMap.put(imageName, image);
+    cancelPending(imageName);
+    retire(imageMap.put(imageName, image));
+  }
+
+  /**
+   * Associates an image name with an image that is still being computed. Any earlier computation
+   * for the name is cancelled.
+   *
+   * @param imageName The name
+   * @param image     The future result associated with the name
+   * @param inputs    The images the computation reads, which are not recycled until it is done
+   */
+  public static void associateFutureWithName(String imageName, CompletableFuture<Image> image,
+      Image... inputs) {
+    cancelPending(imageName);
+    pendingMap.put(imageName, image);
+    pendingInputs.put(image, inputs);
+    retire(imageMap.remove(imageName));
+  }
+
+  private static void cancelPending(String imageName) {
+    CompletableFuture<Image> pending = pendingMap.remove(imageName);
+    if (pending != null) {
+      pending.cancel(true);
+      pendingInputs.remove(pending);
+    }
+  }
+
+  /**
+   * Recycles an image that lost its name, now or once the operations reading it are done, along
+   * with any earlier such images that are no longer in use.
+   */
+  private static void retire(Image image) {
+    if (!recycling) {
+      return;
+    }
+    if (image != null) {
+      retiredImages.add(image);
+    }
+    pendingInputs.keySet().removeIf(CompletableFuture::isDone);
+    Iterator<Image> retired = retiredImages.iterator();
+    while (retired.hasNext()) {
+      Image candidate = retired.next();
+      if (!isInUse(candidate)) {
+        retired.remove();
+        BufferPool.releaseImage(candidate);
+      }
+    }
   }
-}
 
+  private static boolean isInUse(Image image) {
+    if (imageMap.containsValue(image)) {
+      return true;
+    }
+    for (Image[] inputs : pendingInputs.values()) {
+      for (Image input : inputs) {
+        if (input == image) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -1,17 +1,20 @@
 package controller;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Scanner;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.FileNotFoundException;
 import java.io.FileInputStream;
 import javax.imageio.ImageIO;
 import model.Image;
-import model.Pixel;
+import model.WaveletFile;
 
 
 /**
@@ -21,59 +24,116 @@ import model.Pixel;
 public class ImageUtil {
 
   /**
-   * Read an image file in the PPM format and print the colors.
+   * Images with more pixels than this are loaded into a temporary memory-mapped file off the heap
+   * rather than into an array on it.
+   */
+  public static final long MAPPED_PIXELS = 1L << 26;
+
+  /**
+   * Read an image file in the PPM format. The file is streamed one pixel value at a time into the
+   * image, so the heap holds only a row of pixels beyond the image itself, and images with more
+   * than {@link #MAPPED_PIXELS} pixels are read into a temporary memory-mapped file.
    *
    * @param filename the path of the file.
+   * @return the image.
+   * @throws IOException if the file cannot be read or is not a valid PPM file.
    */
-  public static Image readPPM(String filename) throws FileNotFoundException {
-    Scanner sc;
+  public static Image readPPM(String filename) throws IOException {
+    return readPPM(filename, false);
+  }
 
+  /**
+   * Read an image file in the PPM format, streaming it one pixel value at a time into the image.
+   *
+   * @param filename the path of the file.
+   * @param mapped   true to read the image into a temporary memory-mapped file whatever its size.
+   * @return the image.
+   * @throws IOException if the file cannot be read or is not a valid PPM file.
+   */
+  public static Image readPPM(String filename, boolean mapped) throws IOException {
+    InputStream file;
     try {
-      sc = new Scanner(new FileInputStream(filename));
+      file = new BufferedInputStream(new FileInputStream(filename));
     } catch (FileNotFoundException e) {
       System.out.println("File " + filename + " not found!");
       throw e;
     }
-    StringBuilder builder = new StringBuilder();
-    //read the file line by line, and populate a string. This will throw away any comment lines
-    while (sc.hasNextLine()) {
-      String s = sc.nextLine();
-      if (s.charAt(0) != '#') {
-        builder.append(s + System.lineSeparator());
-      }
-    }
-
-    //now set up the scanner to read from the string we just built
 
-    sc = new Scanner(builder.toString());
+    try (InputStream in = file) {
+      String token = nextToken(in);
+      if (!"P3".equals(token)) {
+        System.out.println("Invalid PPM file: plain RAW file should begin with P3");
+      }
+      int width = nextInt(in);
+      int height = nextInt(in);
+      int maxValue = nextInt(in);
+      if (width <= 0 || height <= 0) {
+        throw new IOException("Invalid PPM image size: " + width + "x" + height);
+      }
 
-    String token;
+      Image img = createImage(width, height, mapped);
+      int[] row = new int[width];
+      for (int i = 0; i < height; i++) {
+        for (int j = 0; j < width; j++) {
+          int r = nextInt(in);
+          int g = nextInt(in);
+          int b = nextInt(in);
+          if (r < 0 || r > maxValue ||
+              g < 0 || g > maxValue ||
+              b < 0 || b > maxValue) {
+            throw new IllegalArgumentException("Invalid pixel value");
+          }
+          row[j] = (r << 16) | (g << 8) | b;
+        }
+        img.setRow(i, row);
+      }
+      return img;
+    }
+  }
 
-    token = sc.next();
-    if (!token.equals("P3")) {
-      System.out.println("Invalid PPM file: plain RAW file should begin with P3");
+  /**
+   * Creates an image to read pixels into, off the heap if asked to or if it is large. Images on
+   * the heap are planar, so splitting a loaded image into its components copies no pixels.
+   */
+  private static Image createImage(int width, int height, boolean mapped) throws IOException {
+    if (mapped || (long) width * height > MAPPED_PIXELS) {
+      return Image.mapped(width, height);
     }
-    int width = sc.nextInt();
-    int height = sc.nextInt();
-    int maxValue = sc.nextInt();
+    return Image.fromPlanes(width, height, null, null, null);
+  }
 
-    Pixel[][] pixels = new Pixel[height][width];
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = sc.nextInt();
-        int g = sc.nextInt();
-        int b = sc.nextInt();
-        if (r < 0 || r > maxValue ||
-            g < 0 || g > maxValue ||
-            b < 0 || b > maxValue) {
-          throw new IllegalArgumentException("Invalid pixel value");
+  /**
+   * Reads the next whitespace-separated token of a PPM file, skipping comments, which run from a
+   * '#' to the end of the line.
+   */
+  private static String nextToken(InputStream in) throws IOException {
+    int c = in.read();
+    while (c == '#' || Character.isWhitespace(c)) {
+      if (c == '#') {
+        while (c != '\n' && c != '\r' && c != -1) {
+          c = in.read();
         }
-        pixels[i][j] = new Pixel(r, g, b);
       }
+      c = in.read();
+    }
+    if (c == -1) {
+      throw new IOException("Invalid PPM file: unexpected end of file");
+    }
+    StringBuilder token = new StringBuilder();
+    while (c != -1 && c != '#' && !Character.isWhitespace(c)) {
+      token.append((char) c);
+      c = in.read();
+    }
+    return token.toString();
+  }
+
+  private static int nextInt(InputStream in) throws IOException {
+    String token = nextToken(in);
+    try {
+      return Integer.parseInt(token);
+    } catch (NumberFormatException e) {
+      throw new IOException("Invalid PPM file: expected a number but found " + token, e);
     }
-    Image img = new Image(width, height);
-    img.setPixels(pixels);
-    return img;
   }
 
   /**
@@ -89,12 +149,14 @@ public class ImageUtil {
       writer.write(img.getWidth() + " " + img.getHeight() + "\n");
       writer.write("255\n");  // Assuming max color value is 255
 
+      int[] row = new int[img.getWidth()];
       for (int i = 0; i < img.getHeight(); i++) {
+        img.getRow(i, row);
         for (int j = 0; j < img.getWidth(); j++) {
-          Pixel pixel = img.getPixel(j, i);
-          writer.write(pixel.getRed() + " ");
-          writer.write(pixel.getGreen() + " ");
-          writer.write(pixel.getBlue() + "  ");
+          int rgb = row[j];
+          writer.write(((rgb >> 16) & 0xFF) + " ");
+          writer.write(((rgb >> 8) & 0xFF) + " ");
+          writer.write((rgb & 0xFF) + "  ");
         }
         writer.newLine();
       }
@@ -102,30 +164,41 @@ public class ImageUtil {
   }
 
   /**
-   * Reads an image file in the JPG or PNG format and returns its contents as an Image object.
+   * Reads an image file in the JPG or PNG format and returns its contents as an Image object. The
+   * file is decoded on the heap, but images with more than {@link #MAPPED_PIXELS} pixels are then
+   * copied into a temporary memory-mapped file, so that the decoded pixels can be dropped and the
+   * results of operations on the image stay off the heap as well.
    *
    * @param filePath Path of the JPG or PNG file.
    * @return Image object containing pixel data from the file.
    * @throws IOException if there's an issue reading the file.
    */
   public static Image readJPGorPNG(String filePath) throws IOException {
+    return readJPGorPNG(filePath, false);
+  }
+
+  /**
+   * Reads an image file in the JPG or PNG format and returns its contents as an Image object.
+   *
+   * @param filePath Path of the JPG or PNG file.
+   * @param mapped   true to copy the image into a temporary memory-mapped file whatever its size.
+   * @return Image object containing pixel data from the file.
+   * @throws IOException if there's an issue reading the file or its format is not supported.
+   */
+  public static Image readJPGorPNG(String filePath, boolean mapped) throws IOException {
     BufferedImage bufferedImage = ImageIO.read(new File(filePath));
+    if (bufferedImage == null) {
+      throw new IOException("Unsupported image format: " + filePath);
+    }
     int width = bufferedImage.getWidth();
     int height = bufferedImage.getHeight();
-    Pixel[][] pixels = new Pixel[height][width];
+    Image img = createImage(width, height, mapped);
+    int[] row = new int[width];
 
     for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int rgb = bufferedImage.getRGB(j, i);
-        Color color = new Color(rgb);
-        int r = color.getRed();
-        int g = color.getGreen();
-        int b = color.getBlue();
-        pixels[i][j] = new Pixel(r, g, b);
-      }
+      bufferedImage.getRGB(0, i, width, 1, row, 0, width);
+      img.setRow(i, row);
     }
-    Image img = new Image(width, height);
-    img.setPixels(pixels);
     return img;
   }
 
@@ -142,19 +215,53 @@ public class ImageUtil {
     int height = img.getHeight();
     BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
 
+    int[] row = new int[width];
+
     for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        Pixel pixel = img.getPixel(j, i);
-        int r = pixel.getRed();
-        int g = pixel.getGreen();
-        int b = pixel.getBlue();
-        Color color = new Color(r, g, b);
-        int rgb = color.getRGB();
-        bufferedImage.setRGB(j, i, rgb);
-      }
+      img.getRow(i, row);
+      bufferedImage.setRGB(0, i, width, 1, row, 0, width);
     }
 
     ImageIO.write(bufferedImage, format, new File(filePath));
   }
-}
 
+  /**
+   * Reads an image file in the sparse Haar wavelet format (HWC) and returns its contents as an
+   * Image object.
+   *
+   * @param filePath Path of the HWC file.
+   * @return Image object containing pixel data from the file.
+   * @throws IOException if there's an issue reading the file or it is not in the HWC format.
+   */
+  public static Image readHWC(String filePath) throws IOException {
+    try (InputStream in = new BufferedInputStream(new FileInputStream(filePath))) {
+      return WaveletFile.read(in);
+    }
+  }
+
+  /**
+   * Writes the Image object contents to a file in the sparse Haar wavelet format (HWC).
+   *
+   * @param img      Image object containing pixel data.
+   * @param filePath Destination file path.
+   * @throws IOException if there's an issue writing to the file.
+   */
+  public static void writeHWC(Image img, String filePath) throws IOException {
+    writeHWC(img, filePath, 0);
+  }
+
+  /**
+   * Writes the Image object contents to a file in the sparse Haar wavelet format (HWC), leaving
+   * out the coefficients that compressing the image by the given percentage would zero.
+   *
+   * @param img        Image object containing pixel data.
+   * @param filePath   Destination file path.
+   * @param percentage Compression percentage, from 0 to 100.
+   * @throws IOException if there's an issue writing to the file.
+   */
+  public static void writeHWC(Image img, String filePath, double percentage) throws IOException {
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filePath))) {
+      WaveletFile.write(img, out, percentage);
+    }
+  }
+}
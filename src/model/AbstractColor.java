@@ -1,45 +1,144 @@
 package model;
 
+import java.util.Arrays;
+
 /**
  * This abstract class serves as a base class for the colour transformation operations in the
  * model.
  */
-public abstract class AbstractColor implements ImageOperation {
+public abstract class AbstractColor implements ImageOperation, TileOperation,
+    PointwiseOperation {
 
   /**
-   * Applies the color transformation operation to the input image pixel by pixel.
+   * Applies the color transformation operation to the input image pixel by pixel. Large images
+   * are processed in parallel bands of rows, with the same result as a sequential run.
    *
    * @param inputs The input image to transform.
    * @return A new image with modified colors based on the transformation.
    */
   @Override
   public Image apply(Image... inputs) {
+    return apply(inputs, null);
+  }
+
+  @Override
+  public Image apply(Image[] inputs, Image destination) {
     Image input = inputs[0];
     int width = input.getWidth();
     int height = input.getHeight();
-    Pixel[][] imagePixels = input.getPixels();
-    Pixel[][] resultPixels = new Pixel[height][width];
+    Image resultImage = Image.prepareDestination(destination, input, width, height, inputs);
+
+    ParallelExecutor.forEachBand(width, height, (fromRow, toRow) -> {
+      int[] source = new int[width];
+      int[] row = new int[width];
+      ChannelLanes lanes = new ChannelLanes(width);
+
+      for (int i = fromRow; i < toRow; i++) {
+        input.getRow(i, source);
+        processRow(source, row, lanes, i, width);
+        if (Arrays.equals(source, row)) {
+          resultImage.shareRow(i, input, i);
+        } else {
+          resultImage.setRow(i, row);
+        }
+      }
+    });
+
+    return resultImage;
+  }
 
+  @Override
+  public void computeTile(Image input, int x, int y, int width, int height, int[] dst) {
+    int imageWidth = input.getWidth();
+    int affected = getAffectedColumns(imageWidth);
+    int[] row = new int[imageWidth];
     for (int i = 0; i < height; i++) {
+      input.getRow(y + i, row);
       for (int j = 0; j < width; j++) {
-        Pixel originalPixel = imagePixels[i][j];
-        processPixel(originalPixel, resultPixels, i, j);
+        int column = x + j;
+        dst[i * width + j] = (column < affected)
+            ? processPixel(row[column], y + i, column, imageWidth) : row[column];
       }
     }
+  }
 
-    Image resultImage = new Image(width, height);
-    resultImage.setPixels(resultPixels);
-    return resultImage;
+  @Override
+  public int applyToPixel(int rgb, int x, int y, int width) {
+    return processPixel(rgb, y, x, width);
+  }
+
+  /**
+   * Processes one row of the input image. The default implementation calls
+   * {@link #processPixel(int, int, int, int)} for every pixel; operations whose arithmetic is the
+   * same for every pixel override it to run over unpacked channel lanes instead, with the same
+   * result.
+   *
+   * @param source The packed RGB values of the input row.
+   * @param row    The row to fill with the packed RGB values of the result.
+   * @param lanes  Scratch lanes at least as wide as the row.
+   * @param i      Row index of the row.
+   * @param width  Width of the image.
+   */
+  void processRow(int[] source, int[] row, ChannelLanes lanes, int i, int width) {
+    int affected = getAffectedColumns(width);
+    for (int j = 0; j < affected; j++) {
+      row[j] = processPixel(source[j], i, j, width);
+    }
+    System.arraycopy(source, affected, row, affected, width - affected);
+  }
+
+  /**
+   * Gets the number of leading columns of an image of the given width that the operation can
+   * change; pixels right of them are left as they are, so they are copied rather than processed.
+   * Operations with a split view return the columns up to and including the split line. The
+   * default is the whole width.
+   *
+   * @param width Width of the image.
+   * @return The number of leading columns that are processed.
+   */
+  protected int getAffectedColumns(int width) {
+    return width;
+  }
+
+  /**
+   * Gets the column of the split line of an operation with a split view: the given percentage of
+   * the width, rounded down. Columns left of it are transformed and columns right of it are left
+   * as they are.
+   *
+   * @param width           Width of the image.
+   * @param splitPercentage The percentage of the width that is transformed.
+   * @return The column of the split line, which is the width itself for a percentage of 100.
+   */
+  protected static int splitPosition(int width, int splitPercentage) {
+    return (int) ((double) width * (splitPercentage / 100.0));
+  }
+
+  /**
+   * Completes a row whose first columns were processed over lanes: copies the remaining columns
+   * from the source and draws the black split line.
+   *
+   * @param source   The packed RGB values of the input row.
+   * @param row      The row being built.
+   * @param columns  The number of columns already processed.
+   * @param splitPos The column of the split line.
+   * @param width    Width of the image.
+   */
+  static void finishRow(int[] source, int[] row, int columns, int splitPos, int width) {
+    System.arraycopy(source, columns, row, columns, width - columns);
+    if (splitPos >= 0 && splitPos < width) {
+      row[splitPos] = 0;
+    }
   }
 
   /**
    * Processes a single pixel in the input image to apply the color transformation.
    *
-   * @param originalPixel The original pixel from the input image.
-   * @param resultPixels  2D array to store the modified pixels.
-   * @param i             Row index of the pixel.
-   * @param j             Column index of the pixel.
+   * @param rgb   The packed RGB value of the original pixel from the input image.
+   * @param i     Row index of the pixel.
+   * @param j     Column index of the pixel.
+   * @param width Width of the image.
+   * @return The packed RGB value of the modified pixel.
    */
-  protected abstract void processPixel(Pixel originalPixel, Pixel[][] resultPixels, int i, int j);
+  protected abstract int processPixel(int rgb, int i, int j, int width);
 
 }
@@ -1,24 +1,39 @@
 package model;
 
+import model.enums.EdgePolicy;
 import model.enums.Filter;
 
 /**
  * This abstract class serves as a base class for filter-based kernel operations in the model.
  */
-public abstract class AbstractFilter implements ImageOperation {
+public abstract class AbstractFilter implements ImageOperation<Image>, TileOperation {
 
   /**
    * The kernel representing the filter's convolution matrix.
    */
   protected double[][] kernel;
 
+  private final EdgePolicy edgePolicy;
+
   /**
-   * Creates an instance of the AbstractFilter class with the specified filter type.
+   * Creates an instance of the AbstractFilter class with the specified filter type. Kernel taps
+   * outside the image contribute nothing.
    *
    * @param filter The filter type.
    */
   public AbstractFilter(Filter filter) {
-    // Constructor logic.
+    this(filter, EdgePolicy.ZERO);
+  }
+
+  /**
+   * Creates an instance of the AbstractFilter class with the specified filter type and edge
+   * policy.
+   *
+   * @param filter     The filter type.
+   * @param edgePolicy How kernel taps outside the image are treated.
+   */
+  public AbstractFilter(Filter filter, EdgePolicy edgePolicy) {
+    this.edgePolicy = edgePolicy;
   }
 
   /**
@@ -35,65 +50,59 @@ public abstract class AbstractFilter implements ImageOperation {
    */
   protected abstract int getSplit();
 
+  /**
+   * Retrieves the kernel split into a column kernel and a row kernel whose outer product is the
+   * kernel, so the filter can run as two one-dimensional passes. The default implementation
+   * detects whether the kernel from {@link #getKernel()} is separable; subclasses with a known
+   * separable kernel may return the split directly.
+   *
+   * @return The kernels as {column kernel, row kernel}, or null if the kernel is not separable.
+   */
+  protected double[][] getSeparableKernel() {
+    return Convolution.separate(getKernel());
+  }
+
+  /**
+   * Applies the filter to the input image. Large images are processed in parallel bands of rows,
+   * with the same result as a sequential run. Large kernels that cannot be separated are applied
+   * through the fast Fourier transform.
+   *
+   * @param inputs The input image to filter.
+   * @return A new image with the filter applied.
+   */
   @Override
   public Image apply(Image... inputs) {
+    return apply(inputs, null);
+  }
+
+  @Override
+  public Image apply(Image[] inputs, Image destination) {
     int splitPercentage;
     Image input = inputs[0];
     int width = input.getWidth();
     int height = input.getHeight();
-    Pixel[][] imagePixels = input.getPixels();
-    Pixel[][] filterPixels = new Pixel[height][width];
+    Image filterImage = Image.prepareDestination(destination, input, width, height, inputs);
 
     kernel = getKernel();
+    double[][] separable = getSeparableKernel();
     splitPercentage = this.getSplit();
     int splitPos = (int) ((double) width * (splitPercentage / 100.0));
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        if (j < splitPos) {
-          filterPixels[i][j] = applyFilterToPixel(i, j, imagePixels);
-        } else {
-          filterPixels[i][j] = imagePixels[i][j];
-        }
-        // Add a vertical line at the split position
-        if (j == splitPos) {
-          filterPixels[i][j] = new Pixel(0, 0, 0);
-        }
-      }
+    if (separable == null && kernel.length >= FftConvolution.MIN_KERNEL_SIZE) {
+      FftConvolution.filter(input, filterImage, kernel, edgePolicy, splitPos);
+      return filterImage;
     }
-    Image filterImage = new Image(width, height);
-    filterImage.setPixels(filterPixels);
+    Convolution convolution = new Convolution(kernel, separable, edgePolicy);
+
+    ParallelExecutor.forEachBand(width, height, (fromRow, toRow) ->
+        convolution.filterRows(input, filterImage, fromRow, toRow, splitPos));
     return filterImage;
   }
 
-  private Pixel applyFilterToPixel(int i, int j, Pixel[][] imagePixels) {
-    int kernelSize = kernel.length;
-    int offset = kernelSize / 2;
-
-    double r = 0;
-    double g = 0;
-    double b = 0;
-
-    for (int ki = 0; ki < kernelSize; ki++) {
-      for (int kj = 0; kj < kernelSize; kj++) {
-        int pixelX = j - offset + kj;
-        int pixelY = i - offset + ki;
-
-        if (pixelY >= 0 && pixelY < imagePixels.length && pixelX >= 0
-            && pixelX < imagePixels[0].length) {
-          Pixel originalPixel = imagePixels[pixelY][pixelX];
-          r += originalPixel.getRed() * kernel[ki][kj];
-          g += originalPixel.getGreen() * kernel[ki][kj];
-          b += originalPixel.getBlue() * kernel[ki][kj];
-        }
-      }
-    }
-
-    // Clamp color values to the range 0-255
-    int red = Math.min(255, Math.max(0, (int) r));
-    int green = Math.min(255, Math.max(0, (int) g));
-    int blue = Math.min(255, Math.max(0, (int) b));
-
-    return new Pixel(red, green, blue);
+  @Override
+  public void computeTile(Image input, int x, int y, int width, int height, int[] dst) {
+    kernel = getKernel();
+    Convolution convolution = new Convolution(kernel, getSeparableKernel(), edgePolicy);
+    int splitPos = (int) ((double) input.getWidth() * (this.getSplit() / 100.0));
+    convolution.filterTile(input, x, y, width, height, dst, splitPos);
   }
 }
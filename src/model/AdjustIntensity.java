@@ -1,12 +1,17 @@
 package model;
 
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
 import model.enums.Intensity;
 
 /**
  * Class represents an image operation that adjusts the intensity of an image. Intensity adjustment
  * can brighten or darken an image by changing the intensity of the pixel colors.
  */
-public class AdjustIntensity implements ImageOperation {
+public class AdjustIntensity implements ImageOperation, TileOperation, ChannelMapping,
+    PointwiseOperation {
 
   private final int adjustment;
 
@@ -31,6 +36,11 @@ public class AdjustIntensity implements ImageOperation {
    */
   @Override
   public Image apply(Image... inputs) {
+    return apply(inputs, null);
+  }
+
+  @Override
+  public Image apply(Image[] inputs, Image destination) {
     if (inputs.length != 1) {
       throw new IllegalArgumentException("AdjustIntensity requires one input image.");
     }
@@ -39,29 +49,78 @@ public class AdjustIntensity implements ImageOperation {
 
     int width = image.getWidth();
     int height = image.getHeight();
-    Pixel[][] imagePixels = image.getPixels();
-    Pixel[][] intensityPixels = new Pixel[height][width];
+    Image newImage = Image.prepareDestination(destination, image, width, height, inputs);
+    int[] source = new int[width];
+    int[] row = new int[width];
+    ChannelLanes lanes = new ChannelLanes(width);
 
+    for (int i = 0; i < height; i++) {
+      image.getRow(i, source);
+      adjustRow(source, row, lanes, width);
+      if (Arrays.equals(source, row)) {
+        newImage.shareRow(i, image, i);
+      } else {
+        newImage.setRow(i, row);
+      }
+    }
+    return newImage;
+  }
+
+  @Override
+  public void computeTile(Image input, int x, int y, int width, int height, int[] dst) {
     for (int i = 0; i < height; i++) {
       for (int j = 0; j < width; j++) {
-        Pixel originalPixel = imagePixels[i][j];
-        int red = originalPixel.getRed();
-        int green = originalPixel.getGreen();
-        int blue = originalPixel.getBlue();
+        dst[i * width + j] = adjustPixel(input.getRGB(x + j, y + i));
+      }
+    }
+  }
+
+  @Override
+  public int applyToPixel(int rgb, int x, int y, int width) {
+    return adjustPixel(rgb);
+  }
 
-        int r;
-        int g;
-        int b;
+  /**
+   * Builds the lookup tables of the intensity adjustment. The adjustment itself runs directly on
+   * unpacked channel lanes, where a clamped add is cheaper than a table lookup; the tables let it
+   * take part in a composed chain of channel mappings.
+   *
+   * @param histograms Not used, as the adjustment does not depend on the image contents.
+   * @return The lookup tables.
+   */
+  @Override
+  public ChannelLut toLut(Supplier<int[][]> histograms) {
+    IntUnaryOperator adjust = value -> Math.max(0, Math.min(value + this.adjustment, 255));
+    return ChannelLut.perChannel(adjust, adjust, adjust);
+  }
 
-        r = Math.max(0, Math.min(red + this.adjustment, 255));
-        g = Math.max(0, Math.min(green + this.adjustment, 255));
-        b = Math.max(0, Math.min(blue + this.adjustment, 255));
+  private void adjustRow(int[] source, int[] row, ChannelLanes lanes, int width) {
+    lanes.unpack(source, width);
+    adjustLane(lanes.red, width);
+    adjustLane(lanes.green, width);
+    adjustLane(lanes.blue, width);
+    lanes.pack(row, width);
+  }
 
-        intensityPixels[i][j] = new Pixel(r, g, b);
-      }
+  private void adjustLane(int[] lane, int width) {
+    for (int j = 0; j < width; j++) {
+      lane[j] = Math.max(0, Math.min(lane[j] + this.adjustment, 255));
     }
-    Image newImage = new Image(width, height);
-    newImage.setPixels(intensityPixels);
-    return newImage;
   }
-}
\ No newline at end of file
+
+  private int adjustPixel(int rgb) {
+    int red = (rgb >> 16) & 0xFF;
+    int green = (rgb >> 8) & 0xFF;
+    int blue = rgb & 0xFF;
+
+    int r;
+    int g;
+    int b;
+
+    r = Math.max(0, Math.min(red + this.adjustment, 255));
+    g = Math.max(0, Math.min(green + this.adjustment, 255));
+    b = Math.max(0, Math.min(blue + this.adjustment, 255));
+
+    return (r << 16) | (g << 8) | b;
+  }
+}
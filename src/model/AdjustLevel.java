@@ -1,17 +1,21 @@
 package model;
 
-import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.function.Supplier;
 
 /**
  * This class represents an image operation for adjusting levels in an image.
  */
-public class AdjustLevel implements ImageOperation {
+public class AdjustLevel implements ImageOperation, TileOperation, ChannelMapping,
+    PointwiseOperation {
 
 
   private double a;
   private double b;
   private double c;
   private int splitPercentage = 100;
+  // Built up front, as pointwise views read it from parallel bands
+  private final ChannelLut lut;
 
   /**
    * Constructs an AdjustLevel operation with specified black, mid, and white values.
@@ -29,6 +33,7 @@ public class AdjustLevel implements ImageOperation {
           "Adjustment level should be in the order: black, mid, white");
     }
     this.splitPercentage = 100;
+    this.lut = toLut(null);
   }
 
   /**
@@ -63,10 +68,16 @@ public class AdjustLevel implements ImageOperation {
     double cA =
         black * black * (255 * mid - 128 * white) - black * (255 * mid * mid - 128 * white * white);
     c = cA / x;
+    this.lut = toLut(null);
   }
 
   @Override
   public Image apply(Image... inputs) {
+    return apply(inputs, null);
+  }
+
+  @Override
+  public Image apply(Image[] inputs, Image destination) {
     if (inputs.length == 0 || inputs[0] == null) {
       throw new IllegalArgumentException("Input image must not be null");
     }
@@ -76,44 +87,67 @@ public class AdjustLevel implements ImageOperation {
     int width = inputImage.getWidth();
     int height = inputImage.getHeight();
     int splitPoint = (splitPercentage > 0) ? (int) (width * splitPercentage / 100.0) : width;
-    BufferedImage adjustedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    int columns = Math.max(0, Math.min(width, splitPoint));
+    Image adjustedImage = Image.prepareDestination(destination, inputImage, width, height,
+        inputs);
+    int[] source = new int[width];
+    int[] row = new int[width];
 
     for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        Pixel pixel = inputImage.getPixels()[y][x];
-        int red = pixel.getRed();
-        int green = pixel.getGreen();
-        int blue = pixel.getBlue();
-
-        if (x < splitPoint) {
-          red = applyAdjustment(red);
-          green = applyAdjustment(green);
-          blue = applyAdjustment(blue);
-        }
+      inputImage.getRow(y, source);
+      lut.mapRow(source, row, columns);
+      System.arraycopy(source, columns, row, columns, width - columns);
+      if (splitPercentage > 0 && splitPoint < width) {
+        row[splitPoint] = 0; // Black line
+      }
+      if (Arrays.equals(source, row)) {
+        adjustedImage.shareRow(y, inputImage, y);
+      } else {
+        adjustedImage.setRow(y, row);
+      }
+    }
 
-        if (splitPercentage > 0 && x == splitPoint) {
-          adjustedImage.setRGB(x, y, new Pixel(0, 0, 0).toRGB()); // Black line
+    return adjustedImage;
+  }
+
+  @Override
+  public void computeTile(Image input, int x, int y, int width, int height, int[] dst) {
+    int imageWidth = input.getWidth();
+    int splitPoint =
+        (splitPercentage > 0) ? (int) (imageWidth * splitPercentage / 100.0) : imageWidth;
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        int column = x + j;
+        int rgb = input.getRGB(column, y + i);
+        if (splitPercentage > 0 && column == splitPoint) {
+          dst[i * width + j] = 0; // Black line
         } else {
-          adjustedImage.setRGB(x, y, new Pixel(red, green, blue).toRGB());
+          dst[i * width + j] = (column < splitPoint) ? lut.map(rgb) : rgb;
         }
       }
     }
-
-    return convertBufferedImageToImage(adjustedImage);
   }
 
-  private Image convertBufferedImageToImage(BufferedImage bufferedImage) {
-    Image image = new Image(bufferedImage.getWidth(), bufferedImage.getHeight());
-    for (int x = 0; x < bufferedImage.getWidth(); x++) {
-      for (int y = 0; y < bufferedImage.getHeight(); y++) {
-        int rgb = bufferedImage.getRGB(x, y);
-        int red = (rgb >> 16) & 0xFF;
-        int green = (rgb >> 8) & 0xFF;
-        int blue = rgb & 0xFF;
-        image.getPixels()[y][x] = new Pixel(red, green, blue);
-      }
+  @Override
+  public int applyToPixel(int rgb, int x, int y, int width) {
+    int splitPoint = (splitPercentage > 0) ? (int) (width * splitPercentage / 100.0) : width;
+    if (splitPercentage > 0 && x == splitPoint) {
+      return 0; // Black line
     }
-    return image;
+    return (x < splitPoint) ? lut.map(rgb) : rgb;
+  }
+
+  /**
+   * Builds the lookup tables of the levels adjustment, evaluating the adjustment curve once for
+   * each of the 256 channel values.
+   *
+   * @param histograms Not used, as the adjustment does not depend on the image contents.
+   * @return The lookup tables.
+   */
+  @Override
+  public ChannelLut toLut(Supplier<int[][]> histograms) {
+    return ChannelLut.perChannel(this::applyAdjustment, this::applyAdjustment,
+        this::applyAdjustment);
   }
 
   private int applyAdjustment(int value) {
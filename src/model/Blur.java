@@ -1,5 +1,6 @@
 package model;
 
+import model.enums.EdgePolicy;
 import model.enums.Filter;
 
 /**
@@ -27,13 +28,25 @@ public class Blur extends AbstractFilter {
     this.splitPercentage = splitPercentage;
   }
 
+  /**
+   * Constructs a `Blur` filter operation with the split percentage and the policy for kernel taps
+   * outside the image.
+   *
+   * @param splitPercentage The percentage of the image width from the left that is filtered.
+   * @param edgePolicy      How kernel taps outside the image are treated.
+   */
+  public Blur(int splitPercentage, EdgePolicy edgePolicy) {
+    super(Filter.BLUR, edgePolicy);
+    this.splitPercentage = splitPercentage;
+  }
+
 
   @Override
   protected double[][] getKernel() {
     return new double[][]{
         {1.0 / 16, 1.0 / 8, 1.0 / 16},
         {1.0 / 8, 1.0 / 4, 1.0 / 8},
-        {1.0 / 16, 1.0 / 4, 1.0 / 8}
+        {1.0 / 16, 1.0 / 8, 1.0 / 16}
     };
   }
 
@@ -0,0 +1,123 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class keeps images and working arrays that are no longer needed so that later operations
+ * can reuse their memory instead of allocating new buffers. Images are kept in buckets by their
+ * exact size and arrays in buckets by their length rounded up to a power of two, with a few
+ * buffers per bucket, so a run of operations over images of the same size settles into reusing
+ * the same few buffers.
+ *
+ * <p>A buffer handed to the pool must not be used by its previous owner afterwards. Buffers taken
+ * from the pool hold whatever their previous owner left in them.
+ */
+public final class BufferPool {
+
+  private static final int MAX_PER_BUCKET = 4;
+
+  private static final Map<Long, ArrayDeque<Image>> IMAGES = new HashMap<>();
+  private static final Map<Integer, ArrayDeque<double[]>> DOUBLES = new HashMap<>();
+
+  private BufferPool() {
+  }
+
+  /**
+   * Takes an image of the given size from the pool, or creates one with the default packed storage
+   * if the pool has none. A pooled image keeps the packed or planar storage it was created with,
+   * and its pixels are left as they were.
+   *
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @return The image.
+   */
+  public static synchronized Image acquireImage(int width, int height) {
+    ArrayDeque<Image> bucket = IMAGES.get(sizeKey(width, height));
+    Image image = (bucket == null) ? null : bucket.poll();
+    return (image != null) ? image : new Image(width, height);
+  }
+
+  /**
+   * Hands an image that is no longer needed to the pool. Images that cannot be reused safely,
+   * because views or lazy images read through to them or their pixels are not held on the heap,
+   * are left to the garbage collector, as are images beyond the capacity of their bucket.
+   *
+   * @param image The image to release.
+   */
+  public static synchronized void releaseImage(Image image) {
+    if (image == null || !image.isRecyclable()) {
+      return;
+    }
+    ArrayDeque<Image> bucket = IMAGES.computeIfAbsent(
+        sizeKey(image.getWidth(), image.getHeight()), key -> new ArrayDeque<>());
+    if (bucket.size() < MAX_PER_BUCKET && !containsIdentical(bucket, image)) {
+      bucket.push(image);
+    }
+  }
+
+  /**
+   * Takes an array of at least the given length from the pool, or creates one if the pool has
+   * none. Arrays are created with a power-of-two length, so the array may be longer than asked
+   * for, and its contents are left as they were.
+   *
+   * @param length The minimum length of the array.
+   * @return The array.
+   * @throws IllegalArgumentException If the length is negative.
+   */
+  public static synchronized double[] acquireDoubles(int length) {
+    if (length < 0) {
+      throw new IllegalArgumentException("Length must not be negative");
+    }
+    int bucketIndex = bucketOf(length);
+    if (bucketIndex > 30) {
+      return new double[length];
+    }
+    ArrayDeque<double[]> bucket = DOUBLES.get(bucketIndex);
+    double[] array = (bucket == null) ? null : bucket.poll();
+    return (array != null) ? array : new double[1 << bucketIndex];
+  }
+
+  /**
+   * Hands an array that is no longer needed to the pool. Arrays whose length is not a power of two
+   * did not come from the pool and are left to the garbage collector.
+   *
+   * @param array The array to release.
+   */
+  public static synchronized void releaseDoubles(double[] array) {
+    if (array == null || Integer.bitCount(array.length) != 1) {
+      return;
+    }
+    ArrayDeque<double[]> bucket = DOUBLES.computeIfAbsent(bucketOf(array.length),
+        key -> new ArrayDeque<>());
+    if (bucket.size() < MAX_PER_BUCKET && !containsIdentical(bucket, array)) {
+      bucket.push(array);
+    }
+  }
+
+  /**
+   * Drops every buffer held by the pool.
+   */
+  public static synchronized void clear() {
+    IMAGES.clear();
+    DOUBLES.clear();
+  }
+
+  private static long sizeKey(int width, int height) {
+    return ((long) width << 32) | (height & 0xFFFFFFFFL);
+  }
+
+  private static int bucketOf(int length) {
+    return (length <= 1) ? 0 : 32 - Integer.numberOfLeadingZeros(length - 1);
+  }
+
+  private static boolean containsIdentical(ArrayDeque<?> bucket, Object buffer) {
+    for (Object pooled : bucket) {
+      if (pooled == buffer) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
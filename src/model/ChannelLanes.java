@@ -0,0 +1,52 @@
+package model;
+
+/**
+ * This class holds one row of pixels unpacked into a separate {@code int} array per channel.
+ * Operations that do the same arithmetic on every pixel run it as simple counted loops over these
+ * arrays rather than one packed pixel at a time, which lets the JIT compile the loops to SIMD
+ * instructions that process a whole vector register of channel values per step.
+ */
+final class ChannelLanes {
+
+  final int[] red;
+  final int[] green;
+  final int[] blue;
+
+  /**
+   * Constructs lanes for rows of up to the given width.
+   *
+   * @param width The largest row width.
+   */
+  ChannelLanes(int width) {
+    this.red = new int[width];
+    this.green = new int[width];
+    this.blue = new int[width];
+  }
+
+  /**
+   * Unpacks the first pixels of a row of packed RGB values into the lanes.
+   *
+   * @param rgb    The packed RGB values.
+   * @param length The number of pixels to unpack.
+   */
+  void unpack(int[] rgb, int length) {
+    for (int j = 0; j < length; j++) {
+      red[j] = (rgb[j] >> 16) & 0xFF;
+      green[j] = (rgb[j] >> 8) & 0xFF;
+      blue[j] = rgb[j] & 0xFF;
+    }
+  }
+
+  /**
+   * Packs the first values of the lanes into a row of packed RGB values. The lanes must already
+   * hold values in the range 0-255.
+   *
+   * @param rgb    The row to write.
+   * @param length The number of pixels to pack.
+   */
+  void pack(int[] rgb, int length) {
+    for (int j = 0; j < length; j++) {
+      rgb[j] = (red[j] << 16) | (green[j] << 8) | blue[j];
+    }
+  }
+}
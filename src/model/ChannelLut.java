@@ -0,0 +1,238 @@
+package model;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * This class represents a per-channel pointwise operation as three 256-entry lookup tables, one
+ * for each of the red, green and blue channels. Applying it costs one table lookup per channel
+ * value, however expensive the function the tables were built from. Tables compose: mapping an
+ * image through {@code first.andThen(second)} gives the same result as mapping it through
+ * {@code first} and then through {@code second}, in a single pass over the pixels.
+ */
+public final class ChannelLut implements ImageOperation<Image>, TileOperation, ChannelMapping {
+
+  private static final int LEVELS = 256;
+
+  private final int[] red;
+  private final int[] green;
+  private final int[] blue;
+
+  /**
+   * Constructs lookup tables from the given per-channel tables. The tables are copied.
+   *
+   * @param red   The table for the red channel.
+   * @param green The table for the green channel.
+   * @param blue  The table for the blue channel.
+   * @throws IllegalArgumentException If a table does not have 256 entries in the range 0-255.
+   */
+  public ChannelLut(int[] red, int[] green, int[] blue) {
+    this.red = checkTable(red);
+    this.green = checkTable(green);
+    this.blue = checkTable(blue);
+  }
+
+  /**
+   * Creates the tables that leave every channel value unchanged.
+   *
+   * @return The identity tables.
+   */
+  public static ChannelLut identity() {
+    return perChannel(IntUnaryOperator.identity(), IntUnaryOperator.identity(),
+        IntUnaryOperator.identity());
+  }
+
+  /**
+   * Creates tables by evaluating a function once for every channel value.
+   *
+   * @param red   The function for the red channel.
+   * @param green The function for the green channel.
+   * @param blue  The function for the blue channel.
+   * @return The tables of the functions.
+   * @throws IllegalArgumentException If a function gives a value outside the range 0-255.
+   */
+  public static ChannelLut perChannel(IntUnaryOperator red, IntUnaryOperator green,
+      IntUnaryOperator blue) {
+    return new ChannelLut(tabulate(red), tabulate(green), tabulate(blue));
+  }
+
+  /**
+   * Composes a chain of channel mappings into one set of tables. Mappings that depend on the
+   * image contents see the histograms of the image as the earlier mappings in the chain leave it,
+   * which are derived from the histograms of the input without producing the intermediate images.
+   *
+   * @param input    The image the chain is applied to.
+   * @param mappings The mappings, in the order they are applied.
+   * @return The tables of the whole chain.
+   */
+  public static ChannelLut compose(Image input, ChannelMapping... mappings) {
+    int[][][] inputHistograms = new int[1][][];
+    ChannelLut result = identity();
+    for (ChannelMapping mapping : mappings) {
+      ChannelLut before = result;
+      ChannelLut next = mapping.toLut(() -> {
+        if (inputHistograms[0] == null) {
+          inputHistograms[0] = histogramsOf(input);
+        }
+        return before.remap(inputHistograms[0]);
+      });
+      result = result.andThen(next);
+    }
+    return result;
+  }
+
+  /**
+   * Calculates the red, green and blue histograms of an image in a single pass.
+   *
+   * @param image The image.
+   * @return The histograms as {red, green, blue}, with 256 entries each.
+   */
+  public static int[][] histogramsOf(Image image) {
+    int width = image.getWidth();
+    int[][] histograms = new int[3][LEVELS];
+    int[] row = new int[width];
+    for (int i = 0; i < image.getHeight(); i++) {
+      image.getRow(i, row);
+      for (int j = 0; j < width; j++) {
+        histograms[0][(row[j] >> 16) & 0xFF]++;
+        histograms[1][(row[j] >> 8) & 0xFF]++;
+        histograms[2][row[j] & 0xFF]++;
+      }
+    }
+    return histograms;
+  }
+
+  /**
+   * Creates the tables that map a value through these tables and then through the given ones.
+   *
+   * @param next The tables applied second.
+   * @return The composed tables.
+   */
+  public ChannelLut andThen(ChannelLut next) {
+    int[] r = new int[LEVELS];
+    int[] g = new int[LEVELS];
+    int[] b = new int[LEVELS];
+    for (int v = 0; v < LEVELS; v++) {
+      r[v] = next.red[red[v]];
+      g[v] = next.green[green[v]];
+      b[v] = next.blue[blue[v]];
+    }
+    return new ChannelLut(r, g, b);
+  }
+
+  /**
+   * Maps one packed RGB value through the tables.
+   *
+   * @param rgb The packed RGB value.
+   * @return The mapped packed RGB value.
+   */
+  public int map(int rgb) {
+    return (red[(rgb >> 16) & 0xFF] << 16) | (green[(rgb >> 8) & 0xFF] << 8)
+        | blue[rgb & 0xFF];
+  }
+
+  /**
+   * Maps the first values of a row of packed RGB values through the tables.
+   *
+   * @param source The packed RGB values to map.
+   * @param row    The row receiving the mapped values.
+   * @param length The number of values to map.
+   */
+  void mapRow(int[] source, int[] row, int length) {
+    for (int j = 0; j < length; j++) {
+      int rgb = source[j];
+      row[j] = (red[(rgb >> 16) & 0xFF] << 16) | (green[(rgb >> 8) & 0xFF] << 8)
+          | blue[rgb & 0xFF];
+    }
+  }
+
+  /**
+   * Maps every pixel of the input image through the tables. Large images are processed in
+   * parallel bands of rows, and rows that come out unchanged are shared with the input.
+   *
+   * @param inputs The input image.
+   * @return The mapped image.
+   */
+  @Override
+  public Image apply(Image... inputs) {
+    return apply(inputs, null);
+  }
+
+  @Override
+  public Image apply(Image[] inputs, Image destination) {
+    if (inputs.length != 1) {
+      throw new IllegalArgumentException("ChannelLut requires one input image.");
+    }
+    Image input = inputs[0];
+    int width = input.getWidth();
+    int height = input.getHeight();
+    Image result = Image.prepareDestination(destination, input, width, height, inputs);
+
+    ParallelExecutor.forEachBand(width, height, (fromRow, toRow) -> {
+      int[] source = new int[width];
+      int[] row = new int[width];
+      for (int i = fromRow; i < toRow; i++) {
+        input.getRow(i, source);
+        mapRow(source, row, width);
+        if (Arrays.equals(source, row)) {
+          result.shareRow(i, input, i);
+        } else {
+          result.setRow(i, row);
+        }
+      }
+    });
+    return result;
+  }
+
+  @Override
+  public void computeTile(Image input, int x, int y, int width, int height, int[] dst) {
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        dst[i * width + j] = map(input.getRGB(x + j, y + i));
+      }
+    }
+  }
+
+  @Override
+  public ChannelLut toLut(Supplier<int[][]> histograms) {
+    return this;
+  }
+
+  /**
+   * Calculates the histograms an image would have after mapping it through these tables.
+   *
+   * @param histograms The red, green and blue histograms of the image.
+   * @return The histograms of the mapped image.
+   */
+  int[][] remap(int[][] histograms) {
+    int[][] remapped = new int[3][LEVELS];
+    int[][] tables = {red, green, blue};
+    for (int c = 0; c < 3; c++) {
+      for (int v = 0; v < LEVELS; v++) {
+        remapped[c][tables[c][v]] += histograms[c][v];
+      }
+    }
+    return remapped;
+  }
+
+  private static int[] tabulate(IntUnaryOperator function) {
+    int[] table = new int[LEVELS];
+    for (int v = 0; v < LEVELS; v++) {
+      table[v] = function.applyAsInt(v);
+    }
+    return checkTable(table);
+  }
+
+  private static int[] checkTable(int[] table) {
+    if (table == null || table.length != LEVELS) {
+      throw new IllegalArgumentException("A lookup table must have 256 entries");
+    }
+    for (int value : table) {
+      if (value < 0 || value > 255) {
+        throw new IllegalArgumentException("Lookup table values must be in the range 0-255");
+      }
+    }
+    return table.clone();
+  }
+}
@@ -0,0 +1,22 @@
+package model;
+
+import java.util.function.Supplier;
+
+/**
+ * This interface represents an image operation that maps every channel value of every pixel
+ * through a fixed function of that value alone. Such an operation is fully described by one
+ * 256-entry table per channel, and a chain of them can be composed into a single table with
+ * {@link ChannelLut#compose(Image, ChannelMapping...)}.
+ */
+public interface ChannelMapping {
+
+  /**
+   * Builds the lookup tables of this mapping for the image it is applied to. A split percentage
+   * of the operation is not part of the tables; they map the whole image.
+   *
+   * @param histograms Supplies the red, green and blue histograms of the image the mapping is
+   *                   applied to. Mappings that do not depend on the image contents never call it.
+   * @return The lookup tables.
+   */
+  ChannelLut toLut(Supplier<int[][]> histograms);
+}
@@ -0,0 +1,86 @@
+package model;
+
+import model.enums.Color;
+
+/**
+ * This class represents a read-only view of one color channel of an image, stored as one
+ * contiguous plane with one byte per pixel in row-major order. Planes may be shared between
+ * images, so they never change once created.
+ */
+public final class ChannelPlane {
+
+  private final byte[] data;
+  private final int width;
+  private final int height;
+
+  /**
+   * Constructs a plane over the given channel values. A null array stands for a plane of zeros.
+   *
+   * @param data   The channel values, or null for an all-zero plane.
+   * @param width  The width of the plane.
+   * @param height The height of the plane.
+   */
+  ChannelPlane(byte[] data, int width, int height) {
+    this.data = data;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Gets the width of the plane.
+   *
+   * @return The width of the plane.
+   */
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Gets the height of the plane.
+   *
+   * @return The height of the plane.
+   */
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Gets the channel value at the specified coordinates (x, y).
+   *
+   * @param x The x-coordinate of the value.
+   * @param y The y-coordinate of the value.
+   * @return The channel value (0-255).
+   */
+  public int get(int x, int y) {
+    return (data == null) ? 0 : data[y * width + x] & 0xFF;
+  }
+
+  /**
+   * Gets the backing array of the plane, or null if the plane is all zeros. Callers must not
+   * write into the returned array.
+   *
+   * @return The backing array.
+   */
+  byte[] data() {
+    return this.data;
+  }
+
+  /**
+   * Gets the bit position of a color channel inside a packed RGB value.
+   *
+   * @param color The color channel.
+   * @return The shift of the channel in the layout {@code 0xRRGGBB}.
+   */
+  static int shiftOf(Color color) {
+    switch (color) {
+      case RED:
+        return 16;
+      case GREEN:
+        return 8;
+      case BLUE:
+        return 0;
+      default:
+        throw new IllegalArgumentException("Invalid color: " + color);
+    }
+  }
+}
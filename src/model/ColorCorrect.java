@@ -1,11 +1,12 @@
 package model;
 
-import static model.VisualizeHistogram.calculateHistogram;
+import java.util.Arrays;
+import java.util.function.Supplier;
 
 /**
  * This class represents an image operation for color correction.
  */
-public class ColorCorrect implements ImageOperation<Image> {
+public class ColorCorrect implements ImageOperation<Image>, ChannelMapping {
 
   private int splitPercentage = 100;
 
@@ -27,12 +28,17 @@ public class ColorCorrect implements ImageOperation<Image> {
 
   @Override
   public Image apply(Image... inputs) {
+    return apply(inputs, null);
+  }
+
+  @Override
+  public Image apply(Image[] inputs, Image destination) {
     if (inputs.length != 1) {
       throw new IllegalArgumentException(
           "ColorCorrection operation requires exactly one input image.");
     }
 
-    return correctColor(inputs[0]);
+    return correctColor(inputs[0], destination);
   }
 
   /**
@@ -42,48 +48,60 @@ public class ColorCorrect implements ImageOperation<Image> {
    * @return The color-corrected image.
    */
   public Image correctColor(Image inputImage) {
-    int[] redHistogram = calculateHistogram(inputImage, 'r');
-    int[] greenHistogram = calculateHistogram(inputImage, 'g');
-    int[] blueHistogram = calculateHistogram(inputImage, 'b');
+    return correctColor(inputImage, null);
+  }
 
-    int averagePeakPosition =
-        (findPeak(redHistogram) + findPeak(greenHistogram) + findPeak(blueHistogram)) / 3;
+  private Image correctColor(Image inputImage, Image destination) {
+    ChannelLut lut = toLut(() -> ChannelLut.histogramsOf(inputImage));
     int width = inputImage.getWidth();
     int height = inputImage.getHeight();
-    Pixel[][] correctedPixels = new Pixel[height][width];
+    Image correctedImage = Image.prepareDestination(destination, inputImage, width, height,
+        inputImage);
+    int[] source = new int[width];
+    int[] row = new int[width];
 
     int splitPoint = (splitPercentage == 0) ? width : (int) (width * splitPercentage / 100.0);
+    int columns = Math.max(0, Math.min(width, splitPoint));
 
     for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        Pixel originalPixel = inputImage.getPixel(j, i);
-        correctedPixels[i][j] = applyColorCorrection(originalPixel, averagePeakPosition,
-            j < splitPoint, redHistogram, greenHistogram, blueHistogram);
-      }
+      inputImage.getRow(i, source);
+      lut.mapRow(source, row, columns);
+      System.arraycopy(source, columns, row, columns, width - columns);
 
       // Draw a vertical line at the split position
       if (splitPercentage > 0 && splitPoint < width) {
-        correctedPixels[i][splitPoint] = new Pixel(0, 0, 0);
+        row[splitPoint] = 0;
+      }
+      if (Arrays.equals(source, row)) {
+        correctedImage.shareRow(i, inputImage, i);
+      } else {
+        correctedImage.setRow(i, row);
       }
     }
 
-    Image correctedImage = new Image(width, height);
-    correctedImage.setPixels(correctedPixels);
     return correctedImage;
   }
 
-
-  private Pixel applyColorCorrection(Pixel pixel, int averagePeakPosition, boolean applyCorrection,
-      int[] redHistogram, int[] greenHistogram, int[] blueHistogram) {
-    int redOffset = averagePeakPosition - findPeak(redHistogram);
-    int greenOffset = averagePeakPosition - findPeak(greenHistogram);
-    int blueOffset = averagePeakPosition - findPeak(blueHistogram);
-
-    int red = applyCorrection ? clamp(pixel.getRed() + redOffset) : pixel.getRed();
-    int green = applyCorrection ? clamp(pixel.getGreen() + greenOffset) : pixel.getGreen();
-    int blue = applyCorrection ? clamp(pixel.getBlue() + blueOffset) : pixel.getBlue();
-
-    return new Pixel(red, green, blue);
+  /**
+   * Builds the lookup tables of the color correction, which shift each channel so that its
+   * histogram peak moves to the average peak of the three channels.
+   *
+   * @param histograms Supplies the red, green and blue histograms of the image to correct.
+   * @return The lookup tables.
+   */
+  @Override
+  public ChannelLut toLut(Supplier<int[][]> histograms) {
+    int[][] channelHistograms = histograms.get();
+    int redPeak = findPeak(channelHistograms[0]);
+    int greenPeak = findPeak(channelHistograms[1]);
+    int bluePeak = findPeak(channelHistograms[2]);
+    int averagePeakPosition = (redPeak + greenPeak + bluePeak) / 3;
+
+    int redOffset = averagePeakPosition - redPeak;
+    int greenOffset = averagePeakPosition - greenPeak;
+    int blueOffset = averagePeakPosition - bluePeak;
+    return ChannelLut.perChannel(value -> clamp(value + redOffset),
+        value -> clamp(value + greenOffset), value -> clamp(value + blueOffset));
   }
 
   private int clamp(int value) {
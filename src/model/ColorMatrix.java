@@ -0,0 +1,286 @@
+package model;
+
+import java.util.Arrays;
+import model.enums.Color;
+
+/**
+ * This class represents an affine color transform: each output channel is a weighted sum of the
+ * red, green and blue input channels plus an offset, clamped to the range 0-255. The transform is
+ * a 3x4 matrix whose rows give the red, green and blue outputs and whose last column holds the
+ * offsets.
+ *
+ * <p>Successive transforms compose algebraically with {@link #then(ColorMatrix)}, so a chain of
+ * them costs one matrix evaluation per pixel. The composed matrix skips the clamping and
+ * truncation between the steps, which only matters where an intermediate channel would have left
+ * the range 0-255.
+ *
+ * <p>Matrices are evaluated in 32.32 fixed-point integer arithmetic and each channel is rounded
+ * down, as the per-pixel operations such as {@link Sepia} do. The weights of each row are rounded
+ * to fixed point so that they add up to exactly the rounded sum of the row, so a row whose weights
+ * add up to one maps every grey level to itself. The sum is rounded down only after a bias of
+ * {@code 2^-20} is added, which is larger than the rounding error of the weights, so a sum that is
+ * exactly a whole number is never rounded down to the one below it. Sepia and the luma conversion
+ * sum their weights in floating point, which can leave such a sum just below the whole number, so
+ * on those pixels they give one level less than the matrix.
+ */
+public final class ColorMatrix implements ImageOperation<Image>, TileOperation,
+    PointwiseOperation {
+
+  private static final int FIXED_SHIFT = 32;
+  private static final double FIXED_ONE = 1L << FIXED_SHIFT;
+  private static final long FIXED_BIAS = 1L << (FIXED_SHIFT - 20);
+  private static final double MAX_CHANNEL_SUM = 1 << 14;
+
+  private final double[][] matrix;
+  private final long[] fixed;
+
+  /**
+   * Constructs a color transform from a 3x4 matrix. The matrix is copied.
+   *
+   * @param matrix The rows for the red, green and blue outputs, each holding the red, green and
+   *               blue weights followed by the offset.
+   * @throws IllegalArgumentException If the matrix is not 3x4, or its weights are so large that a
+   *                                  channel sum could overflow fixed-point arithmetic.
+   */
+  public ColorMatrix(double[][] matrix) {
+    if (matrix == null || matrix.length != 3) {
+      throw new IllegalArgumentException("A color matrix must have 3 rows");
+    }
+    this.matrix = new double[3][];
+    this.fixed = new long[12];
+    for (int i = 0; i < 3; i++) {
+      if (matrix[i] == null || matrix[i].length != 4) {
+        throw new IllegalArgumentException("Each color matrix row must have 4 entries");
+      }
+      this.matrix[i] = matrix[i].clone();
+      double bound = Math.abs(matrix[i][3]);
+      for (int j = 0; j < 3; j++) {
+        bound += Math.abs(matrix[i][j]) * 255;
+      }
+      if (!(bound < MAX_CHANNEL_SUM)) {
+        throw new IllegalArgumentException("Color matrix entries are too large");
+      }
+      toFixedPoint(matrix[i], fixed, i * 4);
+    }
+  }
+
+  /**
+   * Converts the weights of one row to fixed point, rounding them so that they add up to the
+   * rounded sum of the row. Each weight is first rounded down, and the units still missing from
+   * the sum go to the weights that lost the most by it.
+   */
+  private static void toFixedPoint(double[] row, long[] fixed, int offset) {
+    double[] scaled = new double[3];
+    long target = Math.round((row[0] + row[1] + row[2]) * FIXED_ONE);
+    long total = 0;
+    for (int j = 0; j < 3; j++) {
+      scaled[j] = row[j] * FIXED_ONE;
+      fixed[offset + j] = (long) Math.floor(scaled[j]);
+      total += fixed[offset + j];
+    }
+    for (long missing = target - total; missing > 0; missing--) {
+      int largest = 0;
+      for (int j = 1; j < 3; j++) {
+        if (scaled[j] - fixed[offset + j] > scaled[largest] - fixed[offset + largest]) {
+          largest = j;
+        }
+      }
+      fixed[offset + largest]++;
+    }
+    fixed[offset + 3] = Math.round(row[3] * FIXED_ONE) + FIXED_BIAS;
+  }
+
+  /**
+   * Creates the transform that leaves every pixel unchanged.
+   *
+   * @return The identity transform.
+   */
+  public static ColorMatrix identity() {
+    return new ColorMatrix(new double[][]{
+        {1, 0, 0, 0},
+        {0, 1, 0, 0},
+        {0, 0, 1, 0}
+    });
+  }
+
+  /**
+   * Creates the sepia tone transform.
+   *
+   * @return The sepia transform.
+   */
+  public static ColorMatrix sepia() {
+    return new ColorMatrix(new double[][]{
+        {0.393, 0.769, 0.189, 0},
+        {0.349, 0.686, 0.168, 0},
+        {0.272, 0.534, 0.131, 0}
+    });
+  }
+
+  /**
+   * Creates the transform to the greyscale luma of each pixel.
+   *
+   * @return The luma transform.
+   */
+  public static ColorMatrix luma() {
+    double[] row = {0.2126, 0.7152, 0.0722, 0};
+    return new ColorMatrix(new double[][]{row, row, row});
+  }
+
+  /**
+   * Creates the transform to the greyscale intensity, the average of the three channels, of each
+   * pixel.
+   *
+   * @return The intensity transform.
+   */
+  public static ColorMatrix intensity() {
+    double[] row = {1.0 / 3, 1.0 / 3, 1.0 / 3, 0};
+    return new ColorMatrix(new double[][]{row, row, row});
+  }
+
+  /**
+   * Creates the transform that keeps one color component and zeroes the other two.
+   *
+   * @param color The component to keep.
+   * @return The component transform.
+   */
+  public static ColorMatrix component(Color color) {
+    double[][] matrix = new double[3][4];
+    switch (color) {
+      case RED:
+        matrix[0][0] = 1;
+        break;
+      case GREEN:
+        matrix[1][1] = 1;
+        break;
+      case BLUE:
+        matrix[2][2] = 1;
+        break;
+      default:
+        break;
+    }
+    return new ColorMatrix(matrix);
+  }
+
+  /**
+   * Creates the transform that applies this transform and then the given one.
+   *
+   * @param next The transform applied second.
+   * @return The composed transform.
+   */
+  public ColorMatrix then(ColorMatrix next) {
+    double[][] product = new double[3][4];
+    for (int i = 0; i < 3; i++) {
+      for (int j = 0; j < 4; j++) {
+        double sum = (j == 3) ? next.matrix[i][3] : 0;
+        for (int k = 0; k < 3; k++) {
+          sum += next.matrix[i][k] * this.matrix[k][j];
+        }
+        product[i][j] = sum;
+      }
+    }
+    return new ColorMatrix(product);
+  }
+
+  /**
+   * Gets the matrix of this transform.
+   *
+   * @return A copy of the 3x4 matrix.
+   */
+  public double[][] getMatrix() {
+    double[][] copy = new double[3][];
+    for (int i = 0; i < 3; i++) {
+      copy[i] = matrix[i].clone();
+    }
+    return copy;
+  }
+
+  /**
+   * Applies the transform to every pixel of the input image. Large images are processed in
+   * parallel bands of rows, and rows that come out unchanged are shared with the input.
+   *
+   * @param inputs The input image.
+   * @return The transformed image.
+   */
+  @Override
+  public Image apply(Image... inputs) {
+    return apply(inputs, null);
+  }
+
+  @Override
+  public Image apply(Image[] inputs, Image destination) {
+    if (inputs.length != 1) {
+      throw new IllegalArgumentException("ColorMatrix requires one input image.");
+    }
+    Image input = inputs[0];
+    int width = input.getWidth();
+    int height = input.getHeight();
+    Image result = Image.prepareDestination(destination, input, width, height, inputs);
+
+    ParallelExecutor.forEachBand(width, height, (fromRow, toRow) -> {
+      int[] source = new int[width];
+      int[] row = new int[width];
+      ChannelLanes lanes = new ChannelLanes(width);
+      ChannelLanes output = new ChannelLanes(width);
+      for (int i = fromRow; i < toRow; i++) {
+        input.getRow(i, source);
+        lanes.unpack(source, width);
+        transformLane(lanes, output.red, 0, width);
+        transformLane(lanes, output.green, 4, width);
+        transformLane(lanes, output.blue, 8, width);
+        output.pack(row, width);
+        if (Arrays.equals(source, row)) {
+          result.shareRow(i, input, i);
+        } else {
+          result.setRow(i, row);
+        }
+      }
+    });
+    return result;
+  }
+
+  @Override
+  public void computeTile(Image input, int x, int y, int width, int height, int[] dst) {
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        dst[i * width + j] = map(input.getRGB(x + j, y + i));
+      }
+    }
+  }
+
+  @Override
+  public int applyToPixel(int rgb, int x, int y, int width) {
+    return map(rgb);
+  }
+
+  /**
+   * Transforms one packed RGB value.
+   *
+   * @param rgb The packed RGB value.
+   * @return The transformed packed RGB value.
+   */
+  public int map(int rgb) {
+    int r = (rgb >> 16) & 0xFF;
+    int g = (rgb >> 8) & 0xFF;
+    int b = rgb & 0xFF;
+    return (channel(r, g, b, 0) << 16) | (channel(r, g, b, 4) << 8) | channel(r, g, b, 8);
+  }
+
+  private int channel(int r, int g, int b, int row) {
+    long sum = fixed[row] * r + fixed[row + 1] * g + fixed[row + 2] * b + fixed[row + 3];
+    return (int) Math.min(255, Math.max(0, sum >> FIXED_SHIFT));
+  }
+
+  private void transformLane(ChannelLanes lanes, int[] out, int row, int width) {
+    long wr = fixed[row];
+    long wg = fixed[row + 1];
+    long wb = fixed[row + 2];
+    long offset = fixed[row + 3];
+    int[] red = lanes.red;
+    int[] green = lanes.green;
+    int[] blue = lanes.blue;
+    for (int j = 0; j < width; j++) {
+      long sum = wr * red[j] + wg * green[j] + wb * blue[j] + offset;
+      out[j] = (int) Math.min(255, Math.max(0, sum >> FIXED_SHIFT));
+    }
+  }
+}
@@ -1,9 +1,12 @@
 package model;
 
+import model.enums.Color;
+
 /**
  * Class that represents an image operation that combines three color component images: a red
  * component image, a green component image, and a blue component image to form a single color
- * image.
+ * image. The combined image is assembled from the channel planes of the components, which are
+ * shared rather than copied when the components are planar.
  */
 public class CombineImages implements ImageOperation {
 
@@ -35,23 +38,8 @@ public class CombineImages implements ImageOperation {
     int width = redComponent.getWidth();
     int height = redComponent.getHeight();
 
-    Pixel[][] redPixels = redComponent.getPixels();
-    Pixel[][] greenPixels = greenComponent.getPixels();
-    Pixel[][] bluePixels = blueComponent.getPixels();
-
-    Pixel[][] combinedPixels = new Pixel[height][width];
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = Math.min(255, Math.max(0, redPixels[i][j].getRed()));
-        int g = Math.min(255, Math.max(0, greenPixels[i][j].getGreen()));
-        int b = Math.min(255, Math.max(0, bluePixels[i][j].getBlue()));
-        combinedPixels[i][j] = new Pixel(r, g, b);
-      }
-    }
-
-    Image combinedImage = new Image(width, height);
-    combinedImage.setPixels(combinedPixels);
+    Image combinedImage = Image.fromPlanes(width, height, redComponent.getPlane(Color.RED),
+        greenComponent.getPlane(Color.GREEN), blueComponent.getPlane(Color.BLUE));
     return combinedImage;
   }
 }
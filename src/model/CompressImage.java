@@ -1,18 +1,27 @@
 package model;
 
-import static model.CompressUtils.combineColorChannels;
-import static model.CompressUtils.separateColorChannels;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * This class represents an image compression operation using the Haar wavelet transform and
- * thresholding.
+ * thresholding. Each color channel is padded with zeros to the next power of two in each
+ * dimension, so the padded area grows with the image area rather than with its longer side, and is
+ * transformed, thresholded and inverted in place by {@link HaarTransform}. Copying the channels in
+ * and out and every level of the transform run in parallel over rows and channels, with the same
+ * result as a sequential run.
+ *
+ * <p>The percentage is of the coefficients of the padded channels, so it depends on the padding: a
+ * 640x480 image is padded to 1024x512, and 50 percent zeroes half of those coefficients. A
+ * percentage of 0 keeps every coefficient and 100 zeroes every one.
+ *
+ * <p>An image that holds its own pixels is compressed through its {@link WaveletCoefficients},
+ * which are kept until the image is written or another image is compressed, so compressing it
+ * again by another percentage costs only the thresholding and the inverse transform.
  */
 public class CompressImage extends AbstractImageOperation<Image> {
 
+  private static final int RADIX_BITS = 16;
+
   private double percentage;
 
   /**
@@ -27,6 +36,11 @@ public class CompressImage extends AbstractImageOperation<Image> {
 
   @Override
   public Image apply(Image... inputs) {
+    return apply(inputs, null);
+  }
+
+  @Override
+  public Image apply(Image[] inputs, Image destination) {
     if (inputs == null) {
       throw new IllegalArgumentException("Null image");
     }
@@ -34,7 +48,7 @@ public class CompressImage extends AbstractImageOperation<Image> {
       throw new IllegalArgumentException(
           "compressImage operation requires exactly one input image.");
     }
-    return compress(inputs[0]);
+    return compress(inputs[0], destination);
   }
 
   /**
@@ -44,243 +58,203 @@ public class CompressImage extends AbstractImageOperation<Image> {
    * @return The compressed image.
    */
   public Image compress(Image image) {
+    return compress(image, null);
+  }
+
+  private Image compress(Image image, Image destination) {
     int imgWidth = image.getWidth();
     int imgHeight = image.getHeight();
-    Pixel[][] paddedPixels = padPixels(image);
-    paddedPixels = transformImage(paddedPixels, percentage);
-    Pixel[][] originalImagePixels = unPadPixels(paddedPixels, imgHeight, imgWidth);
-    Image compressedImage = new Image(image.getWidth(), image.getHeight());
-    compressedImage.setPixels(originalImagePixels);
+    Image compressedImage = Image.prepareDestination(destination, image, imgWidth, imgHeight,
+        image);
+    if (image.holdsOwnPixels()) {
+      // Compressing the same image again by another percentage reuses its transform
+      WaveletCoefficients.cached(image, 1).compress(percentage, compressedImage);
+      return compressedImage;
+    }
+    int paddedWidth = paddedSize(imgWidth);
+    int paddedHeight = paddedSize(imgHeight);
+    double[][] channels = new double[3][];
+    for (int c = 0; c < 3; c++) {
+      channels[c] = BufferPool.acquireDoubles(paddedWidth * paddedHeight);
+    }
+    // Copying in, each level of the transform and of its inverse across all channels, and copying
+    // out
+    TaskContext.expectPasses(2 * HaarTransform.levels(paddedWidth, paddedHeight) + 2);
+    separateChannels(image, channels, paddedWidth, paddedHeight);
+    transformImage(channels, paddedWidth, paddedHeight, percentage);
+    combineChannels(channels, paddedWidth, compressedImage);
+    for (double[] channel : channels) {
+      BufferPool.releaseDoubles(channel);
+    }
     return compressedImage;
   }
 
   /**
-   * haar transform on the 2D image pixels.
+   * Gets the size one dimension of the image is padded to, the smallest power of two that holds
+   * it. Width and height are padded independently.
    *
-   * @param values pixels
-   * @return haar transform
+   * @param dimension image width or height
+   * @return padded size
    */
-  private static double[][] haarTransform(double[][] values) {
-    int size = values.length;
-    while (size > 1) {
-      for (int i = 0; i < size; i++) {
-        double[] temp = new double[size];
-        System.arraycopy(values[i], 0, temp, 0, size);
-        temp = haarTransformOneD(temp, size);
-        System.arraycopy(temp, 0, values[i], 0, size);
+  static int paddedSize(int dimension) {
+    int size = 1;
+    while (size < dimension) {
+      size *= 2;
+    }
+    return size;
+  }
 
-      }
-      for (int i = 0; i < size; i++) {
-        double[] tempColumn = new double[size];
-        for (int j = 0; j < size; j++) {
-          tempColumn[j] = values[j][i];
+  /**
+   * Copy the color channels of the image into flat planes, padding with zeros.
+   *
+   * @param image    input image
+   * @param channels     red, green and blue planes of paddedWidth * paddedHeight values
+   * @param paddedWidth  padded width
+   * @param paddedHeight padded height
+   */
+  static void separateChannels(Image image, double[][] channels, int paddedWidth,
+      int paddedHeight) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    ParallelExecutor.forEachBand(paddedWidth, paddedHeight, (fromRow, toRow) -> {
+      int[] row = new int[width];
+      for (int i = fromRow; i < toRow; i++) {
+        int base = i * paddedWidth;
+        if (i >= height) {
+          for (double[] channel : channels) {
+            Arrays.fill(channel, base, base + paddedWidth, 0);
+          }
+          continue;
         }
-        // Transform column
-        tempColumn = haarTransformOneD(tempColumn, size);
-        for (int j = 0; j < size; j++) {
-          values[j][i] = tempColumn[j];
+        image.getRow(i, row);
+        for (int j = 0; j < width; j++) {
+          channels[0][base + j] = (row[j] >> 16) & 0xFF;
+          channels[1][base + j] = (row[j] >> 8) & 0xFF;
+          channels[2][base + j] = row[j] & 0xFF;
+        }
+        for (double[] channel : channels) {
+          Arrays.fill(channel, base + width, base + paddedWidth, 0);
         }
       }
-      size /= 2;
-    }
-    return values;
+    });
   }
 
-  //  public static void haarTransform(Pixel[][] pixels) {
-  //    int n = pixels.length;
-  //
-  //    while (n > 1) {
-  //      // Transform one row, then one column
-  //      for (int i = 0; i < n; i++) {
-  //        // Transform row
-  //        pixels[i] = haarTransformOneD(pixels[i], n);
-  //
-  //        // Transpose the matrix to prepare for column transform
-  //        pixels = transposePixelMatrix(pixels, n);
-  //
-  //        // Transform the now-top row, which is actually a column
-  //        pixels[i] = haarTransformOneD(pixels[i], n);
-  //
-  //        // Transpose the matrix back to its original orientation
-  //        pixels = transposePixelMatrix(pixels, n);
-  //      }
-  //      n = n / 2;
-  //    }
-  //  }
-
   /**
-   * haar transform on one dimension of a 2D image.
+   * Write the top-left corner of the planes back into the image, rounding and clamping each
+   * value.
    *
-   * @param data data
-   * @return haar transform
+   * @param channels    red, green and blue planes
+   * @param paddedWidth padded width
+   * @param image       output image
    */
-  private static double[] haarTransformOneD(double[] data, int n) {
-    double[] transformed = new double[n];
-    for (int i = 0; i < n / 2; i++) {
-      transformed[i] = (data[2 * i] + data[2 * i + 1]) / (2 * Math.sqrt(2));
-      transformed[n / 2 + i] = (data[2 * i] - data[2 * i + 1]) / (2 * Math.sqrt(2));
-    }
-    return transformed;
+  static void combineChannels(double[][] channels, int paddedWidth, Image image) {
+    int width = image.getWidth();
+    ParallelExecutor.forEachBand(width, image.getHeight(), (fromRow, toRow) -> {
+      int[] row = new int[width];
+      for (int i = fromRow; i < toRow; i++) {
+        int base = i * paddedWidth;
+        for (int j = 0; j < width; j++) {
+          int red = CompressUtils.clamp((int) Math.round(channels[0][base + j]));
+          int green = CompressUtils.clamp((int) Math.round(channels[1][base + j]));
+          int blue = CompressUtils.clamp((int) Math.round(channels[2][base + j]));
+          row[j] = (red << 16) | (green << 8) | blue;
+        }
+        image.setRow(i, row);
+      }
+    });
   }
 
   /**
-   * Perform haar and inverse transform on the image with the threshold.
+   * Perform haar and inverse transform on the channel planes with the threshold, in place.
    *
-   * @param originalPixels      original Pixels.
+   * @param channels            red, green and blue planes
+   * @param width               padded width
+   * @param height              padded height
    * @param thresholdPercentage threshold percentage
-   * @return transformed pixels
    */
-  private static Pixel[][] transformImage(Pixel[][] originalPixels, double thresholdPercentage) {
-    double[][][] channels = separateColorChannels(originalPixels);
-
-    double[][] redChannel = haarTransform(channels[0]);
-    double[][] greenChannel = haarTransform(channels[1]);
-    double[][] blueChannel = haarTransform(channels[2]);
-
-    List<Double> allCoefficients = getAllAbsoluteValues(redChannel, greenChannel, blueChannel);
-    Collections.sort(allCoefficients);
-    double threshold = determineThreshold(allCoefficients, thresholdPercentage);
-
-    applyThreshold(redChannel, threshold);
-    applyThreshold(greenChannel, threshold);
-    applyThreshold(blueChannel, threshold);
+  private static void transformImage(double[][] channels, int width, int height,
+      double thresholdPercentage) {
+    HaarTransform.forward(channels, width, height);
 
-    double[][] redChannelInv = inverseHaarTransform(redChannel);
-    double[][] greenChannelInv = inverseHaarTransform(greenChannel);
-    double[][] blueChannelInv = inverseHaarTransform(blueChannel);
+    double threshold = determineThreshold(channels, width * height, thresholdPercentage);
 
-    // Combine the color channels back into a Pixel[][] array
-    return combineColorChannels(redChannelInv, greenChannelInv, blueChannelInv);
+    for (double[] channel : channels) {
+      applyThreshold(channel, width * height, threshold);
+    }
+    HaarTransform.inverse(channels, width, height);
   }
 
   /**
-   * Get absolute values of all three channels of an image.
+   * Determine the threshold value from the coefficients: the magnitude below which the given
+   * percentage of all coefficients of the three channels lies, that is the largest magnitude among
+   * the coefficients to zero in sorted order. When no coefficient is to be zeroed, the threshold is
+   * -1, below every magnitude.
+   *
+   * <p>The magnitude is selected without sorting. Non-negative doubles order the same way as their
+   * bit patterns, so the bit pattern of the magnitude at the rank is found 16 bits at a time, most
+   * significant first: each pass counts the magnitudes that match the bits found so far by their
+   * next 16 bits and picks the bucket that holds the rank. Four passes over the coefficients give
+   * the exact value, with no memory per coefficient.
    *
-   * @param redChannel   red channel
-   * @param greenChannel green channel
-   * @param blueChannel  blue channel
-   * @return list of coefficients
+   * @param channels   red, green and blue planes
+   * @param length     number of coefficients in each plane
+   * @param percentage compress percentage
+   * @return threshold value
    */
-  private static List<Double> getAllAbsoluteValues(double[][] redChannel, double[][] greenChannel,
-      double[][] blueChannel) {
-    List<Double> allCoefficients = new ArrayList<>();
-    int dim = redChannel.length;
+  static double determineThreshold(double[][] channels, int length, double percentage) {
+    long rank = thresholdRank((long) channels.length * length, percentage);
+    if (rank < 0) {
+      return -1;
+    }
 
-    for (int i = 0; i < dim; i++) {
-      for (int j = 0; j < dim; j++) {
-        allCoefficients.add(Math.abs(redChannel[i][j]));
-        allCoefficients.add(Math.abs(greenChannel[i][j]));
-        allCoefficients.add(Math.abs(blueChannel[i][j]));
+    long[] counts = new long[1 << RADIX_BITS];
+    long prefix = 0;
+    for (int shift = Long.SIZE - RADIX_BITS; shift >= 0; shift -= RADIX_BITS) {
+      long mask = (shift == Long.SIZE - RADIX_BITS) ? 0 : -1L << (shift + RADIX_BITS);
+      Arrays.fill(counts, 0);
+      for (double[] channel : channels) {
+        for (int i = 0; i < length; i++) {
+          long bits = Double.doubleToRawLongBits(Math.abs(channel[i]));
+          if ((bits & mask) == prefix) {
+            counts[(int) (bits >>> shift) & (counts.length - 1)]++;
+          }
+        }
       }
+      int digit = 0;
+      while (rank >= counts[digit]) {
+        rank -= counts[digit];
+        digit++;
+      }
+      prefix |= (long) digit << shift;
     }
-
-    return allCoefficients;
+    return Double.longBitsToDouble(prefix);
   }
 
   /**
-   * Determine the threshold value from the coefficients.
+   * Get the rank in sorted order of the coefficient magnitude that is the threshold, that of the
+   * last coefficient to zero, or -1 if the percentage zeroes none.
    *
-   * @param allCoefficients coefficients list
-   * @param percentage      compress percentage
-   * @return threshold value
+   * @param total      number of coefficients
+   * @param percentage compress percentage
+   * @return rank of the threshold
    */
-  private static double determineThreshold(List<Double> allCoefficients, double percentage) {
-    int numCoefficientsToZero = (int) (allCoefficients.size() * percentage / 100.0);
-    return allCoefficients.get(Math.min(numCoefficientsToZero, allCoefficients.size() - 1));
+  static long thresholdRank(long total, double percentage) {
+    long numCoefficientsToZero = (long) (total * percentage / 100.0);
+    return Math.min(numCoefficientsToZero, total) - 1;
   }
 
   /**
    * Apply the threshold value to the pixels.
    *
    * @param values    pixel values
+   * @param length    number of values
    * @param threshold threshold value
    */
-  private static void applyThreshold(double[][] values, double threshold) {
-    int dim = values.length;
-
-    for (int i = 0; i < dim; i++) {
-      for (int j = 0; j < dim; j++) {
-        if (Math.abs(values[i][j]) <= threshold) {
-          values[i][j] = 0;
-        }
+  static void applyThreshold(double[] values, int length, double threshold) {
+    for (int i = 0; i < length; i++) {
+      if (Math.abs(values[i]) <= threshold) {
+        values[i] = 0;
       }
     }
   }
-
-  //  public static void inverseHaarTransform(Pixel[][] pixels) {
-  //    int n = 1;
-  //
-  //    while (n < pixels.length) {
-  //      // Increase the size of the transformed area
-  //      n = n * 2;
-  //
-  //      // Inverse transform one column (which is a row after transpose), then one row
-  //      for (int i = 0; i < n; i++) {
-  //        // Transpose the matrix to inverse transform the column (which becomes a row)
-  //        pixels = transposePixelMatrix(pixels, n);
-  //
-  //        // Inverse transform the now-top row, which is actually a column
-  //        pixels[i] = inverseHaarTransformOneD(pixels[i], n);
-  //
-  //        // Transpose the matrix back to its original orientation
-  //        pixels = transposePixelMatrix(pixels, n);
-  //
-  //        // Inverse transform row
-  //        pixels[i] = inverseHaarTransformOneD(pixels[i], n);
-  //      }
-  //    }
-  //  }
-
-  /**
-   * Perform inverse haar transform on the transformed image.
-   *
-   * @param values pixel values
-   * @return inverse transformed values
-   */
-  private static double[][] inverseHaarTransform(double[][] values) {
-    int size = 2;
-
-    while (size <= values.length) {
-
-      // Inverse transform on columns
-      for (int j = 0; j < size; j++) {
-        double[] temp = new double[size];
-        for (int i = 0; i < size; i++) {
-          temp[i] = values[i][j];
-        }
-        temp = inverseHaarTransformOneD(temp);
-        // Inverse transform on rows
-        for (int i = 0; i < size; i++) {
-          values[i][j] = temp[i];
-        }
-      }
-
-      for (int i = 0; i < size; i++) {
-        double[] temp = new double[size];
-        System.arraycopy(values[i], 0, temp, 0, size);
-        temp = inverseHaarTransformOneD(temp);
-        System.arraycopy(temp, 0, values[i], 0, size);
-      }
-
-      size *= 2;
-    }
-    return values;
-  }
-
-  /**
-   * inverse transform on one dimension of a 2D image.
-   *
-   * @param data data
-   * @return inverse transform
-   */
-  private static double[] inverseHaarTransformOneD(double[] data) {
-    double[] temp = new double[data.length];
-    int halfLength = data.length / 2;
-    for (int i = 0; i < halfLength; i++) {
-      temp[2 * i] = (data[i] + data[i + halfLength]) * Math.sqrt(2);
-      temp[2 * i + 1] = (data[i] - data[i + halfLength]) * Math.sqrt(2);
-    }
-    System.arraycopy(temp, 0, data, 0, data.length);
-    return data;
-  }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package model;
+
+import java.util.List;
+
+/**
+ * This class represents compressing one image by several percentages at once, for choosing a
+ * compression ratio. The Haar transform of the image and the sorted magnitudes of its coefficients
+ * are computed once and shared by all percentages, through {@link WaveletCoefficients}, and each
+ * result is the same as that of {@link CompressImage} with its percentage. They are kept for
+ * further sweeps and compressions of the same image until it is written or another image is
+ * compressed.
+ */
+public class CompressionSweep implements ImageOperation<List<Image>> {
+
+  private final double[] percentages;
+
+  /**
+   * Constructs a CompressionSweep operation with the specified compression percentages.
+   *
+   * @param percentages The percentages of coefficients to zero, each from 0 to 100.
+   * @throws IllegalArgumentException If no percentage is given or a percentage is out of range.
+   */
+  public CompressionSweep(double... percentages) throws IllegalArgumentException {
+    if (percentages == null || percentages.length == 0) {
+      throw new IllegalArgumentException("At least one percentage is required");
+    }
+    for (double percentage : percentages) {
+      if (!(percentage >= 0 && percentage <= 100)) {
+        throw new IllegalArgumentException("Percentage must be between 0 and 100");
+      }
+    }
+    this.percentages = percentages.clone();
+  }
+
+  /**
+   * Compresses the image by each percentage.
+   *
+   * @param inputs The image to compress.
+   * @return The compressed images, in the order of the percentages.
+   * @throws IllegalArgumentException If not exactly one input image is provided.
+   */
+  @Override
+  public List<Image> apply(Image... inputs) throws IllegalArgumentException {
+    if (inputs == null || inputs.length != 1) {
+      throw new IllegalArgumentException("Only one input image is required");
+    }
+    return WaveletCoefficients.cached(inputs[0], percentages.length).compress(percentages);
+  }
+}
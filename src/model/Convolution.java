@@ -0,0 +1,523 @@
+package model;
+
+import java.util.Arrays;
+import model.enums.EdgePolicy;
+
+/**
+ * This class convolves images with a square kernel for the filter operations. Taps that fall
+ * outside the image are resolved by an {@link EdgePolicy}: with {@code ZERO} they contribute
+ * nothing, while the other policies read a clamped, mirrored or wrapped pixel instead.
+ *
+ * <p>Rows are processed through a sliding window of the K source rows a kernel row touches, with
+ * every source row unpacked once into one primitive array per channel. Columns whose taps all lie
+ * inside the image run a branch-free inner loop; only the border columns resolve each tap through
+ * the edge policy. A kernel that is the outer product of a column vector and a row vector is
+ * applied as a horizontal pass followed by a vertical pass, which costs 2K instead of K * K
+ * multiply-adds per pixel for a K x K kernel.
+ *
+ * <p>Kernels whose weights are all multiples of 2^-16, such as the dyadic kernels of the blur and
+ * sharpen filters, are applied in 16.16 fixed-point integer arithmetic instead of {@code double}.
+ * For such kernels the fixed-point sum equals the floating-point sum exactly, and flooring it
+ * gives the same channel value as truncating the floating-point sum once both are clamped.
+ */
+final class Convolution {
+
+  private static final double SEPARABLE_TOLERANCE = 1e-12;
+  private static final int FIXED_SHIFT = 16;
+  private static final double FIXED_ONE = 1 << FIXED_SHIFT;
+
+  private final double[][] kernel;
+  private final int[][] fixedKernel;
+  private final double[] columnKernel;
+  private final double[] rowKernel;
+  private final EdgePolicy edgePolicy;
+  private final int size;
+  private final int offset;
+
+  /**
+   * Constructs a convolution with the given kernel.
+   *
+   * @param kernel     The square kernel.
+   * @param separable  The kernel split into {column kernel, row kernel}, or null to run the kernel
+   *                   as a full two-dimensional pass.
+   * @param edgePolicy How taps outside the image are treated.
+   */
+  Convolution(double[][] kernel, double[][] separable, EdgePolicy edgePolicy) {
+    this.kernel = kernel;
+    this.fixedKernel = toFixedPoint(kernel);
+    this.size = kernel.length;
+    this.offset = size / 2;
+    this.columnKernel = (separable == null) ? null : separable[0];
+    this.rowKernel = (separable == null) ? null : separable[1];
+    this.edgePolicy = edgePolicy;
+  }
+
+  /**
+   * Splits a square kernel into a column kernel and a row kernel whose outer product is the
+   * kernel, if such a split exists.
+   *
+   * @param kernel The square kernel.
+   * @return The kernels as {column kernel, row kernel}, or null if the kernel is not separable.
+   */
+  static double[][] separate(double[][] kernel) {
+    int size = kernel.length;
+    int pivotRow = 0;
+    int pivotColumn = 0;
+    double scale = 0;
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        if (Math.abs(kernel[i][j]) > scale) {
+          scale = Math.abs(kernel[i][j]);
+          pivotRow = i;
+          pivotColumn = j;
+        }
+      }
+    }
+    if (scale == 0) {
+      return null;
+    }
+
+    double[] column = new double[size];
+    double[] row = new double[size];
+    for (int i = 0; i < size; i++) {
+      column[i] = kernel[i][pivotColumn];
+      row[i] = kernel[pivotRow][i] / kernel[pivotRow][pivotColumn];
+    }
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        if (Math.abs(kernel[i][j] - column[i] * row[j]) > SEPARABLE_TOLERANCE * scale) {
+          return null;
+        }
+      }
+    }
+    return new double[][]{column, row};
+  }
+
+  /**
+   * Converts a kernel to 16.16 fixed point if every weight is exactly representable and no sum of
+   * channel values weighted by the kernel can overflow an {@code int}.
+   *
+   * @param kernel The square kernel.
+   * @return The fixed-point weights, or null if the kernel has to run in floating point.
+   */
+  static int[][] toFixedPoint(double[][] kernel) {
+    int[][] fixed = new int[kernel.length][];
+    long bound = 0;
+    for (int i = 0; i < kernel.length; i++) {
+      fixed[i] = new int[kernel[i].length];
+      for (int j = 0; j < kernel[i].length; j++) {
+        double scaled = kernel[i][j] * FIXED_ONE;
+        if (scaled != Math.rint(scaled) || Math.abs(scaled) > Integer.MAX_VALUE) {
+          return null;
+        }
+        fixed[i][j] = (int) scaled;
+        bound += Math.abs((long) fixed[i][j]) * 255;
+        if (bound > Integer.MAX_VALUE) {
+          return null;
+        }
+      }
+    }
+    return fixed;
+  }
+
+  /**
+   * Tells whether this convolution runs in fixed-point integer arithmetic.
+   *
+   * @return True if the kernel is applied in 16.16 fixed point.
+   */
+  boolean isFixedPoint() {
+    return fixedKernel != null;
+  }
+
+  /**
+   * Maps a coordinate that may lie outside {@code [0, length)} onto the image.
+   *
+   * @param index  The coordinate.
+   * @param length The size of the image along the coordinate.
+   * @param policy The edge policy.
+   * @return The coordinate inside the image, or -1 if the tap contributes nothing.
+   */
+  static int resolve(int index, int length, EdgePolicy policy) {
+    if (index >= 0 && index < length) {
+      return index;
+    }
+    switch (policy) {
+      case CLAMP:
+        return Math.min(length - 1, Math.max(0, index));
+      case MIRROR:
+        if (length == 1) {
+          return 0;
+        }
+        int period = 2 * (length - 1);
+        int folded = Math.floorMod(index, period);
+        return (folded < length) ? folded : period - folded;
+      case WRAP:
+        return Math.floorMod(index, length);
+      case ZERO:
+      default:
+        return -1;
+    }
+  }
+
+  /**
+   * Filters a band of rows of the input image into the output image. Columns left of the split
+   * position are filtered, the column at the split position is drawn black, and the remaining
+   * columns are copied from the input. Rows that come out unchanged share the input row.
+   *
+   * @param input    The input image.
+   * @param output   The output image of the same size.
+   * @param fromRow  The first row of the band, inclusive.
+   * @param toRow    The last row of the band, exclusive.
+   * @param splitPos The column at which filtering stops.
+   */
+  void filterRows(Image input, Image output, int fromRow, int toRow, int splitPos) {
+    int width = input.getWidth();
+    int columns = Math.max(0, Math.min(width, splitPos));
+    int[] source = new int[width];
+    int[] row = new int[width];
+    Band band = (columns > 0) ? new Band(input, 0, columns) : null;
+
+    for (int i = fromRow; i < toRow; i++) {
+      input.getRow(i, source);
+      System.arraycopy(source, 0, row, 0, width);
+      if (band != null) {
+        band.filterRow(i, row);
+      }
+      // Add a vertical line at the split position
+      if (splitPos >= 0 && splitPos < width) {
+        row[splitPos] = 0;
+      }
+      if (Arrays.equals(source, row)) {
+        output.shareRow(i, input, i);
+      } else {
+        output.setRow(i, row);
+      }
+    }
+  }
+
+  /**
+   * Filters one rectangle of the input image, reading the kernel halo around it from the input.
+   * The rectangle is treated as part of a filter split at the given position, as in
+   * {@link #filterRows(Image, Image, int, int, int)}.
+   *
+   * @param input    The input image.
+   * @param x        The x-coordinate of the top-left corner of the rectangle.
+   * @param y        The y-coordinate of the top-left corner of the rectangle.
+   * @param width    The width of the rectangle.
+   * @param height   The height of the rectangle.
+   * @param dst      The buffer receiving the packed RGB values, with the rectangle width as the
+   *                 row stride.
+   * @param splitPos The column at which filtering stops.
+   */
+  void filterTile(Image input, int x, int y, int width, int height, int[] dst, int splitPos) {
+    int imageWidth = input.getWidth();
+    int filterEnd = Math.max(x, Math.min(x + width, splitPos));
+    int[] row = new int[imageWidth];
+    Band band = (filterEnd > x) ? new Band(input, x, filterEnd) : null;
+
+    for (int i = 0; i < height; i++) {
+      input.getRow(y + i, row);
+      if (band != null) {
+        band.filterRow(y + i, row);
+      }
+      if (splitPos >= x && splitPos < x + width) {
+        row[splitPos] = 0;
+      }
+      System.arraycopy(row, x, dst, i * width, width);
+    }
+  }
+
+  private static int packFixed(int r, int g, int b) {
+    // Drop the fraction and clamp color values to the range 0-255
+    int red = Math.min(255, Math.max(0, r >> FIXED_SHIFT));
+    int green = Math.min(255, Math.max(0, g >> FIXED_SHIFT));
+    int blue = Math.min(255, Math.max(0, b >> FIXED_SHIFT));
+
+    return (red << 16) | (green << 8) | blue;
+  }
+
+  private static int pack(double r, double g, double b) {
+    // Clamp color values to the range 0-255
+    int red = Math.min(255, Math.max(0, (int) r));
+    int green = Math.min(255, Math.max(0, (int) g));
+    int blue = Math.min(255, Math.max(0, (int) b));
+
+    return (red << 16) | (green << 8) | blue;
+  }
+
+  /**
+   * Holds the sliding window and scratch buffers for filtering consecutive rows of one band. The
+   * window slot of a kernel row is chosen by its unresolved row index, so the K rows of a window
+   * always occupy distinct slots and moving to the next row loads a single new source row.
+   */
+  private class Band {
+
+    private final Image input;
+    private final int width;
+    private final int height;
+    private final int fromColumn;
+    private final int toColumn;
+    private final int unpackFrom;
+    private final int unpackTo;
+    private final int interiorStart;
+    private final int interiorEnd;
+    private final int[] source;
+    private final int[][][] slots;
+    private final int[] slotRows;
+    private final boolean[] slotEmpty;
+    private final int[] window;
+    private final int[][] reds;
+    private final int[][] greens;
+    private final int[][] blues;
+    private final double[][][] horizontal;
+    private final double[] red;
+    private final double[] green;
+    private final double[] blue;
+    private final int[] fixedRed;
+    private final int[] fixedGreen;
+    private final int[] fixedBlue;
+
+    Band(Image input, int fromColumn, int toColumn) {
+      this.input = input;
+      this.width = input.getWidth();
+      this.height = input.getHeight();
+      this.fromColumn = fromColumn;
+      this.toColumn = toColumn;
+      this.interiorStart = Math.max(fromColumn, Math.min(offset, toColumn));
+      this.interiorEnd =
+          Math.max(interiorStart, Math.min(width - (size - 1 - offset), toColumn));
+      // Only the columns the taps can reach are unpacked; wrapped or deeply mirrored taps at the
+      // image border can reach anywhere in the row
+      boolean crossesBorder = fromColumn - offset < 0 || toColumn + (size - 1 - offset) > width;
+      boolean contained = !crossesBorder || edgePolicy == EdgePolicy.ZERO
+          || edgePolicy == EdgePolicy.CLAMP;
+      this.unpackFrom = contained ? Math.max(0, fromColumn - offset) : 0;
+      this.unpackTo = contained ? Math.min(width, toColumn + (size - 1 - offset)) : width;
+      this.source = new int[width];
+      this.slots = new int[size][3][width];
+      this.slotRows = new int[size];
+      Arrays.fill(slotRows, Integer.MIN_VALUE);
+      this.slotEmpty = new boolean[size];
+      this.window = new int[size];
+      this.reds = new int[size][];
+      this.greens = new int[size][];
+      this.blues = new int[size][];
+      this.horizontal = (rowKernel == null) ? null : new double[size][3][toColumn];
+      this.red = new double[toColumn];
+      this.green = new double[toColumn];
+      this.blue = new double[toColumn];
+      this.fixedRed = new int[toColumn];
+      this.fixedGreen = new int[toColumn];
+      this.fixedBlue = new int[toColumn];
+    }
+
+    /**
+     * Filters the columns of the band in one row in place.
+     */
+    void filterRow(int i, int[] row) {
+      loadWindow(i);
+      if (rowKernel != null) {
+        filterSeparable(row);
+      } else if (fixedKernel != null) {
+        filterFullFixed(row);
+      } else {
+        filterFull(row);
+      }
+    }
+
+    private void loadWindow(int i) {
+      for (int ki = 0; ki < size; ki++) {
+        int virtualRow = i - offset + ki;
+        int slot = Math.floorMod(virtualRow, size);
+        if (slotRows[slot] != virtualRow) {
+          int pixelY = resolve(virtualRow, height, edgePolicy);
+          slotEmpty[slot] = pixelY < 0;
+          if (pixelY >= 0) {
+            unpack(pixelY, slots[slot]);
+            if (horizontal != null) {
+              horizontalPass(slots[slot], horizontal[slot]);
+            }
+          }
+          slotRows[slot] = virtualRow;
+        }
+        window[ki] = slotEmpty[slot] ? -1 : slot;
+        reds[ki] = slotEmpty[slot] ? null : slots[slot][0];
+        greens[ki] = slotEmpty[slot] ? null : slots[slot][1];
+        blues[ki] = slotEmpty[slot] ? null : slots[slot][2];
+      }
+    }
+
+    private void unpack(int y, int[][] channels) {
+      input.getRow(y, source);
+      int[] r = channels[0];
+      int[] g = channels[1];
+      int[] b = channels[2];
+      for (int x = unpackFrom; x < unpackTo; x++) {
+        int rgb = source[x];
+        r[x] = (rgb >> 16) & 0xFF;
+        g[x] = (rgb >> 8) & 0xFF;
+        b[x] = rgb & 0xFF;
+      }
+    }
+
+    private void filterFull(int[] row) {
+      for (int j = fromColumn; j < interiorStart; j++) {
+        row[j] = borderPixel(j);
+      }
+      for (int j = interiorStart; j < interiorEnd; j++) {
+        double r = 0;
+        double g = 0;
+        double b = 0;
+        int base = j - offset;
+        for (int ki = 0; ki < size; ki++) {
+          int[] rr = reds[ki];
+          if (rr == null) {
+            continue;
+          }
+          int[] gg = greens[ki];
+          int[] bb = blues[ki];
+          double[] weights = kernel[ki];
+          for (int kj = 0; kj < size; kj++) {
+            double weight = weights[kj];
+            r += rr[base + kj] * weight;
+            g += gg[base + kj] * weight;
+            b += bb[base + kj] * weight;
+          }
+        }
+        row[j] = pack(r, g, b);
+      }
+      for (int j = interiorEnd; j < toColumn; j++) {
+        row[j] = borderPixel(j);
+      }
+    }
+
+    private int borderPixel(int j) {
+      double r = 0;
+      double g = 0;
+      double b = 0;
+      for (int ki = 0; ki < size; ki++) {
+        if (reds[ki] == null) {
+          continue;
+        }
+        for (int kj = 0; kj < size; kj++) {
+          int pixelX = resolve(j - offset + kj, width, edgePolicy);
+          if (pixelX >= 0) {
+            r += reds[ki][pixelX] * kernel[ki][kj];
+            g += greens[ki][pixelX] * kernel[ki][kj];
+            b += blues[ki][pixelX] * kernel[ki][kj];
+          }
+        }
+      }
+      return pack(r, g, b);
+    }
+
+    private void filterFullFixed(int[] row) {
+      for (int j = fromColumn; j < interiorStart; j++) {
+        row[j] = borderPixelFixed(j);
+      }
+      // Accumulate one kernel tap at a time across the whole interior, so that each inner loop is
+      // a plain multiply-add over arrays that the JIT can run on vector lanes
+      Arrays.fill(fixedRed, interiorStart, interiorEnd, 0);
+      Arrays.fill(fixedGreen, interiorStart, interiorEnd, 0);
+      Arrays.fill(fixedBlue, interiorStart, interiorEnd, 0);
+      for (int ki = 0; ki < size; ki++) {
+        int[] rr = reds[ki];
+        if (rr == null) {
+          continue;
+        }
+        int[] gg = greens[ki];
+        int[] bb = blues[ki];
+        for (int kj = 0; kj < size; kj++) {
+          int weight = fixedKernel[ki][kj];
+          int shift = kj - offset;
+          for (int j = interiorStart; j < interiorEnd; j++) {
+            fixedRed[j] += rr[j + shift] * weight;
+            fixedGreen[j] += gg[j + shift] * weight;
+            fixedBlue[j] += bb[j + shift] * weight;
+          }
+        }
+      }
+      for (int j = interiorStart; j < interiorEnd; j++) {
+        row[j] = packFixed(fixedRed[j], fixedGreen[j], fixedBlue[j]);
+      }
+      for (int j = interiorEnd; j < toColumn; j++) {
+        row[j] = borderPixelFixed(j);
+      }
+    }
+
+    private int borderPixelFixed(int j) {
+      int r = 0;
+      int g = 0;
+      int b = 0;
+      for (int ki = 0; ki < size; ki++) {
+        if (reds[ki] == null) {
+          continue;
+        }
+        for (int kj = 0; kj < size; kj++) {
+          int pixelX = resolve(j - offset + kj, width, edgePolicy);
+          if (pixelX >= 0) {
+            r += reds[ki][pixelX] * fixedKernel[ki][kj];
+            g += greens[ki][pixelX] * fixedKernel[ki][kj];
+            b += blues[ki][pixelX] * fixedKernel[ki][kj];
+          }
+        }
+      }
+      return packFixed(r, g, b);
+    }
+
+    private void horizontalPass(int[][] channels, double[][] result) {
+      for (int c = 0; c < 3; c++) {
+        int[] values = channels[c];
+        double[] sums = result[c];
+        for (int j = fromColumn; j < interiorStart; j++) {
+          sums[j] = borderSum(values, j);
+        }
+        for (int j = interiorStart; j < interiorEnd; j++) {
+          double sum = 0;
+          int base = j - offset;
+          for (int kj = 0; kj < size; kj++) {
+            sum += values[base + kj] * rowKernel[kj];
+          }
+          sums[j] = sum;
+        }
+        for (int j = interiorEnd; j < toColumn; j++) {
+          sums[j] = borderSum(values, j);
+        }
+      }
+    }
+
+    private double borderSum(int[] values, int j) {
+      double sum = 0;
+      for (int kj = 0; kj < size; kj++) {
+        int pixelX = resolve(j - offset + kj, width, edgePolicy);
+        if (pixelX >= 0) {
+          sum += values[pixelX] * rowKernel[kj];
+        }
+      }
+      return sum;
+    }
+
+    private void filterSeparable(int[] row) {
+      Arrays.fill(red, fromColumn, toColumn, 0);
+      Arrays.fill(green, fromColumn, toColumn, 0);
+      Arrays.fill(blue, fromColumn, toColumn, 0);
+
+      for (int ki = 0; ki < size; ki++) {
+        if (window[ki] < 0) {
+          continue;
+        }
+        double[][] sums = horizontal[window[ki]];
+        double weight = columnKernel[ki];
+        for (int j = fromColumn; j < toColumn; j++) {
+          red[j] += sums[0][j] * weight;
+          green[j] += sums[1][j] * weight;
+          blue[j] += sums[2][j] * weight;
+        }
+      }
+
+      for (int j = fromColumn; j < toColumn; j++) {
+        row[j] = pack(red[j], green[j], blue[j]);
+      }
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package model;
+
+import java.util.Arrays;
+import model.enums.EdgePolicy;
+
+/**
+ * This class convolves images with large square kernels through the fast Fourier transform. The
+ * image, extended by the kernel radius according to the edge policy, and the kernel are
+ * transformed, multiplied and transformed back, which costs O(log n) per pixel whatever the size
+ * of the kernel. Filters switch to it for kernels that are too large to apply directly and cannot
+ * be separated.
+ *
+ * <p>The whole filtered area is transformed at once, so memory grows with the image rather than
+ * the kernel: besides the input and output, a call holds four double planes, the transformed
+ * kernel and one channel as real and imaginary parts, each padded to powers of two at least the
+ * image size plus the kernel size. That is up to 128 bytes per pixel, plus three ints per pixel
+ * for the filtered channels.
+ */
+final class FftConvolution {
+
+  /**
+   * The smallest kernel size for which the transform is cheaper than a direct convolution.
+   */
+  static final int MIN_KERNEL_SIZE = 15;
+
+  // Guards the truncation of sums that are whole numbers against rounding error
+  private static final double ROUNDING_SLACK = 1e-6;
+
+  private FftConvolution() {
+  }
+
+  /**
+   * Filters the input image into the output image. Columns left of the split position are
+   * filtered, the column at the split position is drawn black, and the remaining columns are
+   * copied from the input.
+   *
+   * @param input      The input image.
+   * @param output     The output image of the same size.
+   * @param kernel     The square kernel.
+   * @param edgePolicy How taps outside the image are treated.
+   * @param splitPos   The column at which filtering stops.
+   */
+  static void filter(Image input, Image output, double[][] kernel, EdgePolicy edgePolicy,
+      int splitPos) {
+    int width = input.getWidth();
+    int height = input.getHeight();
+    int size = kernel.length;
+    int offset = size / 2;
+    int columns = Math.max(0, Math.min(width, splitPos));
+
+    int extendedWidth = columns + size - 1;
+    int extendedHeight = height + size - 1;
+    // The wrap-around of the cyclic convolution only reaches outputs that are not used
+    int paddedWidth = powerOfTwoAtLeast(extendedWidth);
+    int paddedHeight = powerOfTwoAtLeast(extendedHeight);
+
+    // One pass per channel and one to write the rows
+    TaskContext.expectPasses(4);
+    int[][] filtered = new int[3][columns * height];
+    if (columns > 0) {
+      // The kernel is flipped so that the convolution computes the correlation the filters use
+      double[] kernelReal = new double[paddedWidth * paddedHeight];
+      double[] kernelImaginary = new double[paddedWidth * paddedHeight];
+      for (int ki = 0; ki < size; ki++) {
+        for (int kj = 0; kj < size; kj++) {
+          kernelReal[ki * paddedWidth + kj] = kernel[size - 1 - ki][size - 1 - kj];
+        }
+      }
+      transform(kernelReal, kernelImaginary, paddedWidth, paddedHeight, false);
+
+      int[][] rows = new int[extendedHeight][];
+      for (int y = 0; y < extendedHeight; y++) {
+        int pixelY = Convolution.resolve(y - offset, height, edgePolicy);
+        if (pixelY >= 0) {
+          rows[y] = new int[width];
+          input.getRow(pixelY, rows[y]);
+        }
+      }
+      for (int c = 0; c < 3; c++) {
+        int shift = 16 - 8 * c;
+        double[] real = new double[paddedWidth * paddedHeight];
+        double[] imaginary = new double[paddedWidth * paddedHeight];
+        for (int y = 0; y < extendedHeight; y++) {
+          if (rows[y] == null) {
+            continue;
+          }
+          for (int x = 0; x < extendedWidth; x++) {
+            int pixelX = Convolution.resolve(x - offset, width, edgePolicy);
+            if (pixelX >= 0) {
+              real[y * paddedWidth + x] = (rows[y][pixelX] >> shift) & 0xFF;
+            }
+          }
+        }
+        transform(real, imaginary, paddedWidth, paddedHeight, false);
+        for (int k = 0; k < real.length; k++) {
+          double re = real[k] * kernelReal[k] - imaginary[k] * kernelImaginary[k];
+          double im = real[k] * kernelImaginary[k] + imaginary[k] * kernelReal[k];
+          real[k] = re;
+          imaginary[k] = im;
+        }
+        transform(real, imaginary, paddedWidth, paddedHeight, true);
+        for (int y = 0; y < height; y++) {
+          for (int x = 0; x < columns; x++) {
+            double value = real[(y + size - 1) * paddedWidth + x + size - 1] + ROUNDING_SLACK;
+            filtered[c][y * columns + x] = Math.min(255, Math.max(0, (int) value));
+          }
+        }
+        TaskContext.completePass();
+      }
+    }
+
+    int[] source = new int[width];
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      input.getRow(y, source);
+      System.arraycopy(source, 0, row, 0, width);
+      for (int x = 0; x < columns; x++) {
+        int index = y * columns + x;
+        row[x] = (filtered[0][index] << 16) | (filtered[1][index] << 8) | filtered[2][index];
+      }
+      // Add a vertical line at the split position
+      if (splitPos >= 0 && splitPos < width) {
+        row[splitPos] = 0;
+      }
+      if (Arrays.equals(source, row)) {
+        output.shareRow(y, input, y);
+      } else {
+        output.setRow(y, row);
+      }
+    }
+    TaskContext.completePass();
+  }
+
+  private static int powerOfTwoAtLeast(int n) {
+    int power = 1;
+    while (power < n) {
+      power <<= 1;
+    }
+    return power;
+  }
+
+  /**
+   * Transforms a two-dimensional complex array in place, row by row and then column by column.
+   * The inverse transform includes the scaling by the number of elements.
+   */
+  private static void transform(double[] real, double[] imaginary, int width, int height,
+      boolean inverse) {
+    double[] lineReal = new double[Math.max(width, height)];
+    double[] lineImaginary = new double[Math.max(width, height)];
+    for (int y = 0; y < height; y++) {
+      System.arraycopy(real, y * width, lineReal, 0, width);
+      System.arraycopy(imaginary, y * width, lineImaginary, 0, width);
+      transform(lineReal, lineImaginary, width, inverse);
+      System.arraycopy(lineReal, 0, real, y * width, width);
+      System.arraycopy(lineImaginary, 0, imaginary, y * width, width);
+    }
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        lineReal[y] = real[y * width + x];
+        lineImaginary[y] = imaginary[y * width + x];
+      }
+      transform(lineReal, lineImaginary, height, inverse);
+      for (int y = 0; y < height; y++) {
+        real[y * width + x] = lineReal[y];
+        imaginary[y * width + x] = lineImaginary[y];
+      }
+    }
+  }
+
+  /**
+   * Transforms the first {@code n} elements of a complex array in place with the iterative
+   * radix-2 algorithm. The length must be a power of two.
+   */
+  private static void transform(double[] real, double[] imaginary, int n, boolean inverse) {
+    for (int i = 1, j = 0; i < n; i++) {
+      int bit = n >> 1;
+      for (; (j & bit) != 0; bit >>= 1) {
+        j ^= bit;
+      }
+      j ^= bit;
+      if (i < j) {
+        double t = real[i];
+        real[i] = real[j];
+        real[j] = t;
+        t = imaginary[i];
+        imaginary[i] = imaginary[j];
+        imaginary[j] = t;
+      }
+    }
+    for (int length = 2; length <= n; length <<= 1) {
+      double angle = 2 * Math.PI / length * (inverse ? 1 : -1);
+      double stepReal = Math.cos(angle);
+      double stepImaginary = Math.sin(angle);
+      for (int i = 0; i < n; i += length) {
+        double wReal = 1;
+        double wImaginary = 0;
+        for (int k = 0; k < length / 2; k++) {
+          int a = i + k;
+          int b = a + length / 2;
+          double bReal = real[b] * wReal - imaginary[b] * wImaginary;
+          double bImaginary = real[b] * wImaginary + imaginary[b] * wReal;
+          real[b] = real[a] - bReal;
+          imaginary[b] = imaginary[a] - bImaginary;
+          real[a] += bReal;
+          imaginary[a] += bImaginary;
+          double next = wReal * stepReal - wImaginary * stepImaginary;
+          wImaginary = wReal * stepImaginary + wImaginary * stepReal;
+          wReal = next;
+        }
+      }
+    }
+    if (inverse) {
+      for (int i = 0; i < n; i++) {
+        real[i] /= n;
+        imaginary[i] /= n;
+      }
+    }
+  }
+}
@@ -20,7 +20,9 @@ public class Flip implements ImageOperation {
   }
 
   /**
-   * Flips the input image horizontally or vertically based on the specified direction.
+   * Flips the input image horizontally or vertically based on the specified direction. The result
+   * is a read-only view that remaps coordinates onto the input, so no pixels are copied until the
+   * result is saved, materialized or written.
    *
    * @param inputs An array containing a single input image to be flipped.
    * @return The flipped image with the specified flip direction.
@@ -32,33 +34,7 @@ public class Flip implements ImageOperation {
       throw new IllegalArgumentException("Only one input image is required");
     }
 
-    Image img = inputs[0];
-    int width = img.getWidth();
-    int height = img.getHeight();
-    Pixel[][] imagePixel = img.getPixels();
-    Pixel[][] flipPixel = new Pixel[height][width];
-
-    if (direction == Direction.HORIZONTAL) {
-      for (int i = 0; i < height; i++) {
-        int k = 0;
-        for (int j = width - 1; j >= 0; j--) {
-          flipPixel[i][k] = imagePixel[i][j];
-          k++;
-        }
-      }
-    } else if (direction == Direction.VERTICAL) {
-      int k = height - 1;
-      for (int i = 0; i < height; i++) {
-        for (int j = 0; j < width; j++) {
-          flipPixel[k][j] = imagePixel[i][j];
-        }
-        k--;
-      }
-    }
-
-    Image newImage = new Image(width, height);
-    newImage.setPixels(flipPixel);
-    return newImage;
+    return inputs[0].flippedView(direction);
   }
 }
 
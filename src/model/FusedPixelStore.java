@@ -0,0 +1,85 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class is a read-only view of another image with a chain of pointwise operations applied to
+ * every pixel as it is read. A view of a fused view extends the chain of the inner view rather
+ * than nesting, so a run of pointwise operations reads each source pixel once and runs all of
+ * them on it back to back, without ever building the intermediate images. Consecutive
+ * {@link ColorMatrix} operations in the chain are multiplied into a single matrix.
+ */
+class FusedPixelStore implements PixelStore {
+
+  private final Image source;
+  private final int width;
+  private final PointwiseOperation[] operations;
+
+  /**
+   * Constructs a view of the given image with the given operation applied.
+   *
+   * @param source    The image being viewed.
+   * @param operation The pointwise operation to apply.
+   */
+  FusedPixelStore(Image source, PointwiseOperation operation) {
+    PixelStore sourceStore = source.getStore();
+    if (sourceStore instanceof FusedPixelStore) {
+      FusedPixelStore inner = (FusedPixelStore) sourceStore;
+      int last = inner.operations.length - 1;
+      this.source = inner.source;
+      if (inner.operations[last] instanceof ColorMatrix && operation instanceof ColorMatrix) {
+        this.operations = inner.operations.clone();
+        this.operations[last] =
+            ((ColorMatrix) inner.operations[last]).then((ColorMatrix) operation);
+      } else {
+        this.operations = Arrays.copyOf(inner.operations, inner.operations.length + 1);
+        this.operations[last + 1] = operation;
+      }
+    } else {
+      this.source = source;
+      this.operations = new PointwiseOperation[]{operation};
+    }
+    this.width = source.getWidth();
+  }
+
+  @Override
+  public int getRGB(int x, int y) {
+    int rgb = source.getRGB(x, y);
+    for (PointwiseOperation operation : operations) {
+      rgb = operation.applyToPixel(rgb, x, y, width) & 0xFFFFFF;
+    }
+    return rgb;
+  }
+
+  @Override
+  public void setRGB(int x, int y, int value) {
+    throw new UnsupportedOperationException("Image views are read-only");
+  }
+
+  @Override
+  public void getRow(int y, int[] dst) {
+    source.getRow(y, dst);
+    for (int x = 0; x < width; x++) {
+      int rgb = dst[x];
+      for (PointwiseOperation operation : operations) {
+        rgb = operation.applyToPixel(rgb, x, y, width) & 0xFFFFFF;
+      }
+      dst[x] = rgb;
+    }
+  }
+
+  @Override
+  public void setRow(int y, int[] src) {
+    throw new UnsupportedOperationException("Image views are read-only");
+  }
+
+  @Override
+  public boolean isReadOnly() {
+    return true;
+  }
+
+  @Override
+  public PixelStore createCompatible(int width, int height) {
+    return source.getStore().createCompatible(width, height);
+  }
+}
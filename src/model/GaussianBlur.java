@@ -0,0 +1,308 @@
+package model;
+
+import java.util.Arrays;
+import model.enums.EdgePolicy;
+
+/**
+ * Class that represents a Gaussian blur with a chosen standard deviation. Small blurs convolve the
+ * image with the sampled Gaussian as two one-dimensional passes. Larger blurs approximate the
+ * Gaussian with three stacked box blurs along each axis, computed with running sums, so their cost
+ * per pixel stays the same however large the blur gets.
+ *
+ * <p>As with the other filters, the columns left of the split position are blurred, the column at
+ * the split position is drawn black and the remaining columns are copied from the input.
+ */
+public class GaussianBlur implements ImageOperation<Image> {
+
+  /**
+   * The largest standard deviation for which the sampled kernel is applied directly.
+   */
+  static final double MAX_DIRECT_SIGMA = 3.0;
+
+  private static final int BOX_PASSES = 3;
+  private static final double FIXED_ONE = 1 << 16;
+
+  private final double sigma;
+  private final int radius;
+  private final int splitPercentage;
+  private final EdgePolicy edgePolicy;
+
+  /**
+   * Constructs a Gaussian blur with the given standard deviation over the whole image. Pixels
+   * outside the image are taken from the nearest edge pixel.
+   *
+   * @param sigma The standard deviation of the Gaussian, in pixels.
+   * @throws IllegalArgumentException If sigma is not positive.
+   */
+  public GaussianBlur(double sigma) {
+    this(sigma, 100);
+  }
+
+  /**
+   * Constructs a Gaussian blur with the given standard deviation and split percentage. Pixels
+   * outside the image are taken from the nearest edge pixel.
+   *
+   * @param sigma           The standard deviation of the Gaussian, in pixels.
+   * @param splitPercentage The percentage of the image width, from the left, that is blurred.
+   * @throws IllegalArgumentException If sigma is not positive.
+   */
+  public GaussianBlur(double sigma, int splitPercentage) {
+    this(sigma, defaultRadius(sigma), splitPercentage, EdgePolicy.CLAMP);
+  }
+
+  /**
+   * Constructs a Gaussian blur with the given standard deviation, kernel radius, split percentage
+   * and edge policy. The radius bounds the sampled kernel of small blurs; large blurs made of box
+   * blurs always reach about three standard deviations and ignore it.
+   *
+   * @param sigma           The standard deviation of the Gaussian, in pixels.
+   * @param radius          The radius of the sampled kernel, in pixels.
+   * @param splitPercentage The percentage of the image width, from the left, that is blurred.
+   * @param edgePolicy      How pixels outside the image are treated.
+   * @throws IllegalArgumentException If sigma is not positive or the radius is negative.
+   */
+  public GaussianBlur(double sigma, int radius, int splitPercentage, EdgePolicy edgePolicy) {
+    if (!(sigma > 0)) {
+      throw new IllegalArgumentException("Sigma must be positive");
+    }
+    if (radius < 0) {
+      throw new IllegalArgumentException("Radius must not be negative");
+    }
+    this.sigma = sigma;
+    this.radius = radius;
+    this.splitPercentage = splitPercentage;
+    this.edgePolicy = edgePolicy;
+  }
+
+  /**
+   * Gets the kernel radius used when none is given, which covers three standard deviations.
+   *
+   * @param sigma The standard deviation of the Gaussian.
+   * @return The default radius.
+   */
+  public static int defaultRadius(double sigma) {
+    return (int) Math.ceil(3 * sigma);
+  }
+
+  @Override
+  public Image apply(Image... inputs) {
+    return apply(inputs, null);
+  }
+
+  @Override
+  public Image apply(Image[] inputs, Image destination) {
+    Image input = inputs[0];
+    int width = input.getWidth();
+    int height = input.getHeight();
+    int splitPos = (int) ((double) width * (splitPercentage / 100.0));
+    Image result = Image.prepareDestination(destination, input, width, height, inputs);
+
+    if (sigma <= MAX_DIRECT_SIGMA) {
+      double[] weights = sampledKernel();
+      double[][] kernel = new double[weights.length][weights.length];
+      for (int i = 0; i < weights.length; i++) {
+        for (int j = 0; j < weights.length; j++) {
+          kernel[i][j] = weights[i] * weights[j];
+        }
+      }
+      Convolution convolution =
+          new Convolution(kernel, new double[][]{weights, weights}, edgePolicy);
+      ParallelExecutor.forEachBand(width, height, (fromRow, toRow) ->
+          convolution.filterRows(input, result, fromRow, toRow, splitPos));
+      return result;
+    }
+
+    // Unpacking, a horizontal and a vertical pass per box, and packing
+    TaskContext.expectPasses(2 + 2 * BOX_PASSES);
+    int columns = Math.max(0, Math.min(width, splitPos));
+    int[][] planes = (columns > 0) ? boxBlur(input, columns) : null;
+    ParallelExecutor.forEachBand(width, height, (fromRow, toRow) -> {
+      int[] source = new int[width];
+      int[] row = new int[width];
+      for (int i = fromRow; i < toRow; i++) {
+        input.getRow(i, source);
+        System.arraycopy(source, 0, row, 0, width);
+        int base = i * columns;
+        for (int j = 0; j < columns; j++) {
+          row[j] = (planes[0][base + j] << 16) | (planes[1][base + j] << 8) | planes[2][base + j];
+        }
+        // Add a vertical line at the split position
+        if (splitPos >= 0 && splitPos < width) {
+          row[splitPos] = 0;
+        }
+        if (Arrays.equals(source, row)) {
+          result.shareRow(i, input, i);
+        } else {
+          result.setRow(i, row);
+        }
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Samples the normalized one-dimensional Gaussian over the kernel radius. The weights are
+   * rounded to multiples of 2^-16 that sum to exactly one, so that sums of weighted channel values
+   * are exact and a flat image stays flat despite the truncation of the filtered values.
+   *
+   * @return The kernel weights, {@code 2 * radius + 1} long.
+   */
+  double[] sampledKernel() {
+    double[] weights = new double[2 * radius + 1];
+    double sum = 0;
+    for (int i = -radius; i <= radius; i++) {
+      weights[i + radius] = Math.exp(-(i * i) / (2 * sigma * sigma));
+      sum += weights[i + radius];
+    }
+    long total = 0;
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = Math.round(weights[i] / sum * FIXED_ONE);
+      total += (long) weights[i];
+    }
+    // Give the rounding remainder to the centre tap
+    weights[radius] += FIXED_ONE - total;
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] /= FIXED_ONE;
+    }
+    return weights;
+  }
+
+  /**
+   * Computes the radii of the stacked box blurs whose combined variance is closest to the
+   * variance of the Gaussian.
+   *
+   * @param sigma The standard deviation of the Gaussian.
+   * @return The radius of each box blur.
+   */
+  static int[] boxRadii(double sigma) {
+    double idealWidth = Math.sqrt(12 * sigma * sigma / BOX_PASSES + 1);
+    int lower = (int) Math.floor(idealWidth);
+    if (lower % 2 == 0) {
+      lower--;
+    }
+    int upper = lower + 2;
+    double ideal = (12 * sigma * sigma - BOX_PASSES * lower * lower - 4 * BOX_PASSES * lower
+        - 3 * BOX_PASSES) / (-4.0 * lower - 4);
+    int smaller = (int) Math.round(ideal);
+
+    int[] radii = new int[BOX_PASSES];
+    for (int i = 0; i < BOX_PASSES; i++) {
+      radii[i] = ((i < smaller) ? lower : upper) / 2;
+    }
+    return radii;
+  }
+
+  /**
+   * Blurs the leading columns of the image with the stacked box blurs. Those columns are first
+   * extended on every side by the combined radius of the boxes, with real pixels where the image
+   * has them and pixels chosen by the edge policy elsewhere; the boxes then run over the extended
+   * planes, so the result is the stacked box blur of the extended image and whatever the boxes do
+   * at the outer border of the extension never reaches the columns themselves.
+   *
+   * @param input   The input image.
+   * @param columns The number of leading columns to blur.
+   * @return The blurred red, green and blue planes of the columns in row-major order.
+   */
+  private int[][] boxBlur(Image input, int columns) {
+    int width = input.getWidth();
+    int height = input.getHeight();
+    int[] radii = boxRadii(sigma);
+    int halo = Arrays.stream(radii).sum();
+    int extendedWidth = columns + 2 * halo;
+    int extendedHeight = height + 2 * halo;
+    int[][] planes = new int[3][extendedWidth * extendedHeight];
+    int[][] scratch = new int[3][extendedWidth * extendedHeight];
+
+    ParallelExecutor.forEachBand(extendedWidth, extendedHeight, (fromRow, toRow) -> {
+      int[] row = new int[width];
+      for (int i = fromRow; i < toRow; i++) {
+        int pixelY = Convolution.resolve(i - halo, height, edgePolicy);
+        if (pixelY < 0) {
+          continue;
+        }
+        input.getRow(pixelY, row);
+        int base = i * extendedWidth;
+        for (int j = 0; j < extendedWidth; j++) {
+          int pixelX = Convolution.resolve(j - halo, width, edgePolicy);
+          if (pixelX >= 0) {
+            planes[0][base + j] = (row[pixelX] >> 16) & 0xFF;
+            planes[1][base + j] = (row[pixelX] >> 8) & 0xFF;
+            planes[2][base + j] = row[pixelX] & 0xFF;
+          }
+        }
+      }
+    });
+
+    for (int boxRadius : radii) {
+      // Horizontal pass: every row is independent
+      ParallelExecutor.forEachBand(extendedWidth, extendedHeight, (fromRow, toRow) -> {
+        for (int c = 0; c < 3; c++) {
+          for (int i = fromRow; i < toRow; i++) {
+            boxRow(planes[c], scratch[c], i * extendedWidth, extendedWidth, boxRadius);
+          }
+        }
+      });
+      // Vertical pass: the bands are ranges of columns, each swept top to bottom
+      ParallelExecutor.forEachBand(extendedHeight, extendedWidth, (fromColumn, toColumn) -> {
+        for (int c = 0; c < 3; c++) {
+          boxColumns(scratch[c], planes[c], fromColumn, toColumn, extendedWidth, extendedHeight,
+              boxRadius);
+        }
+      });
+    }
+
+    int[][] blurred = new int[3][columns * height];
+    for (int c = 0; c < 3; c++) {
+      for (int i = 0; i < height; i++) {
+        System.arraycopy(planes[c], (i + halo) * extendedWidth + halo, blurred[c], i * columns,
+            columns);
+      }
+    }
+    return blurred;
+  }
+
+  /**
+   * Box blurs one row of a plane with a running sum, repeating the end values past the ends.
+   */
+  private static void boxRow(int[] src, int[] dst, int start, int length, int boxRadius) {
+    int size = 2 * boxRadius + 1;
+    int last = start + length - 1;
+    int sum = 0;
+    for (int k = -boxRadius; k <= boxRadius; k++) {
+      sum += src[Math.min(last, Math.max(start, start + k))];
+    }
+    for (int x = 0; x < length; x++) {
+      dst[start + x] = (sum + size / 2) / size;
+      sum += src[Math.min(last, start + x + boxRadius + 1)]
+          - src[Math.max(start, start + x - boxRadius)];
+    }
+  }
+
+  /**
+   * Box blurs a range of columns of a plane, sweeping down the rows so that each step reads one
+   * contiguous stretch of a row. Rows past the top and bottom repeat the end rows.
+   */
+  private static void boxColumns(int[] src, int[] dst, int fromColumn, int toColumn, int width,
+      int height, int boxRadius) {
+    int size = 2 * boxRadius + 1;
+    int[] sums = new int[toColumn - fromColumn];
+    for (int k = -boxRadius; k <= boxRadius; k++) {
+      addRow(src, sums, Math.min(height - 1, Math.max(0, k)), fromColumn, width, 1);
+    }
+    for (int y = 0; y < height; y++) {
+      int base = y * width;
+      for (int j = fromColumn; j < toColumn; j++) {
+        dst[base + j] = (sums[j - fromColumn] + size / 2) / size;
+      }
+      addRow(src, sums, Math.min(height - 1, y + boxRadius + 1), fromColumn, width, 1);
+      addRow(src, sums, Math.max(0, y - boxRadius), fromColumn, width, -1);
+    }
+  }
+
+  private static void addRow(int[] src, int[] sums, int y, int fromColumn, int width, int sign) {
+    int base = y * width + fromColumn;
+    for (int j = 0; j < sums.length; j++) {
+      sums[j] += sign * src[base + j];
+    }
+  }
+}
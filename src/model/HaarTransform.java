@@ -0,0 +1,199 @@
+package model;
+
+/**
+ * This class computes the two-dimensional Haar wavelet transform of a plane whose width and height
+ * are powers of two, in place on one flat row-major array. As in the lifting scheme, each level
+ * replaces pairs of values by their scaled average and difference where the pair lies, so
+ * coefficients stay interleaved with one another instead of being gathered into bands: after level
+ * {@code k} the approximation of the next level sits at the positions whose row and column are
+ * multiples of {@code 2^k}. No working memory beyond the plane is needed.
+ *
+ * <p>Rows and columns have their own number of levels, so a plane twice as wide as it is high
+ * keeps transforming its rows one level after its columns are done. Within a level, the rows that
+ * the column step pairs up are transformed and then combined with each other, one pair of rows at
+ * a time. No pair of rows reads what another pair writes, so the pairs of every plane of a level
+ * run in parallel through {@link ParallelExecutor}, and each level is one pass of progress. The
+ * arithmetic of every pair of values is the same as that of the banded transform, so for a square
+ * plane the coefficients are the same values in a different arrangement.
+ */
+final class HaarTransform {
+
+  private static final double FORWARD_DIVISOR = 2 * Math.sqrt(2);
+  private static final double INVERSE_FACTOR = Math.sqrt(2);
+
+  private HaarTransform() {
+  }
+
+  /**
+   * Gets the number of levels of the transform of a plane of the given size, which is the number
+   * of levels along its longer side.
+   *
+   * @param width  The width of the plane, a power of two.
+   * @param height The height of the plane, a power of two.
+   * @return The number of levels.
+   */
+  static int levels(int width, int height) {
+    return Integer.numberOfTrailingZeros(Math.max(width, height));
+  }
+
+  /**
+   * Gets the factor from an approximation coefficient left by the given number of levels to the
+   * mean of the values it covers. Each step along one dimension divides the mean by the square
+   * root of two, and the levels beyond a dimension make no steps along it.
+   *
+   * @param width  The width of the plane, a power of two.
+   * @param height The height of the plane, a power of two.
+   * @param levels The number of levels, at most {@link #levels(int, int)}.
+   * @return The factor.
+   */
+  static double approximationScale(int width, int height, int levels) {
+    int steps = 0;
+    for (int j = 0; j < levels; j++) {
+      steps += ((1 << j) < width ? 1 : 0) + ((1 << j) < height ? 1 : 0);
+    }
+    return Math.pow(2, steps / 2.0);
+  }
+
+  /**
+   * Transforms a plane in place, through all levels.
+   *
+   * @param plane  The plane in row-major order, {@code width * height} long.
+   * @param width  The width of the plane, a power of two.
+   * @param height The height of the plane, a power of two.
+   */
+  static void forward(double[] plane, int width, int height) {
+    forward(new double[][]{plane}, width, height);
+  }
+
+  /**
+   * Transforms planes of the same size in place, through all levels, level by level across all
+   * planes.
+   *
+   * @param planes The planes in row-major order, each at least {@code width * height} long.
+   * @param width  The width of the planes, a power of two.
+   * @param height The height of the planes, a power of two.
+   */
+  static void forward(double[][] planes, int width, int height) {
+    for (int step = 1; step < Math.max(width, height); step *= 2) {
+      int level = step;
+      forEachPair(planes, width, height, level,
+          (plane, top) -> forwardLevel(plane, width, height, level, top));
+    }
+  }
+
+  /**
+   * Inverts the transform of a plane in place, through all levels.
+   *
+   * @param plane  The transformed plane in row-major order, {@code width * height} long.
+   * @param width  The width of the plane, a power of two.
+   * @param height The height of the plane, a power of two.
+   */
+  static void inverse(double[] plane, int width, int height) {
+    inverse(new double[][]{plane}, width, height);
+  }
+
+  /**
+   * Inverts the transform of planes of the same size in place, through all levels, level by level
+   * across all planes.
+   *
+   * @param planes The transformed planes in row-major order, each at least {@code width * height}
+   *               long.
+   * @param width  The width of the planes, a power of two.
+   * @param height The height of the planes, a power of two.
+   */
+  static void inverse(double[][] planes, int width, int height) {
+    for (int step = Math.max(width, height) / 2; step >= 1; step /= 2) {
+      int level = step;
+      forEachPair(planes, width, height, level,
+          (plane, top) -> inverseLevel(plane, width, height, level, top));
+    }
+  }
+
+  /**
+   * Runs one level over every pair of rows of every plane. A level whose rows are no longer
+   * paired by the column step has the single row 0 in each plane.
+   */
+  private static void forEachPair(double[][] planes, int width, int height, int step,
+      PairTask task) {
+    int pairs = (step < height) ? height / (2 * step) : 1;
+    // Pairs of values that one pair of rows transforms, as the width of a band row
+    int pairWork = Math.max(1, 2 * width / step);
+    ParallelExecutor.forEachBand(pairWork, planes.length * pairs, (fromPair, toPair) -> {
+      for (int i = fromPair; i < toPair; i++) {
+        task.process(planes[i / pairs], (i % pairs) * 2 * step);
+      }
+    });
+  }
+
+  private static void forwardLevel(double[] plane, int width, int height, int step, int top) {
+    if (step < width) {
+      forwardRow(plane, top * width, width, step);
+      if (step < height) {
+        forwardRow(plane, (top + step) * width, width, step);
+      }
+    }
+    if (step < height) {
+      int first = top * width;
+      int second = (top + step) * width;
+      for (int column = 0; column < width; column += step) {
+        forwardPair(plane, first + column, second + column);
+      }
+    }
+  }
+
+  private static void inverseLevel(double[] plane, int width, int height, int step, int top) {
+    if (step < height) {
+      int first = top * width;
+      int second = (top + step) * width;
+      for (int column = 0; column < width; column += step) {
+        inversePair(plane, first + column, second + column);
+      }
+    }
+    if (step < width) {
+      inverseRow(plane, top * width, width, step);
+      if (step < height) {
+        inverseRow(plane, (top + step) * width, width, step);
+      }
+    }
+  }
+
+  private static void forwardRow(double[] plane, int base, int width, int step) {
+    for (int column = 0; column < width; column += 2 * step) {
+      forwardPair(plane, base + column, base + column + step);
+    }
+  }
+
+  private static void inverseRow(double[] plane, int base, int width, int step) {
+    for (int column = 0; column < width; column += 2 * step) {
+      inversePair(plane, base + column, base + column + step);
+    }
+  }
+
+  private static void forwardPair(double[] plane, int first, int second) {
+    double a = plane[first];
+    double b = plane[second];
+    plane[first] = (a + b) / FORWARD_DIVISOR;
+    plane[second] = (a - b) / FORWARD_DIVISOR;
+  }
+
+  private static void inversePair(double[] plane, int first, int second) {
+    double average = plane[first];
+    double difference = plane[second];
+    plane[first] = (average + difference) * INVERSE_FACTOR;
+    plane[second] = (average - difference) * INVERSE_FACTOR;
+  }
+
+  /**
+   * This interface represents the work of one level on one pair of rows of a plane.
+   */
+  private interface PairTask {
+
+    /**
+     * Processes the pair of rows starting at the given row.
+     *
+     * @param plane The plane.
+     * @param top   The first row of the pair.
+     */
+    void process(double[] plane, int top);
+  }
+}
@@ -1,24 +1,123 @@
 package model;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import model.enums.Color;
+import model.enums.Direction;
+
 /**
  * This class represents a two-dimensional image with a width, height, and an array of pixels.
+ *
+ * <p>By default the pixels are stored packed as one {@code int} per pixel in row-major order, with
+ * the red, green and blue components in the layout {@code 0xRRGGBB}. Images built from channel
+ * planes keep one plane per channel instead, and mapped images keep their pixels off the heap in a
+ * memory-mapped file, and lazy images produced by a {@link TileOperation} compute their tiles only
+ * when they are read. Geometric views such as {@link #flippedView(Direction)} remap coordinates
+ * onto another image without copying it, and pointwise views apply a chain of pointwise operations
+ * as pixels are read. Lazy images and views read through to their source, so a source should not be
+ * written while they are in use. Operations should read and write the image through the index-based
+ * accessors ({@link #getRGB(int, int)}, {@link #getRow(int, int[])} and their setters), which work
+ * the same for every layout. The {@link Pixel}-based accessors are kept as a compatibility view and
+ * build new pixel objects on every call.
+ *
+ * <p>Images derived from one another can share unchanged rows through
+ * {@link #shareRow(int, Image, int)}; shared rows are copied on their first write.
  */
 public class Image {
 
   private int width;
   private int height;
-  private Pixel[][] pixels;
+  // Replaced when the image is materialized, possibly while background operations read it
+  private volatile PixelStore store;
+  private boolean viewed;
+  private int consumers;
+  // Dropped by every write, so that data computed from the pixels can tell whether they changed
+  private volatile Object version;
 
   /**
-   * Constructs an image object with the specified width and height.
+   * Constructs an image object with the specified width and height. All pixels start out black.
    *
    * @param width  The width of the image.
    * @param height The height of the image.
    */
   public Image(int width, int height) {
+    this(width, height, new PackedPixelStore(width, height));
+  }
+
+  /**
+   * Constructs an image object of the specified size over the given pixel storage.
+   *
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @param store  The storage holding the pixels.
+   */
+  Image(int width, int height, PixelStore store) {
     this.width = width;
     this.height = height;
-    this.pixels = new Pixel[height][width];
+    this.store = store;
+  }
+
+  /**
+   * Creates a planar image from three channel planes. The planes are shared with the new image
+   * rather than copied, so combining the planes of existing images costs no pixel copies.
+   *
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @param red    The red plane, or null for a zero red channel.
+   * @param green  The green plane, or null for a zero green channel.
+   * @param blue   The blue plane, or null for a zero blue channel.
+   * @return The image over the given planes.
+   * @throws IllegalArgumentException If a plane does not have the given dimensions.
+   */
+  public static Image fromPlanes(int width, int height, ChannelPlane red, ChannelPlane green,
+      ChannelPlane blue) {
+    for (ChannelPlane plane : new ChannelPlane[]{red, green, blue}) {
+      if (plane != null && (plane.getWidth() != width || plane.getHeight() != height)) {
+        throw new IllegalArgumentException("All planes must have the same dimensions as the image");
+      }
+    }
+    return new Image(width, height, new PlanarPixelStore(width, height, red, green, blue));
+  }
+
+  /**
+   * Creates an image whose pixels live off the heap in the given memory-mapped file, with four
+   * bytes per pixel in row-major order. The file is created or extended as needed, and existing
+   * contents are used as the pixels. Mapped images may hold more pixels than fit in a Java array.
+   *
+   * @param file   The file holding the pixels.
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @return The mapped image.
+   * @throws IOException If the file cannot be opened or mapped.
+   */
+  public static Image mapped(Path file, int width, int height) throws IOException {
+    return new Image(width, height, new MappedPixelStore(file, width, height));
+  }
+
+  /**
+   * Creates a black image whose pixels live off the heap in a temporary memory-mapped file. The
+   * file is released once the image is no longer used, so no temporary files are left behind.
+   *
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @return The mapped image.
+   * @throws IOException If the temporary file cannot be created or mapped.
+   */
+  public static Image mapped(int width, int height) throws IOException {
+    return new Image(width, height, MappedPixelStore.temporary(width, height));
+  }
+
+  /**
+   * Creates a black image of the given size that uses the same kind of storage as this image.
+   * Operations create their results through this method, so a mapped input gives a mapped result
+   * and the heap use of the operation does not grow with the image size.
+   *
+   * @param width  The width of the new image.
+   * @param height The height of the new image.
+   * @return The new image.
+   */
+  public Image createCompatibleImage(int width, int height) {
+    return new Image(width, height, this.store.createCompatible(width, height));
   }
 
   /**
@@ -40,21 +139,242 @@ public class Image {
   }
 
   /**
-   * Gets the two-dimensional array of pixels representing the image.
+   * Creates a read-only view of this image flipped in the given direction. No pixels are copied;
+   * the view reads through to this image until it is materialized or written.
+   *
+   * @param direction The direction to flip in.
+   * @return The flipped view.
+   * @throws IllegalArgumentException If the direction is not HORIZONTAL or VERTICAL.
+   */
+  public Image flippedView(Direction direction) {
+    if (direction == Direction.HORIZONTAL) {
+      return view(width, height, new int[]{-1, 0, width - 1, 0, 1, 0});
+    } else if (direction == Direction.VERTICAL) {
+      return view(width, height, new int[]{1, 0, 0, 0, -1, height - 1});
+    }
+    throw new IllegalArgumentException("Invalid flip direction: " + direction);
+  }
+
+  /**
+   * Creates a read-only view of this image rotated by 90 degrees clockwise. The view is as wide as
+   * this image is high. No pixels are copied.
+   *
+   * @return The rotated view.
+   */
+  public Image rotatedView() {
+    return view(height, width, new int[]{0, 1, 0, -1, 0, height - 1});
+  }
+
+  /**
+   * Creates a read-only view of this image transposed along its main diagonal, so that rows
+   * become columns. The view is as wide as this image is high. No pixels are copied.
+   *
+   * @return The transposed view.
+   */
+  public Image transposedView() {
+    return view(height, width, new int[]{0, 1, 0, 1, 0, 0});
+  }
+
+  /**
+   * Creates a read-only view of a rectangle of this image. No pixels are copied.
+   *
+   * @param x      The x-coordinate of the top-left corner of the rectangle.
+   * @param y      The y-coordinate of the top-left corner of the rectangle.
+   * @param width  The width of the rectangle.
+   * @param height The height of the rectangle.
+   * @return The cropped view.
+   * @throws IllegalArgumentException If the rectangle is empty or not inside the image.
+   */
+  public Image croppedView(int x, int y, int width, int height) {
+    if (width <= 0 || height <= 0 || x < 0 || y < 0 || x + width > this.width
+        || y + height > this.height) {
+      throw new IllegalArgumentException("Crop rectangle must lie inside the image");
+    }
+    return view(width, height, new int[]{1, 0, x, 0, 1, y});
+  }
+
+  /**
+   * Creates a read-only view of this image with a pointwise operation applied to every pixel as it
+   * is read. A pointwise view of a pointwise view runs both operations on each source pixel in one
+   * pass, so a chain of pointwise operations never builds its intermediate images. No pixels are
+   * copied until the view is materialized or written.
+   *
+   * @param operation The pointwise operation to apply.
+   * @return The view with the operation applied.
+   */
+  public Image pointwiseView(PointwiseOperation operation) {
+    markViewed();
+    return new Image(width, height, new FusedPixelStore(this, operation));
+  }
+
+  /**
+   * Records that one more command reads this image. A pointwise view runs its whole chain of
+   * operations on every read and reads through to its source, so once a second command reads it
+   * the view is materialized: the chain runs one last time, and later readers copy stored pixels
+   * that no longer change with the source. A view with a single reader stays lazy. Operations
+   * still reading the view in the background keep their results, as the stored pixels equal the
+   * ones the chain computes.
+   */
+  public void addConsumer() {
+    this.consumers++;
+    if (this.consumers > 1 && this.store instanceof FusedPixelStore) {
+      materialize();
+    }
+  }
+
+  /**
+   * Copies the pixels of a read-only image, such as a lazily computed one or a geometric view, into
+   * regular storage so that later reads no longer compute or remap anything and the image can be
+   * written. Images that are already writable are left unchanged.
+   */
+  public void materialize() {
+    PixelStore source = this.store;
+    if (!source.isReadOnly()) {
+      return;
+    }
+    PixelStore target = source.createCompatible(width, height);
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      source.getRow(y, row);
+      target.setRow(y, row);
+    }
+    this.store = target;
+  }
+
+  /**
+   * Gets the packed RGB value of the pixel at the specified coordinates (x, y) in the image.
+   *
+   * @param x The x-coordinate of the pixel.
+   * @param y The y-coordinate of the pixel.
+   * @return The pixel value in the layout {@code 0xRRGGBB}.
+   */
+  public int getRGB(int x, int y) {
+    return this.store.getRGB(x, y);
+  }
+
+  /**
+   * Sets the packed RGB value of the pixel at the specified coordinates (x, y) in the image.
+   *
+   * @param x     The x-coordinate of the pixel.
+   * @param y     The y-coordinate of the pixel.
+   * @param value The pixel value in the layout {@code 0xRRGGBB}.
+   */
+  public void setRGB(int x, int y, int value) {
+    writableStore().setRGB(x, y, value);
+  }
+
+  /**
+   * Copies one row of packed RGB values into the given buffer.
+   *
+   * @param y   The row to read.
+   * @param dst The buffer to fill, at least {@code width} long.
+   */
+  public void getRow(int y, int[] dst) {
+    this.store.getRow(y, dst);
+  }
+
+  /**
+   * Copies a rectangle of packed RGB values into the given buffer, row by row with the rectangle
+   * width as the row stride. A lazy image computes only the tiles the rectangle touches, so a
+   * viewport that reads just what it shows never computes the rest of the image.
+   *
+   * @param x      The x-coordinate of the top-left corner of the rectangle.
+   * @param y      The y-coordinate of the top-left corner of the rectangle.
+   * @param width  The width of the rectangle.
+   * @param height The height of the rectangle.
+   * @param dst    The buffer to fill, at least {@code width * height} long.
+   * @throws IllegalArgumentException If the rectangle is not inside the image.
+   */
+  public void getRegion(int x, int y, int width, int height, int[] dst) {
+    if (width < 0 || height < 0 || x < 0 || y < 0 || x + width > this.width
+        || y + height > this.height) {
+      throw new IllegalArgumentException("Region must lie inside the image");
+    }
+    this.store.getRegion(x, y, width, height, dst);
+  }
+
+  /**
+   * Overwrites one row of the image with the packed RGB values of the given buffer.
+   *
+   * @param y   The row to write.
+   * @param src The packed RGB values, at least {@code width} long.
+   */
+  public void setRow(int y, int[] src) {
+    writableStore().setRow(y, src);
+  }
+
+  /**
+   * Makes one row of this image equal to a row of another image of the same width. When both
+   * images use the default packed storage the row is shared rather than copied, and either image
+   * copies it before its next write to it. Operations use this for rows they leave unchanged, so a
+   * derived image only holds new memory for the rows that differ from its source.
+   *
+   * @param y       The row of this image to replace.
+   * @param source  The image to take the row from.
+   * @param sourceY The row of the source image.
+   * @throws IllegalArgumentException If the images have different widths.
+   */
+  public void shareRow(int y, Image source, int sourceY) {
+    if (source.getWidth() != this.width) {
+      throw new IllegalArgumentException("Rows can only be shared between images of equal width");
+    }
+    if (this.store instanceof PackedPixelStore && source.store instanceof PackedPixelStore) {
+      modified();
+      ((PackedPixelStore) this.store).shareRow(y, (PackedPixelStore) source.store, sourceY);
+    } else {
+      int[] row = new int[width];
+      source.getRow(sourceY, row);
+      setRow(y, row);
+    }
+  }
+
+  /**
+   * Gets one color channel of the image as a read-only plane. For a planar image, such as one
+   * read from a file, the plane is shared with the image without copying; for a packed image the
+   * channel is copied out.
+   *
+   * @param color The color channel to get.
+   * @return The plane holding the channel values.
+   */
+  public ChannelPlane getPlane(Color color) {
+    return this.store.getPlane(color, width, height);
+  }
+
+  /**
+   * Gets the two-dimensional array of pixels representing the image. The array is built from the
+   * packed pixel data on every call, so writing into it does not change the image.
    *
    * @return The array of pixels.
    */
   public Pixel[][] getPixels() {
+    Pixel[][] pixels = new Pixel[height][width];
+    int[] row = new int[width];
+    for (int i = 0; i < height; i++) {
+      this.store.getRow(i, row);
+      for (int j = 0; j < width; j++) {
+        pixels[i][j] = Pixel.fromRGB(row[j]);
+      }
+    }
     return pixels;
   }
 
   /**
-   * Sets the array of pixels for the image.
+   * Sets the array of pixels for the image. The pixels are copied into the packed pixel data.
    *
    * @param pixels The array of pixels to set.
    */
   public void setPixels(Pixel[][] pixels) {
-    this.pixels = pixels;
+    if (this.store.isReadOnly()) {
+      this.store = this.store.createCompatible(width, height);
+    }
+    int[] row = new int[width];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        Pixel pixel = pixels[i][j];
+        row[j] = (pixel == null) ? 0 : pixel.toRGB();
+      }
+      writableStore().setRow(i, row);
+    }
   }
 
   /**
@@ -65,6 +385,124 @@ public class Image {
    * @return The pixel at the specified coordinates.
    */
   public Pixel getPixel(int x, int y) {
-    return this.pixels[y][x];
+    return Pixel.fromRGB(getRGB(x, y));
+  }
+
+  /**
+   * Gets the storage holding the pixels of this image.
+   *
+   * @return The pixel storage.
+   */
+  PixelStore getStore() {
+    return this.store;
+  }
+
+  /**
+   * Records that another image reads through to this one, so that this image is never recycled
+   * while the other may still read it.
+   */
+  void markViewed() {
+    this.viewed = true;
+  }
+
+  /**
+   * Tells whether this image can be handed to a {@link BufferPool} and reused: it holds its own
+   * pixels on the heap and no view or lazy image reads through to it. Rows and planes it shares
+   * with other images are safe, as both copy them before writing.
+   *
+   * @return true if the image can be recycled, false otherwise.
+   */
+  boolean isRecyclable() {
+    return !this.viewed && holdsOwnPixels();
+  }
+
+  /**
+   * Tells whether this image holds its own pixels on the heap, so that they only change when the
+   * image is written. The pixels of views and lazy images change with their sources, and a mapped
+   * file may be written through another image.
+   *
+   * @return true if the pixels only change through this image, false otherwise.
+   */
+  boolean holdsOwnPixels() {
+    return this.store instanceof PackedPixelStore || this.store instanceof PlanarPixelStore;
+  }
+
+  /**
+   * Gets a token for the current pixels of this image. The same token is returned until the image
+   * is next written, so data computed from the pixels can be kept along with the token and reused
+   * while the image still returns it.
+   *
+   * @return The token.
+   */
+  synchronized Object version() {
+    if (this.version == null) {
+      this.version = new Object();
+    }
+    return this.version;
+  }
+
+  /**
+   * Gets the image an operation writes its result into. Without a destination this is a new image
+   * compatible with the input; a given destination is checked, made writable and stops sharing
+   * its storage with other images, so that bands running in parallel can write their rows.
+   *
+   * @param destination The destination image, or null for a new image.
+   * @param input       The input the result is created compatible with.
+   * @param width       The width of the result.
+   * @param height      The height of the result.
+   * @param inputs      The inputs of the operation, which the destination must not be.
+   * @return The image to write the result into.
+   * @throws IllegalArgumentException If the destination has a different size or is one of the
+   *                                  inputs.
+   */
+  static Image prepareDestination(Image destination, Image input, int width, int height,
+      Image... inputs) {
+    if (destination == null) {
+      return input.createCompatibleImage(width, height);
+    }
+    if (destination.width != width || destination.height != height) {
+      throw new IllegalArgumentException("Destination image must be " + width + "x" + height);
+    }
+    for (Image other : inputs) {
+      if (other == destination) {
+        throw new IllegalArgumentException("Destination image must not be an input image");
+      }
+    }
+    destination.materialize();
+    destination.store.unshare();
+    destination.modified();
+    return destination;
+  }
+
+  /**
+   * Overwrites every pixel of this image with the pixels of an image of the same size.
+   *
+   * @param source The image to copy.
+   * @throws IllegalArgumentException If the images have different sizes.
+   */
+  void copyFrom(Image source) {
+    prepareDestination(this, source, source.width, source.height, source);
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      source.getRow(y, row);
+      this.store.setRow(y, row);
+    }
+  }
+
+  private Image view(int viewWidth, int viewHeight, int[] matrix) {
+    markViewed();
+    return new Image(viewWidth, viewHeight, new TransformedPixelStore(this, viewWidth, matrix));
+  }
+
+  private PixelStore writableStore() {
+    materialize();
+    modified();
+    return this.store;
+  }
+
+  private void modified() {
+    if (this.version != null) {
+      this.version = null;
+    }
   }
 }
@@ -1,5 +1,8 @@
 package model;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.DoubleConsumer;
+
 /**
  * An interface for various image processing operations which takes in one or more input images and
  * produce the result of a generic type based on the specific operation carried out.
@@ -16,5 +19,47 @@ public interface ImageOperation<R> {
    * @return The result of the image operation.
    */
   R apply(Image... inputs);
-}
 
+  /**
+   * Applies the image processing operation and writes the resulting image into the given
+   * destination instead of a new image, so that callers can reuse the memory of an image they no
+   * longer need. The destination must have the size of the result, must not be one of the inputs
+   * and must not be read while the operation runs. Operations that compute their result row by row
+   * write straight into the destination; the default implementation applies the operation and
+   * copies its result.
+   *
+   * @param inputs      One or more input images on which the operation will be applied.
+   * @param destination The image that receives the result, or null for a new image.
+   * @return The destination image, or the new image.
+   * @throws IllegalArgumentException      If the destination does not have the size of the
+   *                                       result or is one of the inputs.
+   * @throws UnsupportedOperationException If the operation does not produce an image.
+   */
+  default Image apply(Image[] inputs, Image destination) {
+    R result = apply(inputs);
+    if (!(result instanceof Image)) {
+      throw new UnsupportedOperationException("The operation does not produce an image");
+    }
+    if (destination == null) {
+      return (Image) result;
+    }
+    Image image = (Image) result;
+    Image.prepareDestination(destination, image, image.getWidth(), image.getHeight(), inputs);
+    destination.copyFrom(image);
+    return destination;
+  }
+
+  /**
+   * Starts the operation on a background thread and returns at once. Progress is reported as the
+   * fraction of the work done, by bands of rows or by transform levels. Cancelling the returned
+   * future stops the operation at its next band, tile or level, and its partial result is dropped.
+   *
+   * @param progress Receives the fraction done, from 0 to 1, on the threads doing the work; may be
+   *                 null.
+   * @param inputs   One or more input images on which the operation will be applied.
+   * @return A future for the result of the image operation.
+   */
+  default CompletableFuture<R> applyAsync(DoubleConsumer progress, Image... inputs) {
+    return TaskContext.submit(this, progress, inputs);
+  }
+}
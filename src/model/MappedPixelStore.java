@@ -0,0 +1,142 @@
+package model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class stores the pixels of an image off the Java heap in a memory-mapped file, with four
+ * bytes per pixel in row-major order. A single mapping is limited to 2 GB, so the file is mapped
+ * as a sequence of segments holding whole rows. This lets an image hold more pixels than a Java
+ * array can index while the heap only holds the segment table.
+ */
+class MappedPixelStore implements PixelStore {
+
+  private static final Cleaner CLEANER = Cleaner.create();
+
+  private final int width;
+  private final int rowsPerSegment;
+  private final IntBuffer[] segments;
+
+  /**
+   * Constructs a store over the given file, creating or extending the file as needed.
+   *
+   * @param file   The file holding the pixels.
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @throws IOException If the file cannot be opened or mapped.
+   */
+  MappedPixelStore(Path file, int width, int height) throws IOException {
+    long rowBytes = (long) width * Integer.BYTES;
+    if (rowBytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Image rows are too wide to be mapped: " + width);
+    }
+    this.width = width;
+    this.rowsPerSegment = (int) Math.max(1, Math.min(height, Integer.MAX_VALUE / rowBytes));
+    this.segments = new IntBuffer[(height + rowsPerSegment - 1) / rowsPerSegment];
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      for (int s = 0; s < segments.length; s++) {
+        int rows = Math.min(rowsPerSegment, height - s * rowsPerSegment);
+        long start = s * rowsPerSegment * rowBytes;
+        segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, start, rows * rowBytes)
+            .asIntBuffer();
+      }
+    }
+  }
+
+  /**
+   * Creates a store over a new temporary file, which is released once the store is no longer
+   * used. Where the platform allows, the file is deleted as soon as it is mapped: its name is gone
+   * at once, and its space is freed when the mappings are unmapped, which happens when the store
+   * is collected. Where a mapped file cannot be deleted, the store deletes it when it is collected
+   * instead, or when the program exits if that comes first.
+   *
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @return The new store.
+   * @throws IOException If the temporary file cannot be created or mapped.
+   */
+  static MappedPixelStore temporary(int width, int height) throws IOException {
+    Path file = Files.createTempFile("image", ".rgb");
+    MappedPixelStore store;
+    try {
+      store = new MappedPixelStore(file, width, height);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+    try {
+      Files.delete(file);
+    } catch (IOException e) {
+      file.toFile().deleteOnExit();
+      CLEANER.register(store, new DeleteFile(file));
+    }
+    return store;
+  }
+
+  /**
+   * Deletes a temporary file once its store has been collected. It must not refer to the store,
+   * or the store would never be collected.
+   */
+  private static final class DeleteFile implements Runnable {
+
+    private final Path file;
+
+    DeleteFile(Path file) {
+      this.file = file;
+    }
+
+    @Override
+    public void run() {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        // Still mapped by a segment that has not been collected yet; deleted on exit instead
+      }
+    }
+  }
+
+  @Override
+  public int getRGB(int x, int y) {
+    return segments[y / rowsPerSegment].get((y % rowsPerSegment) * width + x);
+  }
+
+  @Override
+  public void setRGB(int x, int y, int value) {
+    segments[y / rowsPerSegment].put((y % rowsPerSegment) * width + x, value & 0xFFFFFF);
+  }
+
+  @Override
+  public void getRow(int y, int[] dst) {
+    IntBuffer segment = segments[y / rowsPerSegment];
+    int offset = (y % rowsPerSegment) * width;
+    for (int x = 0; x < width; x++) {
+      dst[x] = segment.get(offset + x);
+    }
+  }
+
+  @Override
+  public void setRow(int y, int[] src) {
+    IntBuffer segment = segments[y / rowsPerSegment];
+    int offset = (y % rowsPerSegment) * width;
+    for (int x = 0; x < width; x++) {
+      segment.put(offset + x, src[x] & 0xFFFFFF);
+    }
+  }
+
+  @Override
+  public PixelStore createCompatible(int width, int height) {
+    try {
+      return temporary(width, height);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot map storage for the result image", e);
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class stores the pixels of an image packed as one {@code int} per pixel, with one array per
+ * row. Rows can be shared with other images: a shared row is copied the first time either image
+ * writes to it, so images derived from one another only pay for the rows that differ. Rows are
+ * only allocated when they are first written, so a result whose rows are all shared with its
+ * source, or not yet written, holds no pixel memory of its own.
+ */
+class PackedPixelStore implements PixelStore {
+
+  private final int width;
+  private final int[][] rows;
+  private final boolean[] owned;
+
+  /**
+   * Constructs a store for an image of the given size with all pixels black. No row is allocated
+   * until it is written or shared.
+   *
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   */
+  PackedPixelStore(int width, int height) {
+    this.width = width;
+    this.rows = new int[height][];
+    this.owned = new boolean[height];
+    Arrays.fill(this.owned, true);
+  }
+
+  @Override
+  public int getRGB(int x, int y) {
+    int[] row = this.rows[y];
+    return (row == null) ? 0 : row[x];
+  }
+
+  @Override
+  public void setRGB(int x, int y, int value) {
+    if (rows[y] == null) {
+      rows[y] = new int[width];
+    } else if (!owned[y]) {
+      rows[y] = rows[y].clone();
+      owned[y] = true;
+    }
+    this.rows[y][x] = value & 0xFFFFFF;
+  }
+
+  @Override
+  public void getRow(int y, int[] dst) {
+    int[] row = this.rows[y];
+    if (row == null) {
+      Arrays.fill(dst, 0, width, 0);
+    } else {
+      System.arraycopy(row, 0, dst, 0, width);
+    }
+  }
+
+  @Override
+  public void setRow(int y, int[] src) {
+    if (rows[y] == null || !owned[y]) {
+      rows[y] = new int[width];
+      owned[y] = true;
+    }
+    int[] row = this.rows[y];
+    for (int x = 0; x < width; x++) {
+      row[x] = src[x] & 0xFFFFFF;
+    }
+  }
+
+  /**
+   * Makes a row of this store share a row of another store of the same width. Both stores copy
+   * the row before their next write to it. A row of the source that was never written is black,
+   * and is shared as an unallocated row.
+   *
+   * @param y       The row of this store to replace.
+   * @param source  The store to share the row with.
+   * @param sourceY The row of the source store.
+   */
+  void shareRow(int y, PackedPixelStore source, int sourceY) {
+    int[] row = source.rows[sourceY];
+    if (row == null) {
+      this.rows[y] = null;
+      this.owned[y] = true;
+      return;
+    }
+    source.owned[sourceY] = false;
+    this.rows[y] = row;
+    this.owned[y] = false;
+  }
+}
@@ -0,0 +1,137 @@
+package model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class runs row-based image work in parallel on a fork-join pool. The rows of an image are
+ * split into bands that are processed independently, so operations whose rows do not depend on
+ * each other give the same result as a sequential run. Images smaller than a threshold are
+ * processed sequentially on the calling thread. When the calling thread runs an asynchronous
+ * operation, each band checks for cancellation before it starts and reports its rows as progress.
+ */
+public final class ParallelExecutor {
+
+  private static final int MIN_BAND_PIXELS = 1 << 14;
+
+  private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+  private static volatile long threshold = 1 << 18;
+
+  private ParallelExecutor() {
+  }
+
+  /**
+   * Sets the pool used to run the bands. Defaults to the common fork-join pool.
+   *
+   * @param pool The pool to use.
+   * @throws IllegalArgumentException If the pool is null.
+   */
+  public static void setPool(ForkJoinPool pool) {
+    if (pool == null) {
+      throw new IllegalArgumentException("Pool must not be null");
+    }
+    ParallelExecutor.pool = pool;
+  }
+
+  /**
+   * Sets the number of pixels below which images are processed sequentially.
+   *
+   * @param pixels The pixel count threshold.
+   * @throws IllegalArgumentException If the threshold is negative.
+   */
+  public static void setThreshold(long pixels) {
+    if (pixels < 0) {
+      throw new IllegalArgumentException("Threshold must not be negative");
+    }
+    ParallelExecutor.threshold = pixels;
+  }
+
+  /**
+   * Processes every row of an image of the given size, splitting the rows into bands that run in
+   * parallel when the image is large enough.
+   *
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @param task   The work to run for each band of rows.
+   */
+  static void forEachBand(int width, int height, BandTask task) {
+    TaskContext context = TaskContext.current();
+    ForkJoinPool bandPool = pool;
+    int bandRows = Math.max(1, MIN_BAND_PIXELS / Math.max(1, width));
+    if ((long) width * height < threshold || bandPool.getParallelism() <= 1 || height <= 1) {
+      if (context == null) {
+        task.processRows(0, height);
+        return;
+      }
+      context.beginPass(height);
+      for (int fromRow = 0; fromRow < height; fromRow += bandRows) {
+        context.checkCancelled();
+        int toRow = Math.min(height, fromRow + bandRows);
+        task.processRows(fromRow, toRow);
+        context.advance(toRow - fromRow);
+      }
+      context.endPass();
+      return;
+    }
+    if (context != null) {
+      context.beginPass(height);
+    }
+    bandPool.invoke(new BandAction(task, context, 0, height, bandRows));
+    if (context != null) {
+      context.endPass();
+    }
+  }
+
+  /**
+   * This interface represents work done on one band of rows.
+   */
+  interface BandTask {
+
+    /**
+     * Processes the rows in the given range.
+     *
+     * @param fromRow The first row, inclusive.
+     * @param toRow   The last row, exclusive.
+     */
+    void processRows(int fromRow, int toRow);
+  }
+
+  /**
+   * Splits a range of rows in half until it is small enough to process directly.
+   */
+  private static class BandAction extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final BandTask task;
+    private final TaskContext context;
+    private final int fromRow;
+    private final int toRow;
+    private final int bandRows;
+
+    BandAction(BandTask task, TaskContext context, int fromRow, int toRow, int bandRows) {
+      this.task = task;
+      this.context = context;
+      this.fromRow = fromRow;
+      this.toRow = toRow;
+      this.bandRows = bandRows;
+    }
+
+    @Override
+    protected void compute() {
+      if (toRow - fromRow <= bandRows) {
+        if (context != null) {
+          context.checkCancelled();
+        }
+        task.processRows(fromRow, toRow);
+        if (context != null) {
+          context.advance(toRow - fromRow);
+        }
+        return;
+      }
+      int middle = (fromRow + toRow) >>> 1;
+      invokeAll(new BandAction(task, context, fromRow, middle, bandRows),
+          new BandAction(task, context, middle, toRow, bandRows));
+    }
+  }
+}
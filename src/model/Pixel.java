@@ -25,6 +25,16 @@ public class Pixel {
     this.blue = blue;
   }
 
+  /**
+   * Creates a pixel object from a packed RGB value in the layout {@code 0xRRGGBB}.
+   *
+   * @param rgb The packed RGB value.
+   * @return The pixel with the unpacked red, green, and blue color components.
+   */
+  public static Pixel fromRGB(int rgb) {
+    return new Pixel((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+  }
+
   /**
    * Gets the blue color component of the pixel.
    *
@@ -0,0 +1,118 @@
+package model;
+
+import model.enums.Color;
+
+/**
+ * This interface represents the storage backing the pixels of an {@link Image}. Pixel values are
+ * exchanged as packed RGB values in the layout {@code 0xRRGGBB}; stores ignore any alpha bits
+ * above the blue, green and red bytes when writing.
+ */
+interface PixelStore {
+
+  /**
+   * Gets the packed RGB value of the pixel at the specified coordinates.
+   *
+   * @param x The x-coordinate of the pixel.
+   * @param y The y-coordinate of the pixel.
+   * @return The packed RGB value.
+   */
+  int getRGB(int x, int y);
+
+  /**
+   * Sets the packed RGB value of the pixel at the specified coordinates.
+   *
+   * @param x     The x-coordinate of the pixel.
+   * @param y     The y-coordinate of the pixel.
+   * @param value The packed RGB value.
+   */
+  void setRGB(int x, int y, int value);
+
+  /**
+   * Copies one row of packed RGB values into the given buffer.
+   *
+   * @param y   The row to read.
+   * @param dst The buffer to fill, at least as long as the row.
+   */
+  void getRow(int y, int[] dst);
+
+  /**
+   * Overwrites one row with the given packed RGB values.
+   *
+   * @param y   The row to write.
+   * @param src The packed RGB values.
+   */
+  void setRow(int y, int[] src);
+
+  /**
+   * Copies a rectangle of packed RGB values into the given buffer, with the rectangle width as the
+   * row stride. The default implementation reads the pixels one at a time.
+   *
+   * @param x      The x-coordinate of the top-left corner of the rectangle.
+   * @param y      The y-coordinate of the top-left corner of the rectangle.
+   * @param width  The width of the rectangle.
+   * @param height The height of the rectangle.
+   * @param dst    The buffer to fill, at least width * height long.
+   */
+  default void getRegion(int x, int y, int width, int height, int[] dst) {
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        dst[i * width + j] = getRGB(x + j, y + i);
+      }
+    }
+  }
+
+  /**
+   * Gets one color channel of the stored pixels as a read-only plane. The default implementation
+   * copies the channel out of the packed rows.
+   *
+   * @param color  The color channel to get.
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @return The plane holding the channel values.
+   */
+  default ChannelPlane getPlane(Color color, int width, int height) {
+    int shift = ChannelPlane.shiftOf(color);
+    byte[] data = new byte[width * height];
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      getRow(y, row);
+      int offset = y * width;
+      for (int x = 0; x < width; x++) {
+        data[offset + x] = (byte) (row[x] >> shift);
+      }
+    }
+    return new ChannelPlane(data, width, height);
+  }
+
+  /**
+   * Tells whether the store can only be read. Images copy a read-only store into a writable one
+   * before their first write.
+   *
+   * @return true if the store rejects writes, false otherwise.
+   */
+  default boolean isReadOnly() {
+    return false;
+  }
+
+  /**
+   * Copies any storage that this store shares with other images, so that later writes neither
+   * copy nor reach the other images. Parallel bands write through a store at the same time, and
+   * the copy a shared store makes on its first write is not safe to race. The default
+   * implementation does nothing, for stores that share nothing or copy per row.
+   */
+  default void unshare() {
+  }
+
+  /**
+   * Creates an empty store of the given size of the same kind as this one, so operations can
+   * produce results that live where their inputs live. The default implementation creates a
+   * packed store on the heap.
+   *
+   * @param width  The width of the new image.
+   * @param height The height of the new image.
+   * @return The new store with all pixels black.
+   */
+  default PixelStore createCompatible(int width, int height) {
+    return new PackedPixelStore(width, height);
+  }
+}
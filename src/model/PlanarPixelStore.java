@@ -0,0 +1,106 @@
+package model;
+
+import model.enums.Color;
+
+/**
+ * This class stores the pixels of an image as three separate channel planes. Planes handed out
+ * through {@link #getPlane} or taken in through the constructor are shared, so the store copies a
+ * plane before its first write to it.
+ */
+class PlanarPixelStore implements PixelStore {
+
+  private final int width;
+  private final int size;
+  private final byte[][] planes;
+  private final boolean[] owned;
+
+  /**
+   * Constructs a store that shares the given planes. Null planes are treated as all zeros.
+   *
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @param red    The red plane, or null.
+   * @param green  The green plane, or null.
+   * @param blue   The blue plane, or null.
+   */
+  PlanarPixelStore(int width, int height, ChannelPlane red, ChannelPlane green,
+      ChannelPlane blue) {
+    this.width = width;
+    this.size = width * height;
+    this.planes = new byte[][]{dataOf(red), dataOf(green), dataOf(blue)};
+    this.owned = new boolean[3];
+  }
+
+  @Override
+  public int getRGB(int x, int y) {
+    int index = y * width + x;
+    return (valueAt(0, index) << 16) | (valueAt(1, index) << 8) | valueAt(2, index);
+  }
+
+  @Override
+  public void setRGB(int x, int y, int value) {
+    int index = y * width + x;
+    writable(0)[index] = (byte) (value >> 16);
+    writable(1)[index] = (byte) (value >> 8);
+    writable(2)[index] = (byte) value;
+  }
+
+  @Override
+  public void getRow(int y, int[] dst) {
+    int offset = y * width;
+    byte[] red = planes[0];
+    byte[] green = planes[1];
+    byte[] blue = planes[2];
+    for (int x = 0; x < width; x++) {
+      int r = (red == null) ? 0 : red[offset + x] & 0xFF;
+      int g = (green == null) ? 0 : green[offset + x] & 0xFF;
+      int b = (blue == null) ? 0 : blue[offset + x] & 0xFF;
+      dst[x] = (r << 16) | (g << 8) | b;
+    }
+  }
+
+  @Override
+  public void setRow(int y, int[] src) {
+    int offset = y * width;
+    byte[] red = writable(0);
+    byte[] green = writable(1);
+    byte[] blue = writable(2);
+    for (int x = 0; x < width; x++) {
+      red[offset + x] = (byte) (src[x] >> 16);
+      green[offset + x] = (byte) (src[x] >> 8);
+      blue[offset + x] = (byte) src[x];
+    }
+  }
+
+  @Override
+  public ChannelPlane getPlane(Color color, int width, int height) {
+    int channel = 2 - ChannelPlane.shiftOf(color) / 8;
+    owned[channel] = false;
+    return new ChannelPlane(planes[channel], width, height);
+  }
+
+  @Override
+  public void unshare() {
+    for (int channel = 0; channel < 3; channel++) {
+      writable(channel);
+    }
+  }
+
+  private int valueAt(int channel, int index) {
+    byte[] plane = planes[channel];
+    return (plane == null) ? 0 : plane[index] & 0xFF;
+  }
+
+  private byte[] writable(int channel) {
+    if (!owned[channel]) {
+      byte[] plane = planes[channel];
+      planes[channel] = (plane == null) ? new byte[size] : plane.clone();
+      owned[channel] = true;
+    }
+    return planes[channel];
+  }
+
+  private static byte[] dataOf(ChannelPlane plane) {
+    return (plane == null) ? null : plane.data();
+  }
+}
@@ -0,0 +1,21 @@
+package model;
+
+/**
+ * This interface represents an image operation where each pixel of the result depends only on the
+ * same pixel of the input and its position. Consecutive pointwise operations can be fused into a
+ * single pass with {@link Image#pointwiseView(PointwiseOperation)}, which never builds the
+ * intermediate images.
+ */
+public interface PointwiseOperation {
+
+  /**
+   * Computes one pixel of the result of the operation.
+   *
+   * @param rgb   The packed RGB value of the input pixel.
+   * @param x     The x-coordinate of the pixel.
+   * @param y     The y-coordinate of the pixel.
+   * @param width The width of the image.
+   * @return The packed RGB value of the result pixel.
+   */
+  int applyToPixel(int rgb, int x, int y, int width);
+}
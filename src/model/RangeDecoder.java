@@ -0,0 +1,95 @@
+package model;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This class reads back the bits written by a {@link RangeEncoder}. Each bit must be read with a
+ * context that holds the same probability as the one it was written with, so the reader has to
+ * choose its contexts the same way the writer did.
+ */
+final class RangeDecoder {
+
+  private static final int TOP = 1 << 24;
+
+  private final InputStream in;
+  private int range = -1;
+  private int code;
+
+  /**
+   * Constructs a decoder that reads from the given stream, and reads the first bytes of the coded
+   * bits.
+   *
+   * @param in The stream to read the coded bits from.
+   * @throws IOException If the stream cannot be read.
+   */
+  RangeDecoder(InputStream in) throws IOException {
+    this.in = in;
+    for (int i = 0; i < 5; i++) {
+      code = (code << 8) | nextByte();
+    }
+  }
+
+  /**
+   * Reads one bit with the probability held in a context, and updates the probability.
+   *
+   * @param contexts The contexts.
+   * @param index    The context of the bit.
+   * @return The bit, 0 or 1.
+   * @throws IOException If the stream cannot be read.
+   */
+  int decodeBit(short[] contexts, int index) throws IOException {
+    int probability = contexts[index];
+    int bound = (range >>> RangeEncoder.PROBABILITY_BITS) * probability;
+    int bit;
+    if (Integer.compareUnsigned(code, bound) < 0) {
+      range = bound;
+      contexts[index] = (short) (probability
+          + (((1 << RangeEncoder.PROBABILITY_BITS) - probability)
+          >>> RangeEncoder.ADAPTATION_SHIFT));
+      bit = 0;
+    } else {
+      range -= bound;
+      code -= bound;
+      contexts[index] = (short) (probability - (probability >>> RangeEncoder.ADAPTATION_SHIFT));
+      bit = 1;
+    }
+    if (Integer.compareUnsigned(range, TOP) < 0) {
+      range <<= 8;
+      code = (code << 8) | nextByte();
+    }
+    return bit;
+  }
+
+  /**
+   * Reads bits written with {@link RangeEncoder#encodeDirectBits(int, int)}.
+   *
+   * @param count The number of bits to read.
+   * @return The value of the bits, most significant first.
+   * @throws IOException If the stream cannot be read.
+   */
+  int decodeDirectBits(int count) throws IOException {
+    int value = 0;
+    for (int i = 0; i < count; i++) {
+      range >>>= 1;
+      int bit = (Integer.compareUnsigned(code, range) >= 0) ? 1 : 0;
+      if (bit != 0) {
+        code -= range;
+      }
+      value = (value << 1) | bit;
+      if (Integer.compareUnsigned(range, TOP) < 0) {
+        range <<= 8;
+        code = (code << 8) | nextByte();
+      }
+    }
+    return value;
+  }
+
+  private int nextByte() throws IOException {
+    int b = in.read();
+    if (b < 0) {
+      throw new IOException("Coded data ends too early");
+    }
+    return b;
+  }
+}
@@ -0,0 +1,139 @@
+package model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * This class is an adaptive binary range coder, which writes a sequence of bits in close to the
+ * number of bits their probabilities call for. Each bit is coded with a probability that the
+ * caller keeps in a context, and the probability moves towards every bit coded with it, so bits
+ * that a context predicts well cost a small fraction of a bit each. {@link RangeDecoder} reads the
+ * bits back given the same contexts in the same order.
+ *
+ * <p>Probabilities are 11-bit fixed-point numbers, the chance that the next bit is 0, and move
+ * 1/32 of the way towards each bit coded. The coder keeps a 32-bit range and writes its low end a
+ * byte at a time, holding back bytes that a carry could still change.
+ */
+final class RangeEncoder {
+
+  /**
+   * The number of bits of a probability.
+   */
+  static final int PROBABILITY_BITS = 11;
+
+  /**
+   * The probability of one half, which every context starts at.
+   */
+  static final short HALF = 1 << (PROBABILITY_BITS - 1);
+
+  /**
+   * The shift of the step a probability moves by after each bit.
+   */
+  static final int ADAPTATION_SHIFT = 5;
+
+  private static final int TOP = 1 << 24;
+
+  private final OutputStream out;
+  private long low;
+  private int range = -1;
+  private int cache;
+  private long pending = 1;
+
+  /**
+   * Constructs a coder that writes to the given stream.
+   *
+   * @param out The stream to write the coded bits to.
+   */
+  RangeEncoder(OutputStream out) {
+    this.out = out;
+  }
+
+  /**
+   * Creates contexts with every probability at one half.
+   *
+   * @param count The number of contexts.
+   * @return The contexts.
+   */
+  static short[] newContexts(int count) {
+    short[] contexts = new short[count];
+    Arrays.fill(contexts, HALF);
+    return contexts;
+  }
+
+  /**
+   * Codes one bit with the probability held in a context, and updates the probability.
+   *
+   * @param contexts The contexts.
+   * @param index    The context of the bit.
+   * @param bit      The bit, 0 or 1.
+   * @throws IOException If the stream cannot be written.
+   */
+  void encodeBit(short[] contexts, int index, int bit) throws IOException {
+    int probability = contexts[index];
+    int bound = (range >>> PROBABILITY_BITS) * probability;
+    if (bit == 0) {
+      range = bound;
+      contexts[index] = (short) (probability
+          + (((1 << PROBABILITY_BITS) - probability) >>> ADAPTATION_SHIFT));
+    } else {
+      low += Integer.toUnsignedLong(bound);
+      range -= bound;
+      contexts[index] = (short) (probability - (probability >>> ADAPTATION_SHIFT));
+    }
+    if (Integer.compareUnsigned(range, TOP) < 0) {
+      range <<= 8;
+      shiftLow();
+    }
+  }
+
+  /**
+   * Codes the low bits of a value, most significant first, each with a probability of one half.
+   *
+   * @param value The value.
+   * @param count The number of bits to code.
+   * @throws IOException If the stream cannot be written.
+   */
+  void encodeDirectBits(int value, int count) throws IOException {
+    for (int i = count - 1; i >= 0; i--) {
+      range >>>= 1;
+      if (((value >>> i) & 1) != 0) {
+        low += Integer.toUnsignedLong(range);
+      }
+      if (Integer.compareUnsigned(range, TOP) < 0) {
+        range <<= 8;
+        shiftLow();
+      }
+    }
+  }
+
+  /**
+   * Writes out the bytes still held by the coder. No more bits may be coded after this. The
+   * stream is left open.
+   *
+   * @throws IOException If the stream cannot be written.
+   */
+  void finish() throws IOException {
+    for (int i = 0; i < 5; i++) {
+      shiftLow();
+    }
+  }
+
+  /**
+   * Moves the top byte of the low end out of the coder. A byte of 0xFF could still be raised by a
+   * carry, so runs of them are held back, after the byte before them, until the carry is known.
+   */
+  private void shiftLow() throws IOException {
+    if (low < 0xFF000000L || low > 0xFFFFFFFFL) {
+      int carry = (int) (low >>> 32);
+      int held = cache;
+      do {
+        out.write((held + carry) & 0xFF);
+        held = 0xFF;
+      } while (--pending != 0);
+      cache = (int) (low >>> 24) & 0xFF;
+    }
+    pending++;
+    low = (low & 0x00FFFFFFL) << 8;
+  }
+}
@@ -29,33 +29,55 @@ public class Sepia extends AbstractColor {
    * Processes the image pixels to apply the Sepia effect. The pixel color values are transformed
    * based on the Sepia filter kernel.
    *
-   * @param originalPixel The pixel from the original image.
-   * @param resultPixels  The resulting pixel array after transformation.
-   * @param i             The row index of the pixel.
-   * @param j             The column index of the pixel.
+   * @param rgb   The packed RGB value of the pixel from the original image.
+   * @param i     The row index of the pixel.
+   * @param j     The column index of the pixel.
+   * @param width The width of the image.
+   * @return The packed RGB value of the transformed pixel.
    */
   @Override
-  protected void processPixel(Pixel originalPixel, Pixel[][] resultPixels, int i, int j) {
-    int width = resultPixels[0].length;
-    int r = originalPixel.getRed();
-    int g = originalPixel.getGreen();
-    int b = originalPixel.getBlue();
+  protected int processPixel(int rgb, int i, int j, int width) {
+    int r = (rgb >> 16) & 0xFF;
+    int g = (rgb >> 8) & 0xFF;
+    int b = rgb & 0xFF;
     int r1 = (int) Math.min(255, 0.393 * r + 0.769 * g + 0.189 * b);
     int g1 = (int) Math.min(255, 0.349 * r + 0.686 * g + 0.168 * b);
     int b1 = (int) Math.min(255, 0.272 * r + 0.534 * g + 0.131 * b);
-    r1 = Math.min(255, Math.max(0, r1));
-    g1 = Math.min(255, Math.max(0, g1));
-    b1 = Math.min(255, Math.max(0, b1));
-    int splitPos = (int) ((double) width * (splitPercentage / 100.0));
+    int splitPos = splitPosition(width, splitPercentage);
 
+    if (j == splitPos) {
+      return 0;
+    }
     if (j < splitPos) {
-      resultPixels[i][j] = new Pixel(r1, g1, b1);
-    } else {
-      resultPixels[i][j] = originalPixel;
+      return (r1 << 16) | (g1 << 8) | b1;
     }
-    if (j == splitPos) {
-      resultPixels[i][j] = new Pixel(0, 0, 0);
+    return rgb;
+  }
+
+  @Override
+  protected int getAffectedColumns(int width) {
+    return Math.max(0, Math.min(width, splitPosition(width, splitPercentage) + 1));
+  }
+
+  @Override
+  void processRow(int[] source, int[] row, ChannelLanes lanes, int i, int width) {
+    int splitPos = splitPosition(width, splitPercentage);
+    int columns = Math.max(0, Math.min(width, splitPos));
+    int[] red = lanes.red;
+    int[] green = lanes.green;
+    int[] blue = lanes.blue;
+
+    lanes.unpack(source, columns);
+    for (int j = 0; j < columns; j++) {
+      int r = red[j];
+      int g = green[j];
+      int b = blue[j];
+      red[j] = (int) Math.min(255, 0.393 * r + 0.769 * g + 0.189 * b);
+      green[j] = (int) Math.min(255, 0.349 * r + 0.686 * g + 0.168 * b);
+      blue[j] = (int) Math.min(255, 0.272 * r + 0.534 * g + 0.131 * b);
     }
+    lanes.pack(row, columns);
+    finishRow(source, row, columns, splitPos, width);
   }
 
 }
@@ -1,5 +1,6 @@
 package model;
 
+import model.enums.EdgePolicy;
 import model.enums.Filter;
 
 /**
@@ -25,6 +26,18 @@ public class Sharpen extends AbstractFilter {
     this.splitPercentage = splitPercentage;
   }
 
+  /**
+   * Constructs a `Sharpen` filter operation with the split percentage and the policy for kernel
+   * taps outside the image.
+   *
+   * @param splitPercentage The percentage of the image width from the left that is filtered.
+   * @param edgePolicy      How kernel taps outside the image are treated.
+   */
+  public Sharpen(int splitPercentage, EdgePolicy edgePolicy) {
+    super(Filter.SHARPEN, edgePolicy);
+    this.splitPercentage = splitPercentage;
+  }
+
   /**
    * Provided the kernel matrix for the Sharpen transformation.
    *
@@ -2,6 +2,7 @@ package model;
 
 import java.util.ArrayList;
 import java.util.List;
+import model.enums.Color;
 
 /**
  * Represents the operation to split an image into red, green, blue.
@@ -9,7 +10,9 @@ import java.util.List;
 public class SplitComponents implements ImageOperation {
 
   /**
-   * Splits the image into red, green, blue components.
+   * Splits the image into red, green, blue components. Each component is a planar image that
+   * shares its channel plane with the source image when the source is planar, so no pixels are
+   * copied in that case.
    *
    * @param inputs One or more input images on which the operation will be applied.
    * @return A list of images representing red, green, blue components of the image.
@@ -24,33 +27,9 @@ public class SplitComponents implements ImageOperation {
     Image image = inputs[0];
     int width = image.getWidth();
     int height = image.getHeight();
-    Pixel[][] imagePixel = image.getPixels();
-    Pixel[][] redPixel = new Pixel[height][width];
-    Pixel[][] greenPixel = new Pixel[height][width];
-    Pixel[][] bluePixel = new Pixel[height][width];
-
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        Pixel originalPixel = imagePixel[i][j];
-
-        int red = originalPixel.getRed();
-        int green = originalPixel.getGreen();
-        int blue = originalPixel.getBlue();
-
-        redPixel[i][j] = new Pixel(red, 0, 0);
-        greenPixel[i][j] = new Pixel(0, green, 0);
-        bluePixel[i][j] = new Pixel(0, 0, blue);
-      }
-    }
-
-    Image redImage = new Image(width, height);
-    redImage.setPixels(redPixel);
-
-    Image greenImage = new Image(width, height);
-    greenImage.setPixels(greenPixel);
-
-    Image blueImage = new Image(width, height);
-    blueImage.setPixels(bluePixel);
+    Image redImage = Image.fromPlanes(width, height, image.getPlane(Color.RED), null, null);
+    Image greenImage = Image.fromPlanes(width, height, null, image.getPlane(Color.GREEN), null);
+    Image blueImage = Image.fromPlanes(width, height, null, null, image.getPlane(Color.BLUE));
 
     List<Image> images = new ArrayList<>();
     images.add(redImage);
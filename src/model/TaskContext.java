@@ -0,0 +1,221 @@
+package model;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.DoubleConsumer;
+
+/**
+ * This class tracks an operation that runs asynchronously: whether it has been cancelled and how
+ * far it has got. The context is bound to the thread that runs the operation, and the long-running
+ * loops of the model check it between bands of rows, tiles and transform levels. Code that runs
+ * without a context, as every synchronous {@link ImageOperation#apply} does, is unaffected.
+ *
+ * <p>Progress is counted in passes over the image. Each band loop is one pass, whose progress is
+ * the fraction of its rows done; operations made of several passes declare how many with
+ * {@link #expectPasses(int)} so that the reported fraction covers the whole operation.
+ */
+final class TaskContext {
+
+  private static final ThreadLocal<TaskContext> CURRENT = new ThreadLocal<>();
+
+  // Operations wait on the band pool, so they run on threads of their own rather than in it
+  private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+    Thread thread = new Thread(runnable, "image-operation");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final DoubleConsumer listener;
+  private volatile boolean cancelled;
+  private int expectedPasses = 1;
+  private int completedPasses;
+  private long passRows;
+  private long passRowsDone;
+  private double reported;
+
+  /**
+   * Creates a context that reports progress to the given listener.
+   *
+   * @param listener Receives the fraction of the operation done, from 0 to 1, from any thread.
+   */
+  TaskContext(DoubleConsumer listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Starts an operation on a background thread under a new context.
+   *
+   * @param operation The operation.
+   * @param listener  Receives the fraction of the operation done, or null.
+   * @param inputs    The input images.
+   * @param <R>       The result type of the operation.
+   * @return A future for the result that cancels the operation when it is cancelled.
+   */
+  static <R> CompletableFuture<R> submit(ImageOperation<R> operation, DoubleConsumer listener,
+      Image... inputs) {
+    TaskContext context = new TaskContext(listener);
+    CompletableFuture<R> future = new CompletableFuture<R>() {
+      @Override
+      public boolean cancel(boolean mayInterruptIfRunning) {
+        context.cancel();
+        return super.cancel(mayInterruptIfRunning);
+      }
+    };
+    EXECUTOR.execute(() -> {
+      try {
+        future.complete(context.run(operation, inputs));
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Gets the context of the operation running on the current thread.
+   *
+   * @return The context, or null if the current thread runs no asynchronous operation.
+   */
+  static TaskContext current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Runs an operation on the current thread with this context bound to it.
+   *
+   * @param operation The operation.
+   * @param inputs    The input images.
+   * @param <R>       The result type of the operation.
+   * @return The result of the operation.
+   * @throws CancellationException If the context is cancelled before the operation finishes.
+   */
+  <R> R run(ImageOperation<R> operation, Image... inputs) {
+    TaskContext outer = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      checkCancelled();
+      R result = operation.apply(inputs);
+      checkCancelled();
+      report(1);
+      return result;
+    } finally {
+      if (outer == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(outer);
+      }
+    }
+  }
+
+  /**
+   * Asks the operation to stop at its next check.
+   */
+  void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Throws if the operation has been cancelled.
+   *
+   * @throws CancellationException If the operation has been cancelled.
+   */
+  void checkCancelled() {
+    if (cancelled) {
+      throw new CancellationException("Operation cancelled");
+    }
+  }
+
+  /**
+   * Declares how many passes the operation running on the current thread makes. Does nothing if
+   * the thread runs no asynchronous operation.
+   *
+   * @param passes The number of passes.
+   */
+  static void expectPasses(int passes) {
+    TaskContext context = CURRENT.get();
+    if (context != null) {
+      synchronized (context) {
+        context.expectedPasses = Math.max(1, passes);
+      }
+    }
+  }
+
+  /**
+   * Marks the end of a pass that is not a band loop, such as one level of a transform, and stops
+   * the operation if it has been cancelled. Does nothing if the thread runs no asynchronous
+   * operation.
+   *
+   * @throws CancellationException If the operation has been cancelled.
+   */
+  static void completePass() {
+    TaskContext context = CURRENT.get();
+    if (context != null) {
+      context.checkCancelled();
+      context.endPass();
+    }
+  }
+
+  /**
+   * Stops the operation running on the current thread if it has been cancelled. Does nothing if
+   * the thread runs no asynchronous operation.
+   *
+   * @throws CancellationException If the operation has been cancelled.
+   */
+  static void checkpoint() {
+    TaskContext context = CURRENT.get();
+    if (context != null) {
+      context.checkCancelled();
+    }
+  }
+
+  /**
+   * Starts a band loop over the given number of rows.
+   */
+  synchronized void beginPass(long rows) {
+    passRows = rows;
+    passRowsDone = 0;
+  }
+
+  /**
+   * Records rows of the current band loop as done. Bands may finish on any thread.
+   */
+  void advance(long rows) {
+    double fraction;
+    synchronized (this) {
+      passRowsDone += rows;
+      fraction = (completedPasses + (passRows > 0 ? (double) passRowsDone / passRows : 0))
+          / expectedPasses;
+    }
+    report(fraction);
+  }
+
+  /**
+   * Ends the current pass.
+   */
+  void endPass() {
+    double fraction;
+    synchronized (this) {
+      completedPasses++;
+      passRows = 0;
+      passRowsDone = 0;
+      fraction = (double) completedPasses / expectedPasses;
+    }
+    report(fraction);
+  }
+
+  private void report(double fraction) {
+    if (listener == null) {
+      return;
+    }
+    double value = Math.min(1, fraction);
+    synchronized (this) {
+      // Bands finish out of order, so only ever report forward
+      if (value > reported) {
+        reported = value;
+        listener.accept(value);
+      }
+    }
+  }
+}
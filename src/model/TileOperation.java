@@ -0,0 +1,36 @@
+package model;
+
+/**
+ * This interface represents an image operation whose result can be computed one rectangular tile
+ * at a time, independently of the rest of the result. Such operations can produce lazy tiled
+ * images, where a tile is only computed when something reads a pixel inside it.
+ */
+public interface TileOperation {
+
+  /**
+   * Computes one rectangle of the result of the operation on the given input image. The rectangle
+   * is written row by row into the buffer, with the rectangle width as the row stride.
+   *
+   * @param input  The input image.
+   * @param x      The x-coordinate of the top-left corner of the rectangle.
+   * @param y      The y-coordinate of the top-left corner of the rectangle.
+   * @param width  The width of the rectangle.
+   * @param height The height of the rectangle.
+   * @param dst    The buffer receiving the packed RGB values, at least width * height long.
+   */
+  void computeTile(Image input, int x, int y, int width, int height, int[] dst);
+
+  /**
+   * Applies the operation lazily. The returned image has the size of the input and computes its
+   * tiles on demand, keeping a bounded number of computed tiles cached. Writing to the returned
+   * image materializes it first.
+   *
+   * @param input The input image.
+   * @return The lazy result image.
+   */
+  default Image applyLazily(Image input) {
+    input.markViewed();
+    return new Image(input.getWidth(), input.getHeight(), new TiledPixelStore(this, input,
+        TiledPixelStore.TILE_SIZE, TiledPixelStore.MAX_CACHED_TILES));
+  }
+}
@@ -0,0 +1,135 @@
+package model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class stores the pixels of a lazily computed image as square tiles. A tile is computed by
+ * the producing {@link TileOperation} the first time one of its pixels is read, and computed tiles
+ * are kept in a least-recently-used cache of bounded size. The store is read-only; images
+ * materialize it into regular storage before writing.
+ */
+class TiledPixelStore implements PixelStore {
+
+  /**
+   * The default side length of a tile.
+   */
+  static final int TILE_SIZE = 256;
+
+  /**
+   * The default number of computed tiles kept per image.
+   */
+  static final int MAX_CACHED_TILES = 64;
+
+  private final TileOperation operation;
+  private final Image input;
+  private final int width;
+  private final int height;
+  private final int tileSize;
+  private final Map<Long, int[]> cache;
+
+  /**
+   * Constructs a lazy store for the result of the given operation on the given input.
+   *
+   * @param operation      The operation that computes the tiles.
+   * @param input          The input image of the operation.
+   * @param tileSize       The side length of a tile.
+   * @param maxCachedTiles The number of computed tiles to keep.
+   */
+  TiledPixelStore(TileOperation operation, Image input, int tileSize, int maxCachedTiles) {
+    if (tileSize <= 0 || maxCachedTiles <= 0) {
+      throw new IllegalArgumentException("Tile size and cache size must be positive");
+    }
+    this.operation = operation;
+    this.input = input;
+    this.width = input.getWidth();
+    this.height = input.getHeight();
+    this.tileSize = tileSize;
+    this.cache = new LinkedHashMap<Long, int[]>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+        return size() > maxCachedTiles;
+      }
+    };
+  }
+
+  @Override
+  public int getRGB(int x, int y) {
+    int tileX = x / tileSize;
+    int tileY = y / tileSize;
+    int[] tile = tile(tileX, tileY);
+    return tile[(y - tileY * tileSize) * tileWidth(tileX) + (x - tileX * tileSize)];
+  }
+
+  @Override
+  public void setRGB(int x, int y, int value) {
+    throw new UnsupportedOperationException("Tiled images are read-only");
+  }
+
+  @Override
+  public void getRow(int y, int[] dst) {
+    int tileY = y / tileSize;
+    int rowInTile = y - tileY * tileSize;
+    for (int tileX = 0; tileX * tileSize < width; tileX++) {
+      int tileWidth = tileWidth(tileX);
+      System.arraycopy(tile(tileX, tileY), rowInTile * tileWidth, dst, tileX * tileSize,
+          tileWidth);
+    }
+  }
+
+  @Override
+  public void getRegion(int x, int y, int width, int height, int[] dst) {
+    for (int tileY = y / tileSize; tileY * tileSize < y + height; tileY++) {
+      int top = Math.max(y, tileY * tileSize);
+      int bottom = Math.min(y + height, (tileY + 1) * tileSize);
+      for (int tileX = x / tileSize; tileX * tileSize < x + width; tileX++) {
+        int left = Math.max(x, tileX * tileSize);
+        int right = Math.min(x + width, (tileX + 1) * tileSize);
+        int[] tile = tile(tileX, tileY);
+        int tileWidth = tileWidth(tileX);
+        for (int row = top; row < bottom; row++) {
+          System.arraycopy(tile, (row - tileY * tileSize) * tileWidth + (left - tileX * tileSize),
+              dst, (row - y) * width + (left - x), right - left);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void setRow(int y, int[] src) {
+    throw new UnsupportedOperationException("Tiled images are read-only");
+  }
+
+  @Override
+  public boolean isReadOnly() {
+    return true;
+  }
+
+  @Override
+  public PixelStore createCompatible(int width, int height) {
+    return input.getStore().createCompatible(width, height);
+  }
+
+  private int tileWidth(int tileX) {
+    return Math.min(tileSize, width - tileX * tileSize);
+  }
+
+  private int tileHeight(int tileY) {
+    return Math.min(tileSize, height - tileY * tileSize);
+  }
+
+  private synchronized int[] tile(int tileX, int tileY) {
+    Long key = ((long) tileY << 32) | tileX;
+    int[] tile = cache.get(key);
+    if (tile == null) {
+      TaskContext.checkpoint();
+      int tileWidth = tileWidth(tileX);
+      int tileHeight = tileHeight(tileY);
+      tile = new int[tileWidth * tileHeight];
+      operation.computeTile(input, tileX * tileSize, tileY * tileSize, tileWidth, tileHeight,
+          tile);
+      cache.put(key, tile);
+    }
+    return tile;
+  }
+}
@@ -0,0 +1,91 @@
+package model;
+
+/**
+ * This class is a read-only view of another image whose pixels are reached through an integer
+ * affine coordinate mapping. It represents flips, quarter rotations, transposes and crops without
+ * copying any pixels: a pixel (x, y) of the view is the pixel
+ * ({@code m00 * x + m01 * y + m02}, {@code m10 * x + m11 * y + m12}) of the source image. A view
+ * of a view maps straight to the innermost source, so chains of views never nest.
+ */
+class TransformedPixelStore implements PixelStore {
+
+  private final Image source;
+  private final int width;
+  private final int m00;
+  private final int m01;
+  private final int m02;
+  private final int m10;
+  private final int m11;
+  private final int m12;
+
+  /**
+   * Constructs a view of the given image through the given mapping.
+   *
+   * @param source The image being viewed.
+   * @param width  The width of the view.
+   * @param matrix The mapping from view to source coordinates as {m00, m01, m02, m10, m11, m12}.
+   */
+  TransformedPixelStore(Image source, int width, int[] matrix) {
+    PixelStore sourceStore = source.getStore();
+    if (sourceStore instanceof TransformedPixelStore) {
+      TransformedPixelStore inner = (TransformedPixelStore) sourceStore;
+      this.source = inner.source;
+      this.m00 = inner.m00 * matrix[0] + inner.m01 * matrix[3];
+      this.m01 = inner.m00 * matrix[1] + inner.m01 * matrix[4];
+      this.m02 = inner.m00 * matrix[2] + inner.m01 * matrix[5] + inner.m02;
+      this.m10 = inner.m10 * matrix[0] + inner.m11 * matrix[3];
+      this.m11 = inner.m10 * matrix[1] + inner.m11 * matrix[4];
+      this.m12 = inner.m10 * matrix[2] + inner.m11 * matrix[5] + inner.m12;
+    } else {
+      this.source = source;
+      this.m00 = matrix[0];
+      this.m01 = matrix[1];
+      this.m02 = matrix[2];
+      this.m10 = matrix[3];
+      this.m11 = matrix[4];
+      this.m12 = matrix[5];
+    }
+    this.width = width;
+  }
+
+  @Override
+  public int getRGB(int x, int y) {
+    return source.getRGB(m00 * x + m01 * y + m02, m10 * x + m11 * y + m12);
+  }
+
+  @Override
+  public void setRGB(int x, int y, int value) {
+    throw new UnsupportedOperationException("Image views are read-only");
+  }
+
+  @Override
+  public void getRow(int y, int[] dst) {
+    if (m10 == 0 && m01 == 0) {
+      // Rows of the view are whole or partial rows of the source, possibly reversed.
+      int[] sourceRow = new int[source.getWidth()];
+      source.getRow(m11 * y + m12, sourceRow);
+      for (int x = 0; x < width; x++) {
+        dst[x] = sourceRow[m00 * x + m02];
+      }
+    } else {
+      for (int x = 0; x < width; x++) {
+        dst[x] = getRGB(x, y);
+      }
+    }
+  }
+
+  @Override
+  public void setRow(int y, int[] src) {
+    throw new UnsupportedOperationException("Image views are read-only");
+  }
+
+  @Override
+  public boolean isReadOnly() {
+    return true;
+  }
+
+  @Override
+  public PixelStore createCompatible(int width, int height) {
+    return source.getStore().createCompatible(width, height);
+  }
+}
@@ -32,40 +32,64 @@ public class ValueIntensityLuma extends AbstractColor {
   /**
    * Creates images containing the value, intensity and luma of the image.
    *
-   * @param originalPixel The original pixel from the input image.
-   * @param resultPixels  2D array to store the modified pixels.
-   * @param i             Row index of the pixel.
-   * @param j             Column index of the pixel.
+   * @param rgb   The packed RGB value of the original pixel from the input image.
+   * @param i     Row index of the pixel.
+   * @param j     Column index of the pixel.
+   * @param width Width of the image.
+   * @return The packed RGB value of the modified pixel.
    */
   @Override
-  protected void processPixel(Pixel originalPixel, Pixel[][] resultPixels, int i, int j) {
-    int width = resultPixels[0].length;
-    int r = originalPixel.getRed();
-    int g = originalPixel.getGreen();
-    int b = originalPixel.getBlue();
-    int splitPos = (int) ((double) width * (splitPercentage / 100.0));
+  protected int processPixel(int rgb, int i, int j, int width) {
+    int r = (rgb >> 16) & 0xFF;
+    int g = (rgb >> 8) & 0xFF;
+    int b = rgb & 0xFF;
+    int splitPos = splitPosition(width, splitPercentage);
+    if (j == splitPos) {
+      return 0; // Black color for the line
+    }
     if (j < splitPos) {
       switch (channel) {
         case VALUE:
           int value = Math.max(r, Math.max(g, b));
-          resultPixels[i][j] = new Pixel(value, value, value);
-          break;
+          return (value << 16) | (value << 8) | value;
         case INTENSITY:
           int intensity = (r + g + b) / 3;
-          resultPixels[i][j] = new Pixel(intensity, intensity, intensity);
-          break;
+          return (intensity << 16) | (intensity << 8) | intensity;
         case LUMA:
           int luma = (int) (0.2126 * r + 0.7152 * g + 0.0722 * b);
-          resultPixels[i][j] = new Pixel(luma, luma, luma);
-          break;
+          return (luma << 16) | (luma << 8) | luma;
         default:
-          break;
+          return 0;
       }
-    } else {
-      resultPixels[i][j] = originalPixel;
     }
-    if (j == splitPos) {
-      resultPixels[i][j] = new Pixel(0, 0, 0); // Black color for the line
+    return rgb;
+  }
+
+  @Override
+  protected int getAffectedColumns(int width) {
+    return Math.max(0, Math.min(width, splitPosition(width, splitPercentage) + 1));
+  }
+
+  @Override
+  void processRow(int[] source, int[] row, ChannelLanes lanes, int i, int width) {
+    if (channel != Channel.LUMA) {
+      super.processRow(source, row, lanes, i, width);
+      return;
+    }
+    int splitPos = splitPosition(width, splitPercentage);
+    int columns = Math.max(0, Math.min(width, splitPos));
+    int[] red = lanes.red;
+    int[] green = lanes.green;
+    int[] blue = lanes.blue;
+
+    lanes.unpack(source, columns);
+    for (int j = 0; j < columns; j++) {
+      int luma = (int) (0.2126 * red[j] + 0.7152 * green[j] + 0.0722 * blue[j]);
+      red[j] = luma;
+      green[j] = luma;
+      blue[j] = luma;
     }
+    lanes.pack(row, columns);
+    finishRow(source, row, columns, splitPos, width);
   }
 }
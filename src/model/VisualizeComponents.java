@@ -20,31 +20,48 @@ public class VisualizeComponents extends AbstractColor {
   }
 
   /**
-   * Processes a single pixel in the input image to apply the color visualization transformation.
+   * Visualizes the chosen color component as a planar image that shares the component's plane with
+   * the input image, leaving the other two channels zero.
    *
-   * @param originalPixel The original pixel from the input image.
-   * @param resultPixels  2D array to store the modified pixels.
-   * @param i             Row index of the pixel.
-   * @param j             Column index of the pixel.
+   * @param inputs The input image.
+   * @return The image showing only the chosen color component.
    */
   @Override
-  protected void processPixel(Pixel originalPixel, Pixel[][] resultPixels, int i, int j) {
-    int red = originalPixel.getRed();
-    int green = originalPixel.getGreen();
-    int blue = originalPixel.getBlue();
+  public Image apply(Image... inputs) {
+    Image input = inputs[0];
+    ChannelPlane plane = input.getPlane(color);
+    switch (color) {
+      case RED:
+        return Image.fromPlanes(input.getWidth(), input.getHeight(), plane, null, null);
+      case GREEN:
+        return Image.fromPlanes(input.getWidth(), input.getHeight(), null, plane, null);
+      case BLUE:
+        return Image.fromPlanes(input.getWidth(), input.getHeight(), null, null, plane);
+      default:
+        return super.apply(inputs);
+    }
+  }
 
+  /**
+   * Processes a single pixel in the input image to apply the color visualization transformation.
+   *
+   * @param rgb   The packed RGB value of the original pixel from the input image.
+   * @param i     Row index of the pixel.
+   * @param j     Column index of the pixel.
+   * @param width Width of the image.
+   * @return The packed RGB value of the modified pixel.
+   */
+  @Override
+  protected int processPixel(int rgb, int i, int j, int width) {
     switch (color) {
       case RED:
-        resultPixels[i][j] = new Pixel(red, 0, 0);
-        break;
+        return rgb & 0xFF0000;
       case GREEN:
-        resultPixels[i][j] = new Pixel(0, green, 0);
-        break;
+        return rgb & 0x00FF00;
       case BLUE:
-        resultPixels[i][j] = new Pixel(0, 0, blue);
-        break;
+        return rgb & 0x0000FF;
       default:
-        break;
+        return 0;
     }
   }
 }
@@ -66,10 +66,11 @@ public class VisualizeHistogram implements ImageOperation {
    */
   static int[] calculateHistogram(Image inputImage, char channel) {
     int[] histogram = new int[256];
-    Pixel[][] pixels = inputImage.getPixels();
+    int[] row = new int[inputImage.getWidth()];
     for (int i = 0; i < inputImage.getHeight(); i++) {
+      inputImage.getRow(i, row);
       for (int j = 0; j < inputImage.getWidth(); j++) {
-        int intensity = getIntensityForChannel(pixels[i][j], channel);
+        int intensity = getIntensityForChannel(row[j], channel);
         histogram[intensity]++;
       }
     }
@@ -78,21 +79,21 @@ public class VisualizeHistogram implements ImageOperation {
   }
 
   /**
-   * Retrieves the intensity of a specific color channel from a pixel.
+   * Retrieves the intensity of a specific color channel from a packed pixel value.
    *
-   * @param pixel   The pixel from which to get the color channel intensity.
+   * @param rgb     The packed RGB value from which to get the color channel intensity.
    * @param channel The color channel ('r', 'g', or 'b').
    * @return The intensity of the specified color channel.
    * @throws IllegalArgumentException If the specified channel is invalid.
    */
-  private static int getIntensityForChannel(Pixel pixel, char channel) {
+  private static int getIntensityForChannel(int rgb, char channel) {
     switch (channel) {
       case 'r':
-        return pixel.getRed();
+        return (rgb >> 16) & 0xFF;
       case 'g':
-        return pixel.getGreen();
+        return (rgb >> 8) & 0xFF;
       case 'b':
-        return pixel.getBlue();
+        return rgb & 0xFF;
       default:
         throw new IllegalArgumentException("Invalid channel: " + channel);
     }
@@ -157,22 +158,19 @@ public class VisualizeHistogram implements ImageOperation {
   }
 
   /**
-   * Converts a BufferedImage to an Image object by iterating over each pixel and creating
-   * corresponding Pixel objects with the RGB values.
+   * Converts a BufferedImage to an Image object by copying the RGB values of each row.
    *
    * @param bufferedImage The BufferedImage to convert.
    * @return The converted Image object.
    */
   static Image convertBufferedImageToImage(BufferedImage bufferedImage) {
-    Image image = new Image(bufferedImage.getWidth(), bufferedImage.getHeight());
-    for (int x = 0; x < bufferedImage.getWidth(); x++) {
-      for (int y = 0; y < bufferedImage.getHeight(); y++) {
-        int rgb = bufferedImage.getRGB(x, y);
-        int red = (rgb >> 16) & 0xFF;
-        int green = (rgb >> 8) & 0xFF;
-        int blue = rgb & 0xFF;
-        image.getPixels()[y][x] = new Pixel(red, green, blue);
-      }
+    int width = bufferedImage.getWidth();
+    int height = bufferedImage.getHeight();
+    Image image = new Image(width, height);
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      bufferedImage.getRGB(0, y, width, 1, row, 0, width);
+      image.setRow(y, row);
     }
     return image;
   }
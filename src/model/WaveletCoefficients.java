@@ -0,0 +1,327 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * This class holds the Haar wavelet coefficients of the three channels of an image, padded and
+ * transformed as by {@link CompressImage}, and reconstructs the image from them at full or reduced
+ * resolution. The coefficients are never changed once computed, so one set can serve any number
+ * of reconstructions.
+ *
+ * <p>The approximation that the transform leaves after {@code k} levels is the image reduced by
+ * {@code 2^k} along each dimension, so the image at that scale needs only the coarsest levels to
+ * be inverted. Those coefficients sit at the positions whose row and column are multiples of
+ * {@code 2^k}; they are gathered into a small plane, which is inverted as a transform of its own
+ * with fewer levels. A reduced image costs time and memory in proportion to its own size.
+ *
+ * <p>The coefficients also compress the image as {@link CompressImage} does, with the same result,
+ * at any number of percentages. The magnitudes of the coefficients are sorted once, the first time
+ * the coefficients serve more than one percentage, so every percentage after that costs only the
+ * thresholding and the inverse transform. The sorted magnitudes take as much memory as the
+ * coefficients. Until then, a single percentage selects its threshold without sorting.
+ *
+ * <p>The coefficients of the last image compressed, by {@link CompressImage} or
+ * {@link CompressionSweep}, are kept for as long as that image is in use and has not been written
+ * since, so compressing it again by other percentages skips the forward transform and, from the
+ * second compression on, the selection of the threshold.
+ */
+public final class WaveletCoefficients {
+
+  // No magnitude is at or below it, so no coefficient is zeroed
+  private static final double KEEP_ALL = -1;
+
+  // Holds at most one entry, as the coefficients take several times the memory of the image
+  private static final Map<Image, WaveletCoefficients> CACHE = new WeakHashMap<>();
+
+  private final int width;
+  private final int height;
+  private final int paddedWidth;
+  private final int paddedHeight;
+  private final double[][] channels;
+  // The storage of the source image, which reconstructions are created compatible with
+  private final PixelStore prototype;
+  // The version of the source image the coefficients were cached for
+  private Object version;
+  private double[] sortedMagnitudes;
+  private int compressions;
+
+  /**
+   * Wraps transformed channel planes that have no source image, such as ones read from a file.
+   * Reconstructions are created on the heap.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param channels The transformed red, green and blue planes, padded to powers of two, which
+   *                 the coefficients take over.
+   */
+  WaveletCoefficients(int width, int height, double[][] channels) {
+    this(width, height, channels, new PackedPixelStore(0, 0));
+  }
+
+  private WaveletCoefficients(int width, int height, double[][] channels, PixelStore prototype) {
+    this.width = width;
+    this.height = height;
+    this.paddedWidth = CompressImage.paddedSize(width);
+    this.paddedHeight = CompressImage.paddedSize(height);
+    this.channels = channels;
+    this.prototype = prototype;
+  }
+
+  /**
+   * Computes the coefficients of an image. Reconstructions use the same kind of storage as the
+   * image, as the results of operations do.
+   *
+   * @param image The image.
+   * @return The coefficients.
+   * @throws IllegalArgumentException If the image is null.
+   */
+  public static WaveletCoefficients of(Image image) {
+    if (image == null) {
+      throw new IllegalArgumentException("Null image");
+    }
+    int paddedWidth = CompressImage.paddedSize(image.getWidth());
+    int paddedHeight = CompressImage.paddedSize(image.getHeight());
+    double[][] channels = new double[3][paddedWidth * paddedHeight];
+    CompressImage.separateChannels(image, channels, paddedWidth, paddedHeight);
+    HaarTransform.forward(channels, paddedWidth, paddedHeight);
+    return new WaveletCoefficients(image.getWidth(), image.getHeight(), channels,
+        image.getStore());
+  }
+
+  /**
+   * Gets the coefficients of an image for compressing it, reusing the ones kept from the last call
+   * if they are of the same image and it has not been written since. Images whose pixels can change
+   * without being written, such as views, are transformed every time. Declares the passes of the
+   * operation to the task context: the transform if it is not reused, and then the given number of
+   * compressions.
+   *
+   * @param image        The image.
+   * @param compressions The number of percentages the image is about to be compressed by.
+   * @return The coefficients.
+   */
+  static WaveletCoefficients cached(Image image, int compressions) {
+    int levels = HaarTransform.levels(CompressImage.paddedSize(image.getWidth()),
+        CompressImage.paddedSize(image.getHeight()));
+    // The inverse transform and copying out for every percentage
+    int passes = compressions * (levels + 1);
+    if (!image.holdsOwnPixels()) {
+      TaskContext.expectPasses(1 + levels + passes);
+      return of(image);
+    }
+    Object version = image.version();
+    synchronized (CACHE) {
+      WaveletCoefficients coefficients = CACHE.get(image);
+      if (coefficients != null && coefficients.version == version) {
+        TaskContext.expectPasses(passes);
+        return coefficients;
+      }
+    }
+    // Copying in and the transform
+    TaskContext.expectPasses(1 + levels + passes);
+    WaveletCoefficients coefficients = of(image);
+    coefficients.version = version;
+    synchronized (CACHE) {
+      CACHE.clear();
+      CACHE.put(image, coefficients);
+    }
+    return coefficients;
+  }
+
+  /**
+   * Gets the width of the image.
+   *
+   * @return The width.
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Gets the height of the image.
+   *
+   * @return The height.
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Gets the number of levels of the transform, which is the coarsest level the image can be
+   * reconstructed at. At that level it is a single pixel.
+   *
+   * @return The number of levels.
+   */
+  public int getLevels() {
+    return HaarTransform.levels(paddedWidth, paddedHeight);
+  }
+
+  /**
+   * Reconstructs the image at full resolution.
+   *
+   * @return The image.
+   */
+  public Image reconstruct() {
+    return reconstruct(0);
+  }
+
+  /**
+   * Reconstructs the image reduced by {@code 2^level} along each dimension, rounding the size up.
+   * Each pixel is the mean of the block of the image it covers. A dimension that is shorter than
+   * {@code 2^level} is reduced to one pixel.
+   *
+   * @param level The number of levels to leave out, from 0 for the full resolution up to
+   *              {@link #getLevels()}.
+   * @return The image at the reduced resolution.
+   * @throws IllegalArgumentException If the level is out of range.
+   */
+  public Image reconstruct(int level) {
+    if (level < 0 || level > getLevels()) {
+      throw new IllegalArgumentException("Level must be between 0 and " + getLevels());
+    }
+    return reconstruct(level, KEEP_ALL, null);
+  }
+
+  /**
+   * Compresses the image by the given percentage. The result is the same as that of
+   * {@code new CompressImage(percentage)}.
+   *
+   * @param percentage The percentage of coefficients to zero, from 0 to 100.
+   * @return The compressed image.
+   * @throws IllegalArgumentException If the percentage is out of range.
+   */
+  public Image compress(double percentage) {
+    return compress(new double[]{percentage}).get(0);
+  }
+
+  /**
+   * Compresses the image by each of the given percentages, for comparing compression ratios. The
+   * results are the same as those of {@code new CompressImage(percentage)} for each percentage.
+   *
+   * @param percentages The percentages of coefficients to zero, each from 0 to 100.
+   * @return The compressed images, in the order of the percentages.
+   * @throws IllegalArgumentException If a percentage is out of range.
+   */
+  public List<Image> compress(double... percentages) {
+    for (double percentage : percentages) {
+      if (!(percentage >= 0 && percentage <= 100)) {
+        throw new IllegalArgumentException("Percentage must be between 0 and 100");
+      }
+    }
+    double[] magnitudes = sortedMagnitudes(percentages.length);
+    List<Image> images = new ArrayList<>();
+    for (double percentage : percentages) {
+      images.add(reconstruct(0, threshold(magnitudes, percentage), null));
+    }
+    return images;
+  }
+
+  /**
+   * Compresses the image by the given percentage into a destination of the size of the image.
+   *
+   * @param percentage  The percentage of coefficients to zero.
+   * @param destination The image to write the result into.
+   */
+  void compress(double percentage, Image destination) {
+    reconstruct(0, threshold(sortedMagnitudes(1), percentage), destination);
+  }
+
+  /**
+   * Gets the threshold for a percentage from the sorted magnitudes, or by selecting it from the
+   * coefficients if they are not sorted.
+   */
+  private double threshold(double[] magnitudes, double percentage) {
+    if (magnitudes == null) {
+      return CompressImage.determineThreshold(channels, paddedWidth * paddedHeight, percentage);
+    }
+    long rank = CompressImage.thresholdRank(magnitudes.length, percentage);
+    return (rank < 0) ? KEEP_ALL : magnitudes[(int) rank];
+  }
+
+  /**
+   * Gets the sorted magnitudes of the coefficients for the given number of percentages, sorting
+   * them first once the coefficients serve more than one. Sorting costs about as much as selecting
+   * a few thresholds without sorting.
+   */
+  private synchronized double[] sortedMagnitudes(int percentages) {
+    compressions += percentages;
+    if (sortedMagnitudes == null && compressions > 1) {
+      int length = paddedWidth * paddedHeight;
+      double[] magnitudes = new double[channels.length * length];
+      for (int c = 0; c < channels.length; c++) {
+        for (int i = 0; i < length; i++) {
+          magnitudes[c * length + i] = Math.abs(channels[c][i]);
+        }
+      }
+      Arrays.parallelSort(magnitudes);
+      sortedMagnitudes = magnitudes;
+    }
+    return sortedMagnitudes;
+  }
+
+  /**
+   * Reconstructs the image at the given level from the coefficients whose magnitude is above the
+   * threshold, into the destination or, if it is null, into a new image.
+   */
+  private Image reconstruct(int level, double threshold, Image destination) {
+    int strideX = Math.min(1 << level, paddedWidth);
+    int strideY = Math.min(1 << level, paddedHeight);
+    int planeWidth = paddedWidth / strideX;
+    int planeHeight = paddedHeight / strideY;
+
+    double[][] planes = new double[channels.length][];
+    for (int c = 0; c < channels.length; c++) {
+      planes[c] = BufferPool.acquireDoubles(planeWidth * planeHeight);
+      for (int y = 0; y < planeHeight; y++) {
+        int source = y * strideY * paddedWidth;
+        int target = y * planeWidth;
+        for (int x = 0; x < planeWidth; x++) {
+          double value = channels[c][source + x * strideX];
+          planes[c][target + x] = (Math.abs(value) <= threshold) ? 0 : value;
+        }
+      }
+    }
+    HaarTransform.inverse(planes, planeWidth, planeHeight);
+
+    int imageWidth = (width + strideX - 1) / strideX;
+    int imageHeight = (height + strideY - 1) / strideY;
+    Image image = (destination != null) ? destination
+        : new Image(imageWidth, imageHeight, prototype.createCompatible(imageWidth, imageHeight));
+    if (level == 0) {
+      CompressImage.combineChannels(planes, planeWidth, image);
+    } else {
+      combineMeans(planes, planeWidth, image, HaarTransform.approximationScale(paddedWidth,
+          paddedHeight, level), strideX, strideY);
+    }
+    for (double[] plane : planes) {
+      BufferPool.releaseDoubles(plane);
+    }
+    return image;
+  }
+
+  /**
+   * Write approximation coefficients into the reduced image as the means of the blocks they
+   * cover. Blocks along the right and bottom edges reach into the zero padding, so their sums are
+   * divided by the part of the block inside the image only.
+   */
+  private void combineMeans(double[][] planes, int planeWidth, Image image, double scale,
+      int strideX, int strideY) {
+    int[] row = new int[image.getWidth()];
+    for (int i = 0; i < image.getHeight(); i++) {
+      int coveredRows = Math.min(height, (i + 1) * strideY) - i * strideY;
+      int base = i * planeWidth;
+      for (int j = 0; j < row.length; j++) {
+        int coveredColumns = Math.min(width, (j + 1) * strideX) - j * strideX;
+        double factor = scale * strideX * strideY / ((double) coveredColumns * coveredRows);
+        int red = CompressUtils.clamp((int) Math.round(planes[0][base + j] * factor));
+        int green = CompressUtils.clamp((int) Math.round(planes[1][base + j] * factor));
+        int blue = CompressUtils.clamp((int) Math.round(planes[2][base + j] * factor));
+        row[j] = (red << 16) | (green << 8) | blue;
+      }
+      image.setRow(i, row);
+    }
+  }
+}
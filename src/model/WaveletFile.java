@@ -0,0 +1,415 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * This class writes and reads images in the sparse Haar wavelet format, with the extension
+ * {@code .hwc}. An image is stored as the quantized Haar coefficients of its channels, padded and
+ * transformed as by {@link CompressImage}. The format is lossy even without compression: the
+ * coefficients are rounded to a step of half a pixel value, so pixels read back within a few
+ * values of the image written.
+ *
+ * <p>When an image is written with a compression percentage, the coefficients that
+ * {@link CompressImage} would zero fall in the dead zone of the quantizer, the range of values
+ * that quantize to zero, and the step grows with the threshold of the compression. A coefficient
+ * just above the threshold costs a few bits rather than the bits of its exact value, and the
+ * rounding error of each coefficient stays a fraction of the error that zeroing it would cause.
+ *
+ * <p>The coefficients of each channel are coded from the coarsest level to the finest with an
+ * adaptive binary range coder, {@link RangeEncoder}. Most coefficients quantize to zero, so each
+ * one first codes whether it is zero, in a context made of its level and of how large the
+ * coefficients already coded around it are: those beside and above it at the same level, the one
+ * it refines at the next coarser level, and the same coefficient in the channel coded before. The
+ * contexts learn, for example, that a fine coefficient in a flat region is almost always zero, so
+ * such a coefficient costs a small fraction of a bit. The magnitude of a coefficient that is not
+ * zero is coded as an Exp-Golomb code whose length is coded in the same contexts, followed by its
+ * sign, in a context made of the sign of the same coefficient in the channel before.
+ *
+ * <p>The file holds the magic number {@code HWC2}, the width and height of the image, the
+ * quantization step in pixel values and the compression threshold, followed by the coded red,
+ * green and blue channels.
+ */
+public final class WaveletFile {
+
+  /**
+   * The finest quantization step, in pixel values, half a pixel value. The rounding errors of the
+   * coefficients that reach one pixel add up to a few pixel values at most.
+   */
+  private static final double STEP = 0.5;
+
+  /**
+   * The quantization step as a fraction of the compression threshold. Below the threshold every
+   * coefficient was zeroed, so rounding the ones above it to half of that keeps their error well
+   * under the error of the coefficients the compression dropped.
+   */
+  private static final double THRESHOLD_STEP = 0.5;
+
+  private static final int MAGIC = 0x48574332;
+  private static final int CHANNELS = 3;
+
+  // Coefficients are coded in contexts by level, finest first, and by how busy the image is there
+  private static final int LEVEL_GROUPS = 4;
+  private static final int ACTIVITY_CLASSES = 8;
+  private static final int LENGTH_BITS = 24;
+
+  private WaveletFile() {
+  }
+
+  /**
+   * Writes an image to a stream with all of its coefficients, rounded to the finest quantization
+   * step. The image reads back within a few pixel values. The stream is left open.
+   *
+   * @param image The image to write.
+   * @param out   The stream to write to.
+   * @throws IOException              If the stream cannot be written.
+   * @throws IllegalArgumentException If the image or stream is null.
+   */
+  public static void write(Image image, OutputStream out) throws IOException {
+    write(image, out, 0);
+  }
+
+  /**
+   * Writes an image to a stream, compressed by the given percentage: the coefficients that
+   * {@code new CompressImage(percentage)} would zero are left out, and the file reads back as
+   * about the result of that compression. The coefficients that are kept are quantized with a
+   * step that grows with the threshold of the compression. The stream is left open.
+   *
+   * @param image      The image to write.
+   * @param out        The stream to write to.
+   * @param percentage The percentage of coefficients to zero, from 0 to 100.
+   * @throws IOException              If the stream cannot be written.
+   * @throws IllegalArgumentException If the image or stream is null or the percentage is out of
+   *                                  range.
+   */
+  public static void write(Image image, OutputStream out, double percentage) throws IOException {
+    if (image == null || out == null) {
+      throw new IllegalArgumentException("Image and stream must not be null");
+    }
+    if (!(percentage >= 0 && percentage <= 100)) {
+      throw new IllegalArgumentException("Percentage must be between 0 and 100");
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int paddedWidth = CompressImage.paddedSize(width);
+    int paddedHeight = CompressImage.paddedSize(height);
+    int length = paddedWidth * paddedHeight;
+    double[][] channels = acquirePlanes(length);
+    try {
+      CompressImage.separateChannels(image, channels, paddedWidth, paddedHeight);
+      HaarTransform.forward(channels, paddedWidth, paddedHeight);
+      double threshold = CompressImage.determineThreshold(channels, length, percentage);
+
+      DataOutputStream header = new DataOutputStream(out);
+      header.writeInt(MAGIC);
+      header.writeInt(width);
+      header.writeInt(height);
+      header.writeDouble(STEP);
+      header.writeDouble(threshold);
+      header.flush();
+
+      BufferedOutputStream body = new BufferedOutputStream(out);
+      RangeEncoder encoder = new RangeEncoder(body);
+      CoefficientCoder coder = new CoefficientCoder(paddedWidth, paddedHeight, STEP, threshold);
+      for (double[] channel : channels) {
+        coder.encode(encoder, channel);
+      }
+      encoder.finish();
+      body.flush();
+    } finally {
+      releasePlanes(channels);
+    }
+  }
+
+  /**
+   * Reads an image from a stream. The stream is left open, but may have been read past the end of
+   * the image.
+   *
+   * @param in The stream to read from.
+   * @return The image.
+   * @throws IOException              If the stream cannot be read or does not hold an image in
+   *                                  this format.
+   * @throws IllegalArgumentException If the stream is null.
+   */
+  public static Image read(InputStream in) throws IOException {
+    return readCoefficients(in).reconstruct();
+  }
+
+  /**
+   * Reads the coefficients of an image from a stream without reconstructing it, so that the image
+   * can be reconstructed at a lower resolution. The stream is left open, but may have been read
+   * past the end of the image.
+   *
+   * @param in The stream to read from.
+   * @return The coefficients.
+   * @throws IOException              If the stream cannot be read or does not hold an image in
+   *                                  this format.
+   * @throws IllegalArgumentException If the stream is null.
+   */
+  public static WaveletCoefficients readCoefficients(InputStream in) throws IOException {
+    if (in == null) {
+      throw new IllegalArgumentException("Stream must not be null");
+    }
+    DataInputStream header = new DataInputStream(in);
+    if (header.readInt() != MAGIC) {
+      throw new IOException("Not a wavelet image file");
+    }
+    int width = header.readInt();
+    int height = header.readInt();
+    double step = header.readDouble();
+    double threshold = header.readDouble();
+    if (width <= 0 || height <= 0 || width > (1 << 30) || height > (1 << 30)) {
+      throw new IOException("Invalid image size: " + width + "x" + height);
+    }
+    if (!(step > 0) || Double.isInfinite(step)) {
+      throw new IOException("Invalid quantization step: " + step);
+    }
+    if (!(threshold >= -1) || Double.isInfinite(threshold)) {
+      throw new IOException("Invalid compression threshold: " + threshold);
+    }
+    int paddedWidth = CompressImage.paddedSize(width);
+    int paddedHeight = CompressImage.paddedSize(height);
+    if ((long) paddedWidth * paddedHeight > Integer.MAX_VALUE) {
+      throw new IOException("Image too large: " + width + "x" + height);
+    }
+
+    double[][] channels = new double[CHANNELS][paddedWidth * paddedHeight];
+    RangeDecoder decoder = new RangeDecoder(new BufferedInputStream(in));
+    CoefficientCoder coder = new CoefficientCoder(paddedWidth, paddedHeight, step, threshold);
+    for (double[] channel : channels) {
+      coder.decode(decoder, channel);
+    }
+    return new WaveletCoefficients(width, height, channels);
+  }
+
+  private static double[][] acquirePlanes(int length) {
+    double[][] planes = new double[CHANNELS][];
+    for (int c = 0; c < CHANNELS; c++) {
+      planes[c] = BufferPool.acquireDoubles(length);
+    }
+    return planes;
+  }
+
+  private static void releasePlanes(double[][] planes) {
+    for (double[] plane : planes) {
+      BufferPool.releaseDoubles(plane);
+    }
+  }
+
+  /**
+   * This class quantizes and codes the coefficients of transformed planes, and decodes them. The
+   * contexts of the range coder carry over from one channel to the next, so the channels after
+   * the first start with probabilities that already fit the image.
+   */
+  private static final class CoefficientCoder {
+
+    private final int width;
+    private final int height;
+    private final double step;
+    private final double threshold;
+    private int[] quantized;
+    private int[] previous;
+    private final short[] zeroContexts;
+    private final short[] lengthContexts;
+    private final short[] mantissaContexts;
+    private final short[] signContexts;
+
+    CoefficientCoder(int width, int height, double step, double threshold) {
+      this.width = width;
+      this.height = height;
+      this.step = step;
+      this.threshold = threshold;
+      this.quantized = new int[width * height];
+      this.previous = new int[width * height];
+      this.zeroContexts = RangeEncoder.newContexts(LEVEL_GROUPS * ACTIVITY_CLASSES * 3);
+      this.lengthContexts = RangeEncoder.newContexts(LEVEL_GROUPS * ACTIVITY_CLASSES * LENGTH_BITS);
+      this.mantissaContexts = RangeEncoder.newContexts(LEVEL_GROUPS * LENGTH_BITS);
+      this.signContexts = RangeEncoder.newContexts(3);
+    }
+
+    void encode(RangeEncoder encoder, double[] channel) throws IOException {
+      startChannel();
+      forEachCoefficient((x, y, level, amplitude) -> {
+        int index = y * width + x;
+        double quantStep = quantizationStep(amplitude);
+        double deadZone = Math.max(threshold, quantStep / 2);
+        double magnitude = Math.abs(channel[index]);
+        int group = Math.min(level, LEVEL_GROUPS - 1);
+        int activity = activity(x, y, level);
+        int zeroContext = (group * ACTIVITY_CLASSES + activity) * 3 + Math.min(2,
+            Math.abs(previous[index]));
+        if (magnitude <= deadZone) {
+          encoder.encodeBit(zeroContexts, zeroContext, 0);
+          return;
+        }
+        encoder.encodeBit(zeroContexts, zeroContext, 1);
+        int value = (int) Math.min((long) ((magnitude - deadZone) / quantStep) + 1, 1 << 30);
+        // Exp-Golomb: the number of bits after the leading one, in unary, then those bits
+        int bits = 31 - Integer.numberOfLeadingZeros(value);
+        int base = (group * ACTIVITY_CLASSES + activity) * LENGTH_BITS;
+        for (int i = 0; i < bits; i++) {
+          encoder.encodeBit(lengthContexts, base + Math.min(i, LENGTH_BITS - 1), 1);
+        }
+        encoder.encodeBit(lengthContexts, base + Math.min(bits, LENGTH_BITS - 1), 0);
+        if (bits > 0) {
+          encoder.encodeBit(mantissaContexts, group * LENGTH_BITS + Math.min(bits,
+              LENGTH_BITS - 1), (value >>> (bits - 1)) & 1);
+          encoder.encodeDirectBits(value, bits - 1);
+        }
+        int negative = (channel[index] < 0) ? 1 : 0;
+        encoder.encodeBit(signContexts, signContext(index), negative);
+        quantized[index] = (negative != 0) ? -value : value;
+      });
+    }
+
+    void decode(RangeDecoder decoder, double[] channel) throws IOException {
+      startChannel();
+      forEachCoefficient((x, y, level, amplitude) -> {
+        int index = y * width + x;
+        double quantStep = quantizationStep(amplitude);
+        double deadZone = Math.max(threshold, quantStep / 2);
+        int group = Math.min(level, LEVEL_GROUPS - 1);
+        int activity = activity(x, y, level);
+        int zeroContext = (group * ACTIVITY_CLASSES + activity) * 3 + Math.min(2,
+            Math.abs(previous[index]));
+        if (decoder.decodeBit(zeroContexts, zeroContext) == 0) {
+          channel[index] = 0;
+          return;
+        }
+        int base = (group * ACTIVITY_CLASSES + activity) * LENGTH_BITS;
+        int bits = 0;
+        while (decoder.decodeBit(lengthContexts, base + Math.min(bits, LENGTH_BITS - 1)) != 0) {
+          bits++;
+          if (bits > 30) {
+            throw new IOException("Malformed coefficient");
+          }
+        }
+        int value = 1;
+        if (bits > 0) {
+          value = (value << 1) | decoder.decodeBit(mantissaContexts, group * LENGTH_BITS
+              + Math.min(bits, LENGTH_BITS - 1));
+          value = (value << (bits - 1)) | decoder.decodeDirectBits(bits - 1);
+        }
+        boolean negative = decoder.decodeBit(signContexts, signContext(index)) != 0;
+        // The middle of the range of magnitudes that quantize to the value
+        double magnitude = deadZone + (value - 0.5) * quantStep;
+        channel[index] = negative ? -magnitude : magnitude;
+        quantized[index] = negative ? -value : value;
+      });
+    }
+
+    /**
+     * Keeps the quantized values of the channel just coded, to predict the next channel from, and
+     * clears the values of the channel about to be coded.
+     */
+    private void startChannel() {
+      int[] swap = previous;
+      previous = quantized;
+      quantized = swap;
+      Arrays.fill(quantized, 0);
+    }
+
+    /**
+     * Gets the quantization step of a coefficient with the given amplitude: the finest step in
+     * pixel values, or a fraction of the threshold if that is larger.
+     */
+    private double quantizationStep(double amplitude) {
+      return Math.max(threshold * THRESHOLD_STEP, step / amplitude);
+    }
+
+    /**
+     * Classifies how busy the image is around a coefficient, from the quantized magnitudes already
+     * known there: the coefficients coded before it at the same level and in the same orientation,
+     * to the left and above, the coefficient it refines at the next coarser level, and the same
+     * coefficient in the channel coded before.
+     */
+    private int activity(int x, int y, int level) {
+      int stride = 2 << level;
+      int sum = 2 * Math.abs(previous[y * width + x]) + 2 * parent(x, y, level);
+      if (x >= stride) {
+        sum += 2 * Math.abs(quantized[y * width + x - stride]);
+      }
+      if (y >= stride) {
+        int above = (y - stride) * width + x;
+        sum += 2 * Math.abs(quantized[above]);
+        if (x >= stride) {
+          sum += Math.abs(quantized[above - stride]);
+        }
+        if (x + stride < width) {
+          sum += Math.abs(quantized[above + stride]);
+        }
+      }
+      // Classes 0, 1, 2-3, 4-7 and so on
+      return Math.min(ACTIVITY_CLASSES - 1, 32 - Integer.numberOfLeadingZeros(sum));
+    }
+
+    /**
+     * Gets the quantized magnitude of the coefficient at the next coarser level that covers the
+     * same part of the image, in the same orientation. The coarsest coefficients have none.
+     */
+    private int parent(int x, int y, int level) {
+      int stride = 1 << level;
+      int parentX = (x & -(4 * stride)) | (((x & stride) != 0) ? 2 * stride : 0);
+      int parentY = (y & -(4 * stride)) | (((y & stride) != 0) ? 2 * stride : 0);
+      if (parentX >= width || parentY >= height || (parentX == x && parentY == y)) {
+        return 0;
+      }
+      return Math.abs(quantized[parentY * width + parentX]);
+    }
+
+    /**
+     * Gets the context of the sign of a coefficient from the sign of the same coefficient in the
+     * channel coded before, since the channels of an image mostly change together.
+     */
+    private int signContext(int index) {
+      return Integer.signum(previous[index]) + 1;
+    }
+
+    /**
+     * Visits every position of a transformed plane from the coarsest level to the finest. The
+     * positions that the transform left at level {@code j} are those whose row and column are
+     * multiples of {@code 2^j} but not both of {@code 2^(j+1)}. A coefficient at such a position
+     * went through every level up to {@code j}, so its amplitude in the pixels is that of an
+     * approximation left by {@code j + 1} levels, which the visitor gets back as a factor.
+     */
+    private void forEachCoefficient(CoefficientVisitor visitor) throws IOException {
+      int levels = HaarTransform.levels(width, height);
+      visitor.visit(0, 0, levels, HaarTransform.approximationScale(width, height, levels));
+      for (int j = levels - 1; j >= 0; j--) {
+        int stride = 1 << j;
+        double amplitude = HaarTransform.approximationScale(width, height, j + 1);
+        for (int y = 0; y < height; y += stride) {
+          for (int x = 0; x < width; x += stride) {
+            if (((x | y) & stride) != 0) {
+              visitor.visit(x, y, j, amplitude);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * This interface represents work done on one coefficient of a transformed plane.
+   */
+  private interface CoefficientVisitor {
+
+    /**
+     * Visits one coefficient.
+     *
+     * @param x         The column of the coefficient in the plane.
+     * @param y         The row of the coefficient in the plane.
+     * @param level     The level of the transform that left the coefficient, from 0 for the
+     *                  finest.
+     * @param amplitude The factor from the coefficient to its amplitude in the pixels.
+     * @throws IOException If the coefficient cannot be written or read.
+     */
+    void visit(int x, int y, int level, double amplitude) throws IOException;
+  }
+}
@@ -0,0 +1,11 @@
+package model.enums;
+
+/**
+ * Enum representing the ways a filter can treat kernel taps that fall outside the image.
+ */
+public enum EdgePolicy {
+  ZERO,
+  CLAMP,
+  MIRROR,
+  WRAP
+}
@@ -13,9 +13,13 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.GridLayout;
+import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.BiConsumer;
 
 import javax.swing.BorderFactory;
@@ -44,6 +48,7 @@ import model.enums.Direction;
  */
 public class ImageProcessingGUI extends JFrame {
 
+  private static final String TITLE = "Image Processing Application";
   private String imageFileExtension;
   private JButton loadImageBtn;
   private JButton saveImageBtn;
@@ -70,6 +75,7 @@ public class ImageProcessingGUI extends JFrame {
 
   private static int splitPercentage;
   private boolean isInitialized = false;
+  private CompletableFuture<model.Image> pendingCompression;
 
   GUICommandHandler commandHandler = new GUICommandHandler();
 
@@ -77,7 +83,7 @@ public class ImageProcessingGUI extends JFrame {
    * Constructor to create a new ImageProcessingGUI with the specified title, size etc.
    */
   public ImageProcessingGUI() {
-    setTitle("Image Processing Application");
+    setTitle(TITLE);
     setSize(1400, 800);
     setResizable(false);
     setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -100,6 +106,7 @@ public class ImageProcessingGUI extends JFrame {
    * @param currentImage The image to be displayed.
    */
   private void updateImageInFrame(BufferedImage currentImage) {
+    cancelPendingCompression();
     ImageIcon imageIconPreview = new ImageIcon(currentImage);
     imageLabel.setIcon(imageIconPreview);
     imageLabel.revalidate();
@@ -118,11 +125,9 @@ public class ImageProcessingGUI extends JFrame {
         return;
       }
       model.Image currentImageModel = ImageProcessingUtilities.convertToImageModel(currentImage);
-      model.Image blurImageModel = commandHandler.applyBlur(currentImageModel, splitPercentage);
-      currentImage = ImageProcessingUtilities.convertToBufferedImage(blurImageModel);
-
       if (applyToImage == Option.SPLIT) {
-        openNewWindow(currentImage, previousImage, "Split View - Blur", (operated, previous) -> {
+        model.Image preview = commandHandler.previewBlur(currentImageModel, splitPercentage);
+        openNewWindow(preview, previousImage, "Split View - Blur", (operated, previous) -> {
           try {
             model.Image blurImageModelPreview1 = commandHandler.applyBlur(
                 ImageProcessingUtilities.convertToImageModel(previous), 100);
@@ -136,6 +141,8 @@ public class ImageProcessingGUI extends JFrame {
           }
         });
       } else {
+        model.Image blurImageModel = commandHandler.applyBlur(currentImageModel, splitPercentage);
+        currentImage = ImageProcessingUtilities.convertToBufferedImage(blurImageModel);
         updateImageInFrame(currentImage);
       }
       updateHistogram(currentImage);
@@ -157,11 +164,9 @@ public class ImageProcessingGUI extends JFrame {
       }
 
       model.Image currentImageModel = ImageProcessingUtilities.convertToImageModel(currentImage);
-      model.Image sharpenImageModel = commandHandler.applySharpen(currentImageModel,
-          splitPercentage);
-      currentImage = ImageProcessingUtilities.convertToBufferedImage(sharpenImageModel);
       if (applyToImage == Option.SPLIT) {
-        openNewWindow(currentImage, previousImage, "Split View - Sharpen", (operated, previous) -> {
+        model.Image preview = commandHandler.previewSharpen(currentImageModel, splitPercentage);
+        openNewWindow(preview, previousImage, "Split View - Sharpen", (operated, previous) -> {
           try {
             model.Image sharpenImageModelPreview1 = commandHandler.applySharpen(
                 ImageProcessingUtilities.convertToImageModel(previous), 100);
@@ -175,6 +180,9 @@ public class ImageProcessingGUI extends JFrame {
           }
         });
       } else {
+        model.Image sharpenImageModel = commandHandler.applySharpen(currentImageModel,
+            splitPercentage);
+        currentImage = ImageProcessingUtilities.convertToBufferedImage(sharpenImageModel);
         updateImageInFrame(currentImage);
       }
       updateHistogram(currentImage);
@@ -196,11 +204,10 @@ public class ImageProcessingGUI extends JFrame {
         return;
       }
       model.Image currentImageModel = ImageProcessingUtilities.convertToImageModel(currentImage);
-      model.Image greyscaleImageModel = commandHandler.applyGreyScale(currentImageModel,
-          splitPercentage);
-      currentImage = ImageProcessingUtilities.convertToBufferedImage(greyscaleImageModel);
       if (applyToImage == Option.SPLIT) {
-        openNewWindow(currentImage, previousImage, "Split View - Sharpen", (operated, previous) -> {
+        model.Image preview = commandHandler.previewGreyScale(currentImageModel,
+            splitPercentage);
+        openNewWindow(preview, previousImage, "Split View - Sharpen", (operated, previous) -> {
           try {
             model.Image greyscaleImageModelPreview1 = commandHandler.applyGreyScale(
                 ImageProcessingUtilities.convertToImageModel(previous), 100);
@@ -215,6 +222,9 @@ public class ImageProcessingGUI extends JFrame {
           }
         });
       } else {
+        model.Image greyscaleImageModel = commandHandler.applyGreyScale(currentImageModel,
+            splitPercentage);
+        currentImage = ImageProcessingUtilities.convertToBufferedImage(greyscaleImageModel);
         updateImageInFrame(currentImage);
       }
       updateHistogram(currentImage);
@@ -236,10 +246,9 @@ public class ImageProcessingGUI extends JFrame {
       }
 
       model.Image currentImageModel = ImageProcessingUtilities.convertToImageModel(currentImage);
-      model.Image sepiaImageModel = commandHandler.applySepia(currentImageModel, splitPercentage);
-      currentImage = ImageProcessingUtilities.convertToBufferedImage(sepiaImageModel);
       if (applyToImage == Option.SPLIT) {
-        openNewWindow(currentImage, previousImage, "Split View - Sepia", (operated, previous) -> {
+        model.Image preview = commandHandler.previewSepia(currentImageModel, splitPercentage);
+        openNewWindow(preview, previousImage, "Split View - Sepia", (operated, previous) -> {
           try {
             model.Image sepiaImageModelPreview1 = commandHandler.applySepia(
                 ImageProcessingUtilities.convertToImageModel(previous), 100);
@@ -254,6 +263,9 @@ public class ImageProcessingGUI extends JFrame {
           }
         });
       } else {
+        model.Image sepiaImageModel = commandHandler.applySepia(currentImageModel,
+            splitPercentage);
+        currentImage = ImageProcessingUtilities.convertToBufferedImage(sepiaImageModel);
         updateImageInFrame(currentImage);
       }
       updateHistogram(currentImage);
@@ -287,11 +299,10 @@ public class ImageProcessingGUI extends JFrame {
       double mid = Double.parseDouble(midText.trim());
 
       model.Image currentImageModel = ImageProcessingUtilities.convertToImageModel(currentImage);
-      model.Image adjustedImageModel = commandHandler.applyLevel(currentImageModel, splitPercentage,
-          black, white, mid);
-      currentImage = ImageProcessingUtilities.convertToBufferedImage(adjustedImageModel);
       if (applyToImage == Option.SPLIT) {
-        openNewWindow(currentImage, previousImage, "Split View - Adjust Levels",
+        model.Image preview = commandHandler.previewLevel(currentImageModel, splitPercentage,
+            black, white, mid);
+        openNewWindow(preview, previousImage, "Split View - Adjust Levels",
             (operated, previous) -> {
               try {
                 model.Image adjustedImageModelPreview1 = commandHandler.applyLevel(
@@ -309,6 +320,9 @@ public class ImageProcessingGUI extends JFrame {
               }
             });
       } else {
+        model.Image adjustedImageModel = commandHandler.applyLevel(currentImageModel,
+            splitPercentage, black, white, mid);
+        currentImage = ImageProcessingUtilities.convertToBufferedImage(adjustedImageModel);
         updateImageInFrame(currentImage);
 
       }
@@ -335,19 +349,22 @@ public class ImageProcessingGUI extends JFrame {
           splitPercentage);
       currentImage = ImageProcessingUtilities.convertToBufferedImage(colorCorrectImageModel);
       if (applyToImage == Option.SPLIT) {
-        openNewWindow(currentImage, previousImage, "Split View - Sepia", (operated, previous) -> {
-          try {
-            model.Image colorCorrectImageModelPreview1 = commandHandler.applyColorCorrection(
-                ImageProcessingUtilities.convertToImageModel(previous), 100);
-            currentImage = ImageProcessingUtilities.convertToBufferedImage(
-                colorCorrectImageModelPreview1);
-            updateImageInFrame(currentImage);
-            updateHistogram(currentImage);
-          } catch (Exception ex) {
-            ex.printStackTrace();
-            ImageProcessingUtilities.showErrorDialog(ex, "color correct");
-          }
-        });
+        // Color correction depends on the histogram of the whole image, so it is not previewed
+        // lazily
+        openNewWindow(colorCorrectImageModel, previousImage, "Split View - Sepia",
+            (operated, previous) -> {
+              try {
+                model.Image colorCorrectImageModelPreview1 = commandHandler.applyColorCorrection(
+                    ImageProcessingUtilities.convertToImageModel(previous), 100);
+                currentImage = ImageProcessingUtilities.convertToBufferedImage(
+                    colorCorrectImageModelPreview1);
+                updateImageInFrame(currentImage);
+                updateHistogram(currentImage);
+              } catch (Exception ex) {
+                ex.printStackTrace();
+                ImageProcessingUtilities.showErrorDialog(ex, "color correct");
+              }
+            });
       } else {
         updateImageInFrame(currentImage);
       }
@@ -513,13 +530,19 @@ public class ImageProcessingGUI extends JFrame {
       if (input != null && !input.isEmpty()) {
         int compressPercentage = Integer.parseInt(input);
         if (compressPercentage >= 0 && compressPercentage <= 100) {
+          cancelPendingCompression();
+          BufferedImage sourceImage = currentImage;
           model.Image currentImageModel = ImageProcessingUtilities.convertToImageModel(
               currentImage);
-          model.Image compressedImageModel = commandHandler.applyCompress(currentImageModel,
-              compressPercentage);
-          currentImage = ImageProcessingUtilities.convertToBufferedImage(compressedImageModel);
-
-          updateImageInFrame(currentImage);
+          CompletableFuture<model.Image> compression = commandHandler.applyCompressAsync(
+              currentImageModel, compressPercentage, fraction -> SwingUtilities.invokeLater(() -> {
+                if (pendingCompression != null) {
+                  setTitle(TITLE + " - Compressing " + (int) (fraction * 100) + "%");
+                }
+              }));
+          pendingCompression = compression;
+          compression.whenComplete((compressedImageModel, error) -> SwingUtilities.invokeLater(
+              () -> finishCompression(compression, sourceImage, compressedImageModel, error)));
         } else {
           JOptionPane.showMessageDialog(this, "Please enter a valid percentage (0-100).",
               "Invalid Input", JOptionPane.ERROR_MESSAGE);
@@ -535,11 +558,64 @@ public class ImageProcessingGUI extends JFrame {
     }
   }
 
-  private void openNewWindow(BufferedImage operatedImage, BufferedImage previousImage,
+  /**
+   * Shows the result of a compression that ran in the background, unless it has been superseded
+   * by a newer compression or the image has changed since it started.
+   *
+   * @param compression          The finished compression.
+   * @param sourceImage          The image that was compressed.
+   * @param compressedImageModel The compressed image, or null if the compression failed.
+   * @param error                The reason the compression failed, or null.
+   */
+  private void finishCompression(CompletableFuture<model.Image> compression,
+      BufferedImage sourceImage, model.Image compressedImageModel, Throwable error) {
+    if (compression != pendingCompression) {
+      return;
+    }
+    pendingCompression = null;
+    setTitle(TITLE);
+    if (error instanceof CompletionException && error.getCause() != null) {
+      error = error.getCause();
+    }
+    if (error instanceof CancellationException || currentImage != sourceImage) {
+      return;
+    }
+    if (error != null) {
+      JOptionPane.showMessageDialog(this, "Error during operation: " + error.getMessage(), "Error",
+          JOptionPane.ERROR_MESSAGE);
+      return;
+    }
+    currentImage = ImageProcessingUtilities.convertToBufferedImage(compressedImageModel);
+    updateImageInFrame(currentImage);
+  }
+
+  /**
+   * Cancels the compression running in the background, if any, as its result is no longer wanted.
+   */
+  private void cancelPendingCompression() {
+    if (pendingCompression != null) {
+      pendingCompression.cancel(true);
+      pendingCompression = null;
+      setTitle(TITLE);
+    }
+  }
+
+  /**
+   * Opens a window previewing the result of an operation, with buttons to apply or discard it.
+   * The preview is shown through an {@link ImageViewport}, so a lazy preview only computes the
+   * part of it the window shows.
+   *
+   * @param operatedImage The preview of the result.
+   * @param previousImage The image before the operation.
+   * @param windowTitle   The title of the window.
+   * @param applyAction   The action run when the result is applied.
+   */
+  private void openNewWindow(model.Image operatedImage, BufferedImage previousImage,
       String windowTitle,
-      BiConsumer<BufferedImage, BufferedImage> applyAction) {
+      BiConsumer<model.Image, BufferedImage> applyAction) {
     JFrame newFrame = new JFrame(windowTitle);
-    JLabel newLabel = new JLabel(new ImageIcon(operatedImage));
+    ImageViewport viewport = new ImageViewport(operatedImage);
+    JScrollPane scrollPane = new JScrollPane(viewport);
 
     JButton applyButton = new JButton("Apply");
     JButton discardButton = new JButton("Discard");
@@ -547,12 +623,10 @@ public class ImageProcessingGUI extends JFrame {
 
     toggleCheckbox.addItemListener(e -> {
       if (toggleCheckbox.isSelected()) {
-        newLabel.setIcon(new ImageIcon(previousImage));
+        viewport.setImage(ImageProcessingUtilities.convertToImageModel(previousImage));
       } else {
-        newLabel.setIcon(new ImageIcon(operatedImage));
+        viewport.setImage(operatedImage);
       }
-      newLabel.revalidate();
-      newLabel.repaint();
     });
 
     applyButton.addActionListener(e -> {
@@ -571,10 +645,12 @@ public class ImageProcessingGUI extends JFrame {
     buttonPanel.add(toggleCheckbox);
 
     newFrame.setLayout(new BorderLayout());
-    newFrame.getContentPane().add(newLabel, BorderLayout.CENTER);
+    newFrame.getContentPane().add(scrollPane, BorderLayout.CENTER);
     newFrame.getContentPane().add(buttonPanel, BorderLayout.PAGE_END);
 
-    newFrame.setSize(operatedImage.getWidth(), operatedImage.getHeight() + buttonPanel.getHeight());
+    Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
+    newFrame.setSize(Math.min(operatedImage.getWidth(), screen.width),
+        Math.min(operatedImage.getHeight() + buttonPanel.getHeight(), screen.height));
     newFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
     newFrame.setVisible(true);
   }
@@ -716,7 +792,7 @@ public class ImageProcessingGUI extends JFrame {
     JFileChooser fileChooser = new JFileChooser();
     fileChooser.setFileFilter(
         new javax.swing.filechooser.FileNameExtensionFilter("Image files", "jpg", "png", "ppm",
-            "jpeg"));
+            "jpeg", "hwc"));
 
     if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
       File file = fileChooser.getSelectedFile();
@@ -727,6 +803,8 @@ public class ImageProcessingGUI extends JFrame {
         model.Image loadedImage;
         if (imageFileExtension.equals("ppm")) {
           loadedImage = ImageUtil.readPPM(file.getAbsolutePath());
+        } else if (imageFileExtension.equals("hwc")) {
+          loadedImage = ImageUtil.readHWC(file.getAbsolutePath());
         } else {
           loadedImage = ImageUtil.readJPGorPNG(file.getAbsolutePath());
         }
@@ -761,6 +839,8 @@ public class ImageProcessingGUI extends JFrame {
         new javax.swing.filechooser.FileNameExtensionFilter("PNG files", "png"));
     fileChooser.addChoosableFileFilter(
         new javax.swing.filechooser.FileNameExtensionFilter("PPM files", "ppm"));
+    fileChooser.addChoosableFileFilter(
+        new javax.swing.filechooser.FileNameExtensionFilter("Wavelet files", "hwc"));
     fileChooser.setAcceptAllFileFilterUsed(false);
 
     if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
@@ -768,7 +848,7 @@ public class ImageProcessingGUI extends JFrame {
       String format = ImageProcessingUtilities.getFileExtension(fileToSave);
 
       if (format == null || (!format.equals("jpg") && !format.equals("png") && !format.equals(
-          "ppm"))) {
+          "ppm") && !format.equals("hwc"))) {
         JOptionPane.showMessageDialog(this, "Unsupported file format.", "Error",
             JOptionPane.ERROR_MESSAGE);
         return;
@@ -784,6 +864,8 @@ public class ImageProcessingGUI extends JFrame {
 
         if (format.equals("ppm")) {
           ImageUtil.writePPM(imageToSave, filePath);
+        } else if (format.equals("hwc")) {
+          ImageUtil.writeHWC(imageToSave, filePath);
         } else {
           ImageUtil.writeJPGorPNG(imageToSave, filePath, format);
         }
@@ -820,6 +902,7 @@ public class ImageProcessingGUI extends JFrame {
    * @param image The image to be displayed.
    */
   private void displayImage(model.Image image) {
+    cancelPendingCompression();
     currentImage = ImageProcessingUtilities.convertToBufferedImage(image);
     ImageIcon imageIcon = new ImageIcon(currentImage);
 
@@ -1,6 +1,5 @@
 package view;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.WritableRaster;
@@ -125,12 +124,11 @@ public class ImageProcessingUtilities extends JFrame {
     int height = image.getHeight();
     BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
 
+    int[] row = new int[width];
+
     for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        model.Pixel pixel = image.getPixel(j, i);
-        int rgb = new Color(pixel.getRed(), pixel.getGreen(), pixel.getBlue()).getRGB();
-        bufferedImage.setRGB(j, i, rgb);
-      }
+      image.getRow(i, row);
+      bufferedImage.setRGB(0, i, width, 1, row, 0, width);
     }
     return bufferedImage;
   }
@@ -144,20 +142,13 @@ public class ImageProcessingUtilities extends JFrame {
   public static model.Image convertToImageModel(BufferedImage bufferedImage) {
     int width = bufferedImage.getWidth();
     int height = bufferedImage.getHeight();
-    model.Pixel[][] pixels = new model.Pixel[height][width];
+    model.Image img = new model.Image(width, height);
+    int[] row = new int[width];
 
     for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int rgb = bufferedImage.getRGB(j, i);
-        Color color = new Color(rgb);
-        int r = color.getRed();
-        int g = color.getGreen();
-        int b = color.getBlue();
-        pixels[i][j] = new model.Pixel(r, g, b);
-      }
+      bufferedImage.getRGB(0, i, width, 1, row, 0, width);
+      img.setRow(i, row);
     }
-    model.Image img = new model.Image(width, height);
-    img.setPixels(pixels);
     return img;
   }
 
@@ -0,0 +1,57 @@
+package view;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import javax.swing.JComponent;
+
+/**
+ * This class displays an image of the model at its full size, usually inside a scroll pane. Each
+ * paint reads only the pixels of the area being painted, so a lazy image, such as a split preview,
+ * computes only the tiles that are scrolled into view.
+ */
+public class ImageViewport extends JComponent {
+
+  private model.Image image;
+
+  /**
+   * Constructs a viewport showing the given image.
+   *
+   * @param image The image to show.
+   */
+  public ImageViewport(model.Image image) {
+    setImage(image);
+  }
+
+  /**
+   * Replaces the image shown.
+   *
+   * @param image The image to show.
+   */
+  public void setImage(model.Image image) {
+    this.image = image;
+    setPreferredSize(new Dimension(image.getWidth(), image.getHeight()));
+    revalidate();
+    repaint();
+  }
+
+  @Override
+  protected void paintComponent(Graphics g) {
+    super.paintComponent(g);
+    Rectangle area = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+    Rectangle clip = g.getClipBounds();
+    if (clip != null) {
+      area = area.intersection(clip);
+    }
+    if (area.isEmpty()) {
+      return;
+    }
+    int[] pixels = new int[area.width * area.height];
+    image.getRegion(area.x, area.y, area.width, area.height, pixels);
+    BufferedImage visible = new BufferedImage(area.width, area.height,
+        BufferedImage.TYPE_INT_RGB);
+    visible.setRGB(0, 0, area.width, area.height, pixels, 0, area.width);
+    g.drawImage(visible, area.x, area.y, null);
+  }
+}
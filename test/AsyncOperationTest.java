@@ -0,0 +1,89 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import model.Blur;
+import model.CompressImage;
+import model.GaussianBlur;
+import model.Image;
+import model.TestImages;
+import org.junit.Test;
+
+/**
+ * JUnit test class for running image operations asynchronously.
+ */
+public class AsyncOperationTest {
+
+  /**
+   * Test that an asynchronous run gives the same image as a synchronous one and reports progress
+   * that only grows and ends at one.
+   */
+  @Test
+  public void testResultAndProgress() {
+    Image image = TestImages.gradient(64, 48);
+    List<Double> progress = new ArrayList<>();
+    Image expected = new GaussianBlur(6).apply(image);
+    Image actual = new GaussianBlur(6).applyAsync(fraction -> {
+      synchronized (progress) {
+        progress.add(fraction);
+      }
+    }, image).join();
+
+    for (int y = 0; y < 48; y++) {
+      for (int x = 0; x < 64; x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+    assertTrue(progress.size() > 1);
+    for (int i = 1; i < progress.size(); i++) {
+      assertTrue(progress.get(i) > progress.get(i - 1));
+    }
+    assertEquals(1.0, progress.get(progress.size() - 1), 0);
+  }
+
+  /**
+   * Test that compression reports progress level by level.
+   */
+  @Test
+  public void testCompressionProgress() {
+    Image image = TestImages.gradient(16, 16);
+    List<Double> progress = new ArrayList<>();
+    new CompressImage(50).applyAsync(progress::add, image).join();
+
+    // Copying in, four levels of the transform and of its inverse, and copying out
+    assertEquals(10, progress.size());
+    assertEquals(1.0 / 10, progress.get(0), 1e-12);
+    assertEquals(1.0, progress.get(9), 0);
+  }
+
+  /**
+   * Test that cancelling the future stops the operation before it finishes.
+   */
+  @Test
+  public void testCancel() {
+    Image image = TestImages.gradient(32, 2048);
+    AtomicReference<CompletableFuture<Image>> future = new AtomicReference<>();
+    List<Double> progress = new ArrayList<>();
+    synchronized (future) {
+      future.set(new Blur().applyAsync(fraction -> {
+        synchronized (future) {
+          progress.add(fraction);
+          future.get().cancel(true);
+        }
+      }, image));
+    }
+
+    try {
+      future.get().join();
+    } catch (CancellationException e) {
+      // Expected
+    }
+    assertTrue(future.get().isCancelled());
+    assertEquals(1, progress.size());
+    assertTrue(progress.get(0) < 1);
+  }
+}
@@ -0,0 +1,97 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import model.AdjustLevel;
+import model.Blur;
+import model.BufferPool;
+import model.ColorCorrect;
+import model.CompressImage;
+import model.Flip;
+import model.GaussianBlur;
+import model.Image;
+import model.ImageOperation;
+import model.Sepia;
+import model.TestImages;
+import model.enums.Direction;
+import org.junit.Test;
+
+/**
+ * JUnit test class for writing results into destination images and for the BufferPool class.
+ */
+public class BufferPoolTest {
+
+  /**
+   * Test that writing into a destination that holds an old image gives the same result as
+   * applying the operation to a new image.
+   */
+  @Test
+  public void testApplyIntoDestination() {
+    Image image = TestImages.gradient(30, 20);
+    ImageOperation<?>[] operations = {new Blur(), new Sepia(60), new GaussianBlur(5),
+        new CompressImage(50), new ColorCorrect(0), new AdjustLevel(20, 100, 230, 50),
+        new Flip(Direction.HORIZONTAL)};
+
+    for (ImageOperation<?> operation : operations) {
+      Image expected = (Image) operation.apply(image);
+      Image destination = TestImages.gradient(30, 20, 99);
+      Image actual = operation.apply(new Image[]{image}, destination);
+
+      assertSame(destination, actual);
+      for (int y = 0; y < 20; y++) {
+        for (int x = 0; x < 30; x++) {
+          assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+        }
+      }
+    }
+  }
+
+  /**
+   * Test that a destination of the wrong size is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testDestinationOfWrongSize() {
+    new Blur().apply(new Image[]{new Image(30, 20)}, new Image(20, 30));
+  }
+
+  /**
+   * Test that the input image cannot be the destination.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testDestinationIsInput() {
+    Image image = new Image(30, 20);
+    new Sepia().apply(new Image[]{image}, image);
+  }
+
+  /**
+   * Test that released images and arrays are handed out again for the same size only.
+   */
+  @Test
+  public void testReuse() {
+    BufferPool.clear();
+    Image image = new Image(12, 8);
+    BufferPool.releaseImage(image);
+
+    assertNotSame(image, BufferPool.acquireImage(8, 12));
+    assertSame(image, BufferPool.acquireImage(12, 8));
+    assertNotSame(image, BufferPool.acquireImage(12, 8));
+
+    double[] array = BufferPool.acquireDoubles(100);
+    assertEquals(128, array.length);
+    BufferPool.releaseDoubles(array);
+    assertSame(array, BufferPool.acquireDoubles(65));
+  }
+
+  /**
+   * Test that an image that a view reads through to is not recycled.
+   */
+  @Test
+  public void testViewedImageIsNotRecycled() {
+    BufferPool.clear();
+    Image image = new Image(12, 8);
+    image.flippedView(Direction.VERTICAL);
+    BufferPool.releaseImage(image);
+
+    assertNotSame(image, BufferPool.acquireImage(12, 8));
+  }
+}
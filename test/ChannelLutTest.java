@@ -0,0 +1,56 @@
+import static org.junit.Assert.assertEquals;
+
+import model.AdjustIntensity;
+import model.AdjustLevel;
+import model.ChannelLut;
+import model.ColorCorrect;
+import model.Image;
+import model.TestImages;
+import model.enums.Intensity;
+import org.junit.Test;
+
+/**
+ * JUnit test class for the ChannelLut class.
+ */
+public class ChannelLutTest {
+
+  /**
+   * Test that a composed chain of channel mappings gives the same image as applying the
+   * operations one after another.
+   */
+  @Test
+  public void testComposedChainMatchesSequentialOperations() {
+    Image image = TestImages.gradient(40, 30);
+    AdjustLevel levels = new AdjustLevel(20, 100, 230, 100);
+    AdjustIntensity brighten = new AdjustIntensity(25, Intensity.BRIGHTEN);
+    ColorCorrect colorCorrect = new ColorCorrect(100);
+
+    Image expected = colorCorrect.apply(brighten.apply(levels.apply(image)));
+    Image actual = ChannelLut.compose(image, levels, brighten, colorCorrect).apply(image);
+
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  /**
+   * Test that composing tables maps a value through both tables in order.
+   */
+  @Test
+  public void testAndThen() {
+    ChannelLut invert = ChannelLut.perChannel(v -> 255 - v, v -> v, v -> 0);
+    ChannelLut half = ChannelLut.perChannel(v -> v / 2, v -> v / 2, v -> v / 2);
+
+    assertEquals((127 << 16) | (50 << 8), invert.andThen(half).map(0x00642A));
+  }
+
+  /**
+   * Test that a table with a value outside the range 0-255 is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testOutOfRangeTable() {
+    ChannelLut.perChannel(v -> v + 1, v -> v, v -> v);
+  }
+}
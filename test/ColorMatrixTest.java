@@ -0,0 +1,136 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import model.ColorMatrix;
+import model.Image;
+import model.Sepia;
+import model.ValueIntensityLuma;
+import model.VisualizeComponents;
+import model.enums.Channel;
+import model.enums.Color;
+import org.junit.Test;
+
+/**
+ * JUnit test class for the ColorMatrix class.
+ */
+public class ColorMatrixTest {
+
+  /**
+   * Test that composing two transforms multiplies their matrices.
+   */
+  @Test
+  public void testThenComposesMatrices() {
+    ColorMatrix redToGrey = ColorMatrix.component(Color.RED).then(ColorMatrix.luma());
+    double[][] matrix = redToGrey.getMatrix();
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(0.2126, matrix[i][0], 1e-12);
+      assertEquals(0, matrix[i][1], 1e-12);
+      assertEquals(0, matrix[i][2], 1e-12);
+    }
+    assertEquals(0x1B1B1B, redToGrey.map(0x80FFFF));
+  }
+
+  /**
+   * Test that applying a composed transform gives the same image as applying both transforms
+   * when no intermediate value is clamped.
+   */
+  @Test
+  public void testComposedApplyMatchesSequentialApply() {
+    Image image = new Image(16, 16);
+    for (int y = 0; y < 16; y++) {
+      for (int x = 0; x < 16; x++) {
+        image.setRGB(x, y, (x * 16) << 16 | (y * 16) << 8 | (x * y));
+      }
+    }
+    ColorMatrix first = ColorMatrix.component(Color.GREEN);
+    ColorMatrix second = ColorMatrix.intensity();
+
+    Image expected = second.apply(first.apply(image));
+    Image actual = first.then(second).apply(image);
+
+    for (int y = 0; y < 16; y++) {
+      for (int x = 0; x < 16; x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  /**
+   * Test that every factory transform gives the same image as the operation it replaces, over all
+   * grey levels and a set of random pixels. Sepia and luma evaluate their weights in floating
+   * point, which can put a whole-number sum just below it, so they may be one level lower.
+   */
+  @Test
+  public void testFactoriesMatchOperations() {
+    Image image = createTestImage();
+
+    assertWithinOneLevel(new Sepia().apply(image), ColorMatrix.sepia().apply(image));
+    assertWithinOneLevel(new ValueIntensityLuma(Channel.LUMA).apply(image),
+        ColorMatrix.luma().apply(image));
+    assertSameImage(new ValueIntensityLuma(Channel.INTENSITY).apply(image),
+        ColorMatrix.intensity().apply(image));
+    for (Color color : Color.values()) {
+      assertSameImage(new VisualizeComponents(color).apply(image),
+          ColorMatrix.component(color).apply(image));
+    }
+  }
+
+  /**
+   * Test that the greyscale transforms leave every grey level unchanged.
+   */
+  @Test
+  public void testGreyscaleKeepsGreyLevels() {
+    for (int level = 0; level < 256; level++) {
+      int grey = (level << 16) | (level << 8) | level;
+      assertEquals(grey, ColorMatrix.luma().map(grey));
+      assertEquals(grey, ColorMatrix.intensity().map(grey));
+      assertEquals(grey, ColorMatrix.identity().map(grey));
+    }
+  }
+
+  /**
+   * Test that a matrix without three rows of four entries is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMatrix() {
+    new ColorMatrix(new double[][]{{1, 0, 0}, {0, 1, 0}, {0, 0, 1}});
+  }
+
+  // Every grey level in the first row, and random pixels in the rest
+  private Image createTestImage() {
+    Image image = new Image(256, 64);
+    Random random = new Random(42);
+    for (int x = 0; x < 256; x++) {
+      image.setRGB(x, 0, (x << 16) | (x << 8) | x);
+    }
+    for (int y = 1; y < 64; y++) {
+      for (int x = 0; x < 256; x++) {
+        image.setRGB(x, y, random.nextInt(1 << 24));
+      }
+    }
+    return image;
+  }
+
+  private void assertWithinOneLevel(Image expected, Image actual) {
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        for (int shift = 0; shift <= 16; shift += 8) {
+          int difference = ((actual.getRGB(x, y) >> shift) & 0xFF)
+              - ((expected.getRGB(x, y) >> shift) & 0xFF);
+          assertTrue("Difference " + difference + " at (" + x + ", " + y + ")",
+              difference == 0 || difference == 1);
+        }
+      }
+    }
+  }
+
+  private void assertSameImage(Image expected, Image actual) {
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+}
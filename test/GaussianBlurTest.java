@@ -0,0 +1,63 @@
+import static org.junit.Assert.assertEquals;
+
+import model.GaussianBlur;
+import model.Image;
+import org.junit.Test;
+
+/**
+ * JUnit test class for the GaussianBlur class.
+ */
+public class GaussianBlurTest {
+
+  /**
+   * Test that blurring a flat image leaves it unchanged, both for a small blur that uses the
+   * sampled kernel and for a large blur that uses stacked box blurs.
+   */
+  @Test
+  public void testFlatImageIsUnchanged() {
+    Image image = new Image(40, 25);
+    for (int y = 0; y < 25; y++) {
+      for (int x = 0; x < 40; x++) {
+        image.setRGB(x, y, 0x336699);
+      }
+    }
+
+    for (double sigma : new double[]{1.5, 12}) {
+      Image blurred = new GaussianBlur(sigma).apply(image);
+      for (int y = 0; y < 25; y++) {
+        for (int x = 0; x < 40; x++) {
+          assertEquals(0x336699, blurred.getRGB(x, y));
+        }
+      }
+    }
+  }
+
+  /**
+   * Test that only the columns left of the split are blurred and the split column is black.
+   */
+  @Test
+  public void testSplit() {
+    Image image = new Image(20, 10);
+    for (int y = 0; y < 10; y++) {
+      for (int x = 0; x < 20; x++) {
+        image.setRGB(x, y, ((x + y) % 2 == 0) ? 0xFFFFFF : 0);
+      }
+    }
+
+    Image blurred = new GaussianBlur(8, 50).apply(image);
+
+    assertEquals(0, blurred.getRGB(10, 4));
+    assertEquals(image.getRGB(15, 4), blurred.getRGB(15, 4));
+    assertEquals(image.getRGB(16, 4), blurred.getRGB(16, 4));
+    int grey = blurred.getRGB(4, 4) & 0xFF;
+    assertEquals(128, grey, 8);
+  }
+
+  /**
+   * Test that a non-positive sigma is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSigma() {
+    new GaussianBlur(0);
+  }
+}
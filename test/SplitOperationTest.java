@@ -7,9 +7,15 @@ import controller.ImageUtil;
 
 import java.io.IOException;
 
+import model.AdjustLevel;
 import model.Image;
+import model.ImageOperation;
 import model.Pixel;
 import model.Blur;
+import model.Sepia;
+import model.TestImages;
+import model.ValueIntensityLuma;
+import model.enums.Channel;
 
 import org.junit.Test;
 
@@ -73,4 +79,60 @@ public class SplitOperationTest {
       }
     }
   }
+
+  /**
+   * Test that split operations match the full operation left of the split line, draw the line
+   * black and leave the input as it is right of it.
+   */
+  @Test
+  public void testSplitMatchesFullOperation() {
+    Image input = TestImages.random(40, 12, 11);
+    int splitPercentage = 25;
+    int splitPos = (int) ((double) input.getWidth() * (splitPercentage / 100.0));
+    ImageOperation<?>[][] operations = {
+        {new Sepia(splitPercentage), new Sepia(100)},
+        {new ValueIntensityLuma(Channel.VALUE, splitPercentage),
+            new ValueIntensityLuma(Channel.VALUE, 100)},
+        {new ValueIntensityLuma(Channel.LUMA, splitPercentage),
+            new ValueIntensityLuma(Channel.LUMA, 100)},
+        {new Blur(splitPercentage), new Blur(100)},
+        {new AdjustLevel(20, 100, 220, splitPercentage), new AdjustLevel(20, 100, 220, 100)}};
+
+    for (ImageOperation<?>[] pair : operations) {
+      Image split = (Image) pair[0].apply(input);
+      Image full = (Image) pair[1].apply(input);
+      for (int y = 0; y < input.getHeight(); y++) {
+        for (int x = 0; x < input.getWidth(); x++) {
+          int expected;
+          if (x < splitPos) {
+            expected = full.getRGB(x, y);
+          } else if (x == splitPos) {
+            expected = 0;
+          } else {
+            expected = input.getRGB(x, y);
+          }
+          assertEquals(pair[0].getClass().getSimpleName(), expected, split.getRGB(x, y));
+        }
+      }
+    }
+  }
+
+  /**
+   * Test that a split operation only processes the pixels up to its split line, so that a 10%
+   * split costs about 10% of the full operation.
+   */
+  @Test
+  public void testSplitProcessesOnlyAffectedColumns() {
+    Image input = TestImages.random(100, 20, 11);
+    int[] processed = new int[1];
+    ValueIntensityLuma value = new ValueIntensityLuma(Channel.VALUE, 10) {
+      @Override
+      protected int processPixel(int rgb, int i, int j, int width) {
+        processed[0]++;
+        return super.processPixel(rgb, i, j, width);
+      }
+    };
+    value.apply(input);
+    assertEquals(11 * 20, processed[0]);
+  }
 }
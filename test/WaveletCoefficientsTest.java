@@ -0,0 +1,154 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import model.CompressImage;
+import model.CompressionSweep;
+import model.Image;
+import model.TestImages;
+import model.WaveletCoefficients;
+import model.WaveletFile;
+import org.junit.Test;
+
+/**
+ * JUnit test class for the WaveletCoefficients class.
+ */
+public class WaveletCoefficientsTest {
+
+  /**
+   * Gets the mean of one channel over the block of the image that a reduced pixel covers.
+   */
+  private static double blockMean(Image image, int x, int y, int stride, int shift) {
+    double sum = 0;
+    int count = 0;
+    for (int i = y * stride; i < Math.min(image.getHeight(), (y + 1) * stride); i++) {
+      for (int j = x * stride; j < Math.min(image.getWidth(), (x + 1) * stride); j++) {
+        sum += (image.getRGB(j, i) >> shift) & 0xFF;
+        count++;
+      }
+    }
+    return sum / count;
+  }
+
+  /**
+   * Test that the full resolution gives back the image.
+   */
+  @Test
+  public void testFullResolution() {
+    Image image = TestImages.gradient(37, 23);
+    Image reconstructed = WaveletCoefficients.of(image).reconstruct();
+    for (int y = 0; y < 23; y++) {
+      for (int x = 0; x < 37; x++) {
+        assertEquals(image.getRGB(x, y), reconstructed.getRGB(x, y));
+      }
+    }
+  }
+
+  /**
+   * Test that every reduced resolution holds the means of the blocks of the image, including the
+   * blocks cut off by the right and bottom edges.
+   */
+  @Test
+  public void testReducedResolutions() {
+    Image image = TestImages.gradient(37, 23);
+    WaveletCoefficients coefficients = WaveletCoefficients.of(image);
+    assertEquals(6, coefficients.getLevels());
+
+    for (int level = 1; level <= coefficients.getLevels(); level++) {
+      int stride = 1 << level;
+      Image reduced = coefficients.reconstruct(level);
+      assertEquals((37 + stride - 1) / stride, reduced.getWidth());
+      assertEquals((23 + stride - 1) / stride, reduced.getHeight());
+      for (int y = 0; y < reduced.getHeight(); y++) {
+        for (int x = 0; x < reduced.getWidth(); x++) {
+          for (int shift = 0; shift < 24; shift += 8) {
+            assertEquals(blockMean(image, x, y, stride, shift),
+                (reduced.getRGB(x, y) >> shift) & 0xFF, 0.5 + 1e-9);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Test that a narrow image stops shrinking along its short side.
+   */
+  @Test
+  public void testNarrowImage() {
+    Image reduced = WaveletCoefficients.of(TestImages.gradient(4, 64)).reconstruct(4);
+    assertEquals(1, reduced.getWidth());
+    assertEquals(4, reduced.getHeight());
+  }
+
+  /**
+   * Test that a reduced image can be read from the coefficients stored in a wavelet file.
+   */
+  @Test
+  public void testReducedFromFile() throws IOException {
+    Image image = TestImages.gradient(64, 48);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    WaveletFile.write(image, out);
+    WaveletCoefficients coefficients = WaveletFile.readCoefficients(
+        new ByteArrayInputStream(out.toByteArray()));
+
+    Image reduced = coefficients.reconstruct(2);
+    Image expected = WaveletCoefficients.of(image).reconstruct(2);
+    assertEquals(16, reduced.getWidth());
+    assertEquals(12, reduced.getHeight());
+    for (int y = 0; y < 12; y++) {
+      for (int x = 0; x < 16; x++) {
+        for (int shift = 0; shift < 24; shift += 8) {
+          int difference = ((expected.getRGB(x, y) >> shift) & 0xFF)
+              - ((reduced.getRGB(x, y) >> shift) & 0xFF);
+          assertTrue(Math.abs(difference) <= 1);
+        }
+      }
+    }
+  }
+
+  /**
+   * Test that compressing by several percentages from the same coefficients, by themselves or kept
+   * for the image, gives the same images as compressing the image by each percentage on its own.
+   * A view of the image is compressed without keeping its coefficients.
+   */
+  @Test
+  public void testCompressionSweep() {
+    Image image = TestImages.gradient(37, 23);
+    Image view = image.croppedView(0, 0, 37, 23);
+    double[] percentages = {0, 10, 50, 90, 99, 100};
+    List<Image> fromCoefficients = WaveletCoefficients.of(image).compress(percentages);
+    List<Image> fromOperation = new CompressionSweep(percentages).apply(image);
+
+    assertEquals(percentages.length, fromCoefficients.size());
+    for (int i = 0; i < percentages.length; i++) {
+      Image expected = new CompressImage(percentages[i]).apply(view);
+      Image fromKept = new CompressImage(percentages[i]).apply(image);
+      for (int y = 0; y < 23; y++) {
+        for (int x = 0; x < 37; x++) {
+          assertEquals(expected.getRGB(x, y), fromCoefficients.get(i).getRGB(x, y));
+          assertEquals(expected.getRGB(x, y), fromOperation.get(i).getRGB(x, y));
+          assertEquals(expected.getRGB(x, y), fromKept.getRGB(x, y));
+        }
+      }
+    }
+  }
+
+  /**
+   * Test that a percentage out of range is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testPercentageOutOfRange() {
+    new CompressionSweep(10, 120);
+  }
+
+  /**
+   * Test that a level beyond the coarsest is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testLevelOutOfRange() {
+    WaveletCoefficients.of(TestImages.gradient(8, 8)).reconstruct(4);
+  }
+}
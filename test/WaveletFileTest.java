@@ -0,0 +1,139 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import controller.ImageUtil;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import model.CompressImage;
+import model.Image;
+import model.TestImages;
+import model.WaveletFile;
+import org.junit.Test;
+
+/**
+ * JUnit test class for the WaveletFile class.
+ */
+public class WaveletFileTest {
+
+  private static byte[] write(Image image, double percentage) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    WaveletFile.write(image, out, percentage);
+    return out.toByteArray();
+  }
+
+  private static double meanSquaredError(Image expected, Image actual) {
+    double sum = 0;
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        int a = expected.getRGB(x, y);
+        int b = actual.getRGB(x, y);
+        for (int shift = 0; shift < 24; shift += 8) {
+          int difference = ((a >> shift) & 0xFF) - ((b >> shift) & 0xFF);
+          sum += difference * difference;
+        }
+      }
+    }
+    return sum / (3.0 * expected.getWidth() * expected.getHeight());
+  }
+
+  private static void assertClose(Image expected, Image actual, int tolerance) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        int a = expected.getRGB(x, y);
+        int b = actual.getRGB(x, y);
+        for (int shift = 0; shift < 24; shift += 8) {
+          int difference = Math.abs(((a >> shift) & 0xFF) - ((b >> shift) & 0xFF));
+          assertTrue("Pixel " + x + "," + y + " differs by " + difference,
+              difference <= tolerance);
+        }
+      }
+    }
+  }
+
+  /**
+   * Test that an image written with all of its coefficients reads back within the rounding of
+   * the coefficients, at most 4 pixel values, for square and rectangular images.
+   */
+  @Test
+  public void testRoundTrip() throws IOException {
+    int[][] sizes = {{1, 1}, {16, 16}, {37, 23}, {5, 64}};
+    for (int[] size : sizes) {
+      Image image = TestImages.gradient(size[0], size[1]);
+      Image read = WaveletFile.read(new ByteArrayInputStream(write(image, 0)));
+      assertClose(image, read, 4);
+    }
+  }
+
+  /**
+   * Test that an image written with a compression percentage reads back as about the compressed
+   * image, in a file that shrinks as the percentage grows. The quantization of the coefficients
+   * that are kept adds at most a hundredth of the squared error of the compression itself.
+   */
+  @Test
+  public void testCompressedWrite() throws IOException {
+    Image image = TestImages.gradient(64, 40);
+    int[] sizes = new int[4];
+    double[] percentages = {0, 50, 90, 99};
+    for (int i = 0; i < percentages.length; i++) {
+      byte[] file = write(image, percentages[i]);
+      Image read = WaveletFile.read(new ByteArrayInputStream(file));
+      Image compressed = new CompressImage(percentages[i]).apply(image);
+      double quantizationError = meanSquaredError(compressed, read);
+      assertTrue("Quantization error " + quantizationError + " at " + percentages[i] + "%",
+          quantizationError <= Math.max(1, meanSquaredError(image, compressed) / 100));
+      sizes[i] = file.length;
+    }
+    // Padding and the smooth gradient may leave half of the coefficients zero already
+    assertTrue(sizes[1] <= sizes[0]);
+    assertTrue(sizes[2] < sizes[1]);
+    assertTrue(sizes[3] < sizes[2]);
+  }
+
+  /**
+   * Test that a photograph written compressed takes less space than the compressed image saved as
+   * a PNG, at typical percentages.
+   */
+  @Test
+  public void testSmallerThanPng() throws IOException {
+    Image image = ImageUtil.readJPGorPNG("res/koala_istock.jpeg");
+    for (double percentage : new double[]{50, 90, 95}) {
+      Image compressed = new CompressImage(percentage).apply(image);
+      BufferedImage buffered = new BufferedImage(compressed.getWidth(), compressed.getHeight(),
+          BufferedImage.TYPE_INT_RGB);
+      for (int y = 0; y < compressed.getHeight(); y++) {
+        for (int x = 0; x < compressed.getWidth(); x++) {
+          buffered.setRGB(x, y, compressed.getRGB(x, y));
+        }
+      }
+      ByteArrayOutputStream png = new ByteArrayOutputStream();
+      ImageIO.write(buffered, "png", png);
+
+      int size = write(image, percentage).length;
+      assertTrue(percentage + "%: " + size + " bytes against " + png.size() + " as PNG",
+          size < png.size());
+    }
+  }
+
+  /**
+   * Test that a stream in another format is rejected.
+   */
+  @Test(expected = IOException.class)
+  public void testNotAWaveletFile() throws IOException {
+    WaveletFile.read(new ByteArrayInputStream("P3\n1 1\n255\n0 0 0\n".getBytes()));
+  }
+
+  /**
+   * Test that a truncated file is rejected.
+   */
+  @Test(expected = IOException.class)
+  public void testTruncatedFile() throws IOException {
+    byte[] file = write(TestImages.gradient(32, 32), 0);
+    ByteArrayInputStream in = new ByteArrayInputStream(file, 0, file.length / 2);
+    WaveletFile.read(in);
+  }
+}
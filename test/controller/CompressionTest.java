@@ -8,6 +8,7 @@ import java.io.IOException;
 import model.Image;
 import model.Pixel;
 import model.CompressImage;
+import model.TestImages;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -188,5 +189,50 @@ public class CompressionTest {
     assertEquals(nonSquareImage.getWidth(), compressedNonSquare.getWidth());
   }
 
+  /**
+   * Test the results of compressing a non-square image, which is padded to 4x2 rather than to a
+   * 4x4 square, so the percentage is of the 24 coefficients of the padded channels: 25 percent
+   * zeroes the 6 smallest, the differences within the first two columns, and 50 percent the 12
+   * smallest, which also averages the third column with its padding.
+   */
+  @Test
+  public void testNonSquareResults() {
+    Image image = createNonSquareImage();
+
+    assertPixels(new int[]{0x283848, 0x283848, 0x708090, 0xB8C8D8, 0xB8C8D8, 0x0F1F2F},
+        new CompressImage(25).apply(image));
+    assertPixels(new int[]{0x283848, 0x283848, 0x3F5060, 0xB8C8D8, 0xB8C8D8, 0x3F5060},
+        new CompressImage(50).apply(image));
+  }
+
+  /**
+   * Test that compressing by 0 percent leaves an image unchanged, also when no padding gives the
+   * transform zero coefficients to drop instead.
+   */
+  @Test
+  public void testZeroPercentageKeepsImage() {
+    for (Image image : new Image[]{TestImages.random(4, 4, 1), createNonSquareImage()}) {
+      Image compressed = new CompressImage(0).apply(image);
+      for (int y = 0; y < image.getHeight(); y++) {
+        for (int x = 0; x < image.getWidth(); x++) {
+          assertEquals(image.getRGB(x, y), compressed.getRGB(x, y));
+        }
+      }
+    }
+  }
 
+  private Image createNonSquareImage() {
+    Image image = new Image(3, 2);
+    int[] pixels = {0x102030, 0x405060, 0x708090, 0xA0B0C0, 0xD0E0F0, 0x0F1F2F};
+    for (int i = 0; i < pixels.length; i++) {
+      image.setRGB(i % 3, i / 3, pixels[i]);
+    }
+    return image;
+  }
+
+  private void assertPixels(int[] expected, Image image) {
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], image.getRGB(i % 3, i / 3));
+    }
+  }
 }
@@ -0,0 +1,90 @@
+package controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+import model.Image;
+import org.junit.Test;
+
+/**
+ * JUnit test class for the ImageUtil class.
+ */
+public class ImageUtilTest {
+
+  private static void assertSamePixels(int[][] expected, Image actual) {
+    assertEquals(expected.length, actual.getHeight());
+    assertEquals(expected[0].length, actual.getWidth());
+    for (int y = 0; y < expected.length; y++) {
+      for (int x = 0; x < expected[y].length; x++) {
+        assertEquals(expected[y][x], actual.getRGB(x, y));
+      }
+    }
+  }
+
+  /**
+   * Test that a PPM file with comments is read the same on the heap and mapped.
+   */
+  @Test
+  public void testReadPPM() throws IOException {
+    Path file = Files.createTempFile("test", ".ppm");
+    try {
+      Files.write(file, ("P3\n# a comment\n3 2 # size\n255\n"
+          + "255 0 0  0 255 0  0 0 255\n"
+          + "# between rows\n"
+          + "16 32 48 255 255 255 0 0 0").getBytes(StandardCharsets.US_ASCII));
+      int[][] expected = {{0xFF0000, 0x00FF00, 0x0000FF}, {0x102030, 0xFFFFFF, 0x000000}};
+
+      assertSamePixels(expected, ImageUtil.readPPM(file.toString()));
+      assertSamePixels(expected, ImageUtil.readPPM(file.toString(), true));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  /**
+   * Test that a PPM file that ends early is reported as an IOException.
+   */
+  @Test(expected = IOException.class)
+  public void testReadTruncatedPPM() throws IOException {
+    Path file = Files.createTempFile("test", ".ppm");
+    try {
+      Files.write(file, "P3\n2 2\n255\n1 2 3 4 5 6\n".getBytes(StandardCharsets.US_ASCII));
+      ImageUtil.readPPM(file.toString(), true);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  /**
+   * Test that a PNG file is read the same on the heap and mapped.
+   */
+  @Test
+  public void testReadPNG() throws IOException {
+    int[][] expected = new int[7][5];
+    BufferedImage png = new BufferedImage(5, 7, BufferedImage.TYPE_INT_RGB);
+    for (int y = 0; y < 7; y++) {
+      for (int x = 0; x < 5; x++) {
+        expected[y][x] = (x * 50) << 16 | (y * 30) << 8 | (x + y) * 10;
+        png.setRGB(x, y, expected[y][x]);
+      }
+    }
+    Path file = Files.createTempFile("test", ".png");
+    try {
+      ImageIO.write(png, "png", file.toFile());
+
+      Image heap = ImageUtil.readJPGorPNG(file.toString());
+      Image mapped = ImageUtil.readJPGorPNG(file.toString(), true);
+      assertNotNull(mapped);
+      assertSamePixels(expected, heap);
+      assertSamePixels(expected, mapped);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package controller;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import model.AdjustIntensity;
+import model.AdjustLevel;
+import model.Image;
+import model.TestImages;
+import model.Sepia;
+import model.ValueIntensityLuma;
+import model.enums.Channel;
+import model.enums.Intensity;
+import org.junit.Test;
+
+/**
+ * JUnit test class for the pointwise commands of the CommandExecutor class, whose results are
+ * fused views of their sources.
+ */
+public class PointwiseCommandTest {
+
+  private static void execute(String line) throws IOException {
+    new CommandExecutor(line).executeCommand();
+  }
+
+  private static void assertSamePixels(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  private static Image copyOf(Image image) {
+    Image copy = new Image(image.getWidth(), image.getHeight());
+    int[] row = new int[image.getWidth()];
+    for (int y = 0; y < image.getHeight(); y++) {
+      image.getRow(y, row);
+      copy.setRow(y, row);
+    }
+    return copy;
+  }
+
+  /**
+   * Test that a fused chain of pointwise commands gives the same result as running each operation
+   * in turn, and that the intermediate results read the same as well.
+   */
+  @Test
+  public void testFusedChainMatchesSequential() throws IOException {
+    Image source = TestImages.random(37, 23, 7);
+    ImageStorage.associateImageWithName("fused-source", source);
+    execute("brighten 25 fused-source fused-bright");
+    execute("sepia fused-bright fused-sepia 100");
+    execute("levels-adjust 20 128 230 fused-sepia fused-levels");
+    execute("luma fused-levels fused-luma 100");
+
+    Image brightened = new AdjustIntensity(25, Intensity.BRIGHTEN).apply(source);
+    Image sepia = new Sepia().apply(brightened);
+    Image levels = new AdjustLevel(20, 128, 230, 0).apply(sepia);
+    Image luma = new ValueIntensityLuma(Channel.LUMA, 100).apply(levels);
+
+    assertSamePixels(luma, ImageStorage.getImageByName("fused-luma"));
+    assertSamePixels(levels, ImageStorage.getImageByName("fused-levels"));
+    assertSamePixels(sepia, ImageStorage.getImageByName("fused-sepia"));
+    assertSamePixels(brightened, ImageStorage.getImageByName("fused-bright"));
+  }
+
+  /**
+   * Test that a view read by a second command is materialized, so that it no longer changes with
+   * its source.
+   */
+  @Test
+  public void testSecondReaderMaterializesView() throws IOException {
+    Image source = TestImages.random(16, 9, 7);
+    ImageStorage.associateImageWithName("shared-source", source);
+    execute("sepia shared-source shared-sepia 100");
+    execute("luma shared-sepia shared-first");
+    execute("brighten 10 shared-sepia shared-second");
+    Image expected = copyOf(ImageStorage.getImageByName("shared-sepia"));
+
+    source.setRGB(3, 4, 0xFFFFFF);
+    assertSamePixels(expected, ImageStorage.getImageByName("shared-sepia"));
+  }
+
+  /**
+   * Test that a split levels adjustment draws its split line in the view itself, so the result
+   * stays a lazy view of its source, and that a split of 100 percent draws no line.
+   */
+  @Test
+  public void testLevelsAdjustSplitStaysLazy() throws IOException {
+    Image source = TestImages.random(20, 6, 7);
+    ImageStorage.associateImageWithName("levels-source", source);
+    execute("levels-adjust 10 120 240 levels-source levels-split 50");
+    execute("levels-adjust 10 120 240 levels-source levels-full 100");
+
+    source.setRow(2, new int[20]);
+    Image adjusted = ImageStorage.getImageByName("levels-split");
+    assertSamePixels(new AdjustLevel(10, 120, 240, 50).apply(source), adjusted);
+    for (int y = 0; y < adjusted.getHeight(); y++) {
+      assertEquals(0, adjusted.getRGB(10, y));
+    }
+    assertSamePixels(new AdjustLevel(10, 120, 240, 100).apply(source),
+        ImageStorage.getImageByName("levels-full"));
+  }
+}
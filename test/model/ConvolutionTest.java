@@ -0,0 +1,232 @@
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import model.enums.EdgePolicy;
+import org.junit.Test;
+
+/**
+ * JUnit test class for the Convolution class, bounding the deviation of the fixed-point path from
+ * a floating-point reference convolution.
+ */
+public class ConvolutionTest {
+
+  private static final int MAX_DEVIATION = 1;
+
+  /**
+   * Test that the dyadic blur and sharpen kernels are run in fixed point.
+   */
+  @Test
+  public void testDyadicKernelsUseFixedPoint() {
+    assertTrue(new Convolution(new Blur().getKernel(), null, EdgePolicy.ZERO).isFixedPoint());
+    assertTrue(new Convolution(new Sharpen().getKernel(), null, EdgePolicy.ZERO).isFixedPoint());
+  }
+
+  /**
+   * Test that a kernel with weights that are not multiples of 2^-16 stays in floating point.
+   */
+  @Test
+  public void testNonDyadicKernelUsesFloatingPoint() {
+    double[][] kernel = {
+        {1.0 / 9, 1.0 / 9, 1.0 / 9},
+        {1.0 / 9, 1.0 / 9, 1.0 / 9},
+        {1.0 / 9, 1.0 / 9, 1.0 / 9}
+    };
+    assertNull(Convolution.toFixedPoint(kernel));
+    assertNotNull(Convolution.toFixedPoint(new Blur().getKernel()));
+  }
+
+  /**
+   * Test the blur filter against the floating-point reference for every edge policy.
+   */
+  @Test
+  public void testBlurWithinBoundOfFloatingPoint() {
+    for (EdgePolicy policy : EdgePolicy.values()) {
+      assertWithinBound(new Blur(100, policy), policy);
+    }
+  }
+
+  /**
+   * Test the sharpen filter against the floating-point reference for every edge policy.
+   */
+  @Test
+  public void testSharpenWithinBoundOfFloatingPoint() {
+    for (EdgePolicy policy : EdgePolicy.values()) {
+      assertWithinBound(new Sharpen(100, policy), policy);
+    }
+  }
+
+  /**
+   * Test that a rank-1 kernel is split into a column and a row kernel whose outer product is the
+   * kernel, and that blur is split this way.
+   */
+  @Test
+  public void testSeparateRankOneKernel() {
+    double[] column = {1, -2, 0.5, 3, 1};
+    double[] row = {0.25, 0, -1, 2, 0.5};
+    double[][] kernel = new double[5][5];
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 5; j++) {
+        kernel[i][j] = column[i] * row[j];
+      }
+    }
+    assertOuterProduct(kernel, Convolution.separate(kernel));
+
+    double[][] blur = new Blur().getKernel();
+    double[][] split = new Blur().getSeparableKernel();
+    assertOuterProduct(blur, split);
+    assertArrayEquals(new double[]{0.125, 0.25, 0.125}, split[0], 1e-12);
+    assertArrayEquals(new double[]{0.5, 1, 0.5}, split[1], 1e-12);
+  }
+
+  /**
+   * Test that kernels of rank above one, and the all-zero kernel, are not split.
+   */
+  @Test
+  public void testSeparateRejectsOtherKernels() {
+    assertNull(Convolution.separate(new Sharpen().getKernel()));
+    assertNull(Convolution.separate(new double[][]{{1, 0}, {0, 1}}));
+    assertNull(Convolution.separate(new double[][]{{1, 2, 3}, {2, 4, 6}, {3, 6, 9.5}}));
+    assertNull(Convolution.separate(new double[3][3]));
+  }
+
+  /**
+   * Test that coordinates inside the image are kept by every policy and that outside ones are
+   * clamped, mirrored without repeating the edge, wrapped or dropped.
+   */
+  @Test
+  public void testResolve() {
+    for (EdgePolicy policy : EdgePolicy.values()) {
+      for (int i = 0; i < 4; i++) {
+        assertEquals(i, Convolution.resolve(i, 4, policy));
+      }
+    }
+    int[] indices = {-7, -5, -4, -3, -2, -1, 4, 5, 6, 7, 10};
+    int[] clamped = {0, 0, 0, 0, 0, 0, 3, 3, 3, 3, 3};
+    int[] mirrored = {1, 1, 2, 3, 2, 1, 2, 1, 0, 1, 2};
+    int[] wrapped = {1, 3, 0, 1, 2, 3, 0, 1, 2, 3, 2};
+    for (int i = 0; i < indices.length; i++) {
+      assertEquals(clamped[i], Convolution.resolve(indices[i], 4, EdgePolicy.CLAMP));
+      assertEquals(mirrored[i], Convolution.resolve(indices[i], 4, EdgePolicy.MIRROR));
+      assertEquals(wrapped[i], Convolution.resolve(indices[i], 4, EdgePolicy.WRAP));
+      assertEquals(-1, Convolution.resolve(indices[i], 4, EdgePolicy.ZERO));
+    }
+    for (int index : new int[]{-3, -1, 1, 2}) {
+      assertEquals(0, Convolution.resolve(index, 1, EdgePolicy.CLAMP));
+      assertEquals(0, Convolution.resolve(index, 1, EdgePolicy.MIRROR));
+      assertEquals(0, Convolution.resolve(index, 1, EdgePolicy.WRAP));
+    }
+  }
+
+  /**
+   * Test the MIRROR and WRAP borders with kernels that copy one neighbour, so that each output
+   * pixel is a known input pixel, through both the two-dimensional and the separable passes.
+   */
+  @Test
+  public void testMirrorAndWrapBorders() {
+    int width = 6;
+    int height = 4;
+    Image image = new Image(width, height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        image.setRGB(x, y, (x * 40) << 16 | (y * 60) << 8 | (x * 10 + y));
+      }
+    }
+    // Output (x, y) reads input (x - 2, y), and output (x, y) reads input (x, y - 1)
+    double[][] left = new double[5][5];
+    left[2][0] = 1;
+    double[][] up = new double[3][3];
+    up[0][1] = 1;
+
+    for (boolean separable : new boolean[]{false, true}) {
+      Image mirrorLeft = convolve(image, left, separable, EdgePolicy.MIRROR);
+      Image wrapLeft = convolve(image, left, separable, EdgePolicy.WRAP);
+      Image mirrorUp = convolve(image, up, separable, EdgePolicy.MIRROR);
+      Image wrapUp = convolve(image, up, separable, EdgePolicy.WRAP);
+      for (int y = 0; y < height; y++) {
+        assertEquals(image.getRGB(2, y), mirrorLeft.getRGB(0, y));
+        assertEquals(image.getRGB(1, y), mirrorLeft.getRGB(1, y));
+        assertEquals(image.getRGB(width - 2, y), wrapLeft.getRGB(0, y));
+        assertEquals(image.getRGB(width - 1, y), wrapLeft.getRGB(1, y));
+        for (int x = 2; x < width; x++) {
+          assertEquals(image.getRGB(x - 2, y), mirrorLeft.getRGB(x, y));
+          assertEquals(image.getRGB(x - 2, y), wrapLeft.getRGB(x, y));
+        }
+      }
+      for (int x = 0; x < width; x++) {
+        assertEquals(image.getRGB(x, 1), mirrorUp.getRGB(x, 0));
+        assertEquals(image.getRGB(x, height - 1), wrapUp.getRGB(x, 0));
+        for (int y = 1; y < height; y++) {
+          assertEquals(image.getRGB(x, y - 1), mirrorUp.getRGB(x, y));
+          assertEquals(image.getRGB(x, y - 1), wrapUp.getRGB(x, y));
+        }
+      }
+    }
+  }
+
+  private static void assertOuterProduct(double[][] kernel, double[][] split) {
+    assertNotNull(split);
+    for (int i = 0; i < kernel.length; i++) {
+      for (int j = 0; j < kernel.length; j++) {
+        assertEquals(kernel[i][j], split[0][i] * split[1][j], 1e-12);
+      }
+    }
+  }
+
+  private static Image convolve(Image image, double[][] kernel, boolean separable,
+      EdgePolicy policy) {
+    double[][] split = separable ? Convolution.separate(kernel) : null;
+    if (separable) {
+      assertNotNull(split);
+    }
+    Image output = new Image(image.getWidth(), image.getHeight());
+    new Convolution(kernel, split, policy).filterRows(image, output, 0, image.getHeight(),
+        image.getWidth());
+    return output;
+  }
+
+  private void assertWithinBound(AbstractFilter filter, EdgePolicy policy) {
+    for (int[] size : new int[][]{{1, 1}, {2, 3}, {7, 5}, {64, 48}}) {
+      Image image = TestImages.random(size[0], size[1], 42);
+      Image result = filter.apply(image);
+      double[][] kernel = filter.getKernel();
+      for (int y = 0; y < size[1]; y++) {
+        for (int x = 0; x < size[0]; x++) {
+          int expected = referencePixel(image, kernel, x, y, policy);
+          int actual = result.getRGB(x, y);
+          for (int shift = 0; shift <= 16; shift += 8) {
+            int deviation = Math.abs(((expected >> shift) & 0xFF) - ((actual >> shift) & 0xFF));
+            assertTrue("Deviation " + deviation + " at (" + x + ", " + y + ")",
+                deviation <= MAX_DEVIATION);
+          }
+        }
+      }
+    }
+  }
+
+  private int referencePixel(Image image, double[][] kernel, int x, int y, EdgePolicy policy) {
+    int offset = kernel.length / 2;
+    double[] sums = new double[3];
+    for (int ki = 0; ki < kernel.length; ki++) {
+      int pixelY = Convolution.resolve(y - offset + ki, image.getHeight(), policy);
+      for (int kj = 0; kj < kernel.length; kj++) {
+        int pixelX = Convolution.resolve(x - offset + kj, image.getWidth(), policy);
+        if (pixelX >= 0 && pixelY >= 0) {
+          int rgb = image.getRGB(pixelX, pixelY);
+          sums[0] += ((rgb >> 16) & 0xFF) * kernel[ki][kj];
+          sums[1] += ((rgb >> 8) & 0xFF) * kernel[ki][kj];
+          sums[2] += (rgb & 0xFF) * kernel[ki][kj];
+        }
+      }
+    }
+    int rgb = 0;
+    for (double sum : sums) {
+      rgb = (rgb << 8) | Math.min(255, Math.max(0, (int) sum));
+    }
+    return rgb;
+  }
+}
@@ -0,0 +1,97 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import model.enums.EdgePolicy;
+import org.junit.Test;
+
+/**
+ * JUnit test class for the FftConvolution class, comparing it with the direct convolution.
+ */
+public class FftConvolutionTest {
+
+  private static final int MAX_DEVIATION = 1;
+
+  private static double[][] createKernel(Random random) {
+    int size = FftConvolution.MIN_KERNEL_SIZE;
+    double[][] kernel = new double[size][size];
+    double sum = 0;
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        kernel[i][j] = random.nextDouble();
+        sum += kernel[i][j];
+      }
+    }
+    // A negative centre makes the kernel sharpen as well, so that results get clamped
+    double centre = -sum / 4;
+    sum += centre - kernel[size / 2][size / 2];
+    kernel[size / 2][size / 2] = centre;
+    for (double[] row : kernel) {
+      for (int j = 0; j < size; j++) {
+        row[j] /= sum;
+      }
+    }
+    return kernel;
+  }
+
+  private static void assertWithinBound(Image expected, Image actual) {
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        for (int shift = 0; shift <= 16; shift += 8) {
+          int deviation = Math.abs(((expected.getRGB(x, y) >> shift) & 0xFF)
+              - ((actual.getRGB(x, y) >> shift) & 0xFF));
+          assertTrue("Deviation " + deviation + " at (" + x + ", " + y + ")",
+              deviation <= MAX_DEVIATION);
+        }
+      }
+    }
+  }
+
+  /**
+   * Test that the transform gives the direct convolution of a large kernel that cannot be
+   * separated, for every edge policy and for images smaller than the kernel.
+   */
+  @Test
+  public void testMatchesDirectConvolution() {
+    Random random = new Random(7);
+    double[][] kernel = createKernel(random);
+    assertNull(Convolution.separate(kernel));
+    for (int[] size : new int[][]{{1, 1}, {3, 5}, {40, 23}}) {
+      Image image = TestImages.random(size[0], size[1], size[0]);
+      for (EdgePolicy policy : EdgePolicy.values()) {
+        Image direct = new Image(size[0], size[1]);
+        new Convolution(kernel, null, policy).filterRows(image, direct, 0, size[1], size[0]);
+        Image transformed = new Image(size[0], size[1]);
+        FftConvolution.filter(image, transformed, kernel, policy, size[0]);
+
+        assertWithinBound(direct, transformed);
+      }
+    }
+  }
+
+  /**
+   * Test that only the columns left of the split position are filtered, with a black line at the
+   * split position and the remaining columns left as they were.
+   */
+  @Test
+  public void testSplit() {
+    Random random = new Random(11);
+    double[][] kernel = createKernel(random);
+    Image image = TestImages.random(30, 12, 11);
+    Image direct = new Image(30, 12);
+    new Convolution(kernel, null, EdgePolicy.CLAMP).filterRows(image, direct, 0, 12, 17);
+    Image transformed = new Image(30, 12);
+    FftConvolution.filter(image, transformed, kernel, EdgePolicy.CLAMP, 17);
+
+    assertWithinBound(direct, transformed);
+    for (int y = 0; y < 12; y++) {
+      assertEquals(0, transformed.getRGB(17, y));
+      for (int x = 18; x < 30; x++) {
+        assertEquals(image.getRGB(x, y), transformed.getRGB(x, y));
+      }
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * JUnit test class for the HaarTransform class.
+ */
+public class HaarTransformTest {
+
+  private static double[] randomPlane(int length, long seed) {
+    Random random = new Random(seed);
+    double[] plane = new double[length];
+    for (int i = 0; i < length; i++) {
+      plane[i] = random.nextInt(256);
+    }
+    return plane;
+  }
+
+  /**
+   * Test that the inverse transform restores square and rectangular planes.
+   */
+  @Test
+  public void testRoundTrip() {
+    int[][] sizes = {{1, 1}, {8, 8}, {16, 2}, {2, 16}, {32, 8}, {1, 4}, {4, 1}};
+    for (int[] size : sizes) {
+      double[] original = randomPlane(size[0] * size[1], size[0] * 31 + size[1]);
+      double[] plane = original.clone();
+      HaarTransform.forward(plane, size[0], size[1]);
+      HaarTransform.inverse(plane, size[0], size[1]);
+      for (int i = 0; i < plane.length; i++) {
+        assertEquals(original[i], plane[i], 1e-9);
+      }
+    }
+  }
+
+  /**
+   * Test that a flat plane transforms to a single approximation coefficient at the origin, for
+   * both wide and tall planes.
+   */
+  @Test
+  public void testFlatPlaneHasOneCoefficient() {
+    int[][] sizes = {{16, 4}, {4, 16}};
+    for (int[] size : sizes) {
+      double[] plane = new double[size[0] * size[1]];
+      Arrays.fill(plane, 100);
+      HaarTransform.forward(plane, size[0], size[1]);
+      for (int i = 1; i < plane.length; i++) {
+        assertEquals(0, plane[i], 1e-9);
+      }
+      int levels = HaarTransform.levels(size[0], size[1]);
+      assertEquals(4, levels);
+      // Each one-dimensional step divides a flat value by the square root of two
+      int steps = Integer.numberOfTrailingZeros(size[0]) + Integer.numberOfTrailingZeros(size[1]);
+      assertEquals(100 / Math.pow(Math.sqrt(2), steps), plane[0], 1e-9);
+    }
+  }
+}
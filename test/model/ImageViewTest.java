@@ -0,0 +1,199 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import model.enums.Direction;
+import org.junit.Test;
+
+/**
+ * JUnit test class for the geometric views of Image.
+ */
+public class ImageViewTest {
+
+  private static final int WIDTH = 5;
+  private static final int HEIGHT = 3;
+
+  private static int pixel(int x, int y) {
+    return (x << 16) | (y << 8) | (x * 16 + y);
+  }
+
+  private static Image createImage() {
+    Image image = new Image(WIDTH, HEIGHT);
+    for (int y = 0; y < HEIGHT; y++) {
+      for (int x = 0; x < WIDTH; x++) {
+        image.setRGB(x, y, pixel(x, y));
+      }
+    }
+    return image;
+  }
+
+  private static void assertRows(Image view) {
+    int[] row = new int[view.getWidth()];
+    for (int y = 0; y < view.getHeight(); y++) {
+      view.getRow(y, row);
+      for (int x = 0; x < view.getWidth(); x++) {
+        assertEquals(view.getRGB(x, y), row[x]);
+      }
+    }
+  }
+
+  /**
+   * Test horizontal and vertical flips.
+   */
+  @Test
+  public void testFlippedView() {
+    Image image = createImage();
+    Image horizontal = image.flippedView(Direction.HORIZONTAL);
+    Image vertical = image.flippedView(Direction.VERTICAL);
+    assertEquals(WIDTH, horizontal.getWidth());
+    assertEquals(HEIGHT, vertical.getHeight());
+    for (int y = 0; y < HEIGHT; y++) {
+      for (int x = 0; x < WIDTH; x++) {
+        assertEquals(pixel(WIDTH - 1 - x, y), horizontal.getRGB(x, y));
+        assertEquals(pixel(x, HEIGHT - 1 - y), vertical.getRGB(x, y));
+      }
+    }
+    assertRows(horizontal);
+    assertRows(vertical);
+  }
+
+  /**
+   * Test that the flip views give the same result as the Flip operation.
+   */
+  @Test
+  public void testFlippedViewMatchesFlip() {
+    Image image = createImage();
+    for (Direction direction : new Direction[]{Direction.HORIZONTAL, Direction.VERTICAL}) {
+      Image expected = new Flip(direction).apply(image);
+      Image view = image.flippedView(direction);
+      for (int y = 0; y < HEIGHT; y++) {
+        for (int x = 0; x < WIDTH; x++) {
+          assertEquals(expected.getRGB(x, y), view.getRGB(x, y));
+        }
+      }
+    }
+  }
+
+  /**
+   * Test a clockwise quarter rotation, which swaps the width and height.
+   */
+  @Test
+  public void testRotatedView() {
+    Image rotated = createImage().rotatedView();
+    assertEquals(HEIGHT, rotated.getWidth());
+    assertEquals(WIDTH, rotated.getHeight());
+    for (int y = 0; y < WIDTH; y++) {
+      for (int x = 0; x < HEIGHT; x++) {
+        assertEquals(pixel(y, HEIGHT - 1 - x), rotated.getRGB(x, y));
+      }
+    }
+    assertRows(rotated);
+  }
+
+  /**
+   * Test a transpose along the main diagonal.
+   */
+  @Test
+  public void testTransposedView() {
+    Image transposed = createImage().transposedView();
+    assertEquals(HEIGHT, transposed.getWidth());
+    assertEquals(WIDTH, transposed.getHeight());
+    for (int y = 0; y < WIDTH; y++) {
+      for (int x = 0; x < HEIGHT; x++) {
+        assertEquals(pixel(y, x), transposed.getRGB(x, y));
+      }
+    }
+    assertRows(transposed);
+  }
+
+  /**
+   * Test a crop, and that crops outside the image are rejected.
+   */
+  @Test
+  public void testCroppedView() {
+    Image image = createImage();
+    Image cropped = image.croppedView(1, 1, 3, 2);
+    assertEquals(3, cropped.getWidth());
+    assertEquals(2, cropped.getHeight());
+    for (int y = 0; y < 2; y++) {
+      for (int x = 0; x < 3; x++) {
+        assertEquals(pixel(x + 1, y + 1), cropped.getRGB(x, y));
+      }
+    }
+    assertRows(cropped);
+
+    int[][] invalid = {{-1, 0, 2, 2}, {0, 0, 0, 1}, {3, 0, 3, 1}, {0, 2, 1, 2}};
+    for (int[] rectangle : invalid) {
+      try {
+        image.croppedView(rectangle[0], rectangle[1], rectangle[2], rectangle[3]);
+        throw new AssertionError("Crop should have been rejected");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  /**
+   * Test that views of views map straight to the original image, and that four rotations or two
+   * transposes give the original pixels back.
+   */
+  @Test
+  public void testViewsOfViews() {
+    Image image = createImage();
+    Image rotated = image.rotatedView().rotatedView().rotatedView().rotatedView();
+    Image transposed = image.transposedView().transposedView();
+    Image flipped = image.flippedView(Direction.HORIZONTAL).flippedView(Direction.VERTICAL);
+    Image croppedRotation = image.croppedView(1, 0, 3, 2).rotatedView();
+
+    for (int y = 0; y < HEIGHT; y++) {
+      for (int x = 0; x < WIDTH; x++) {
+        assertEquals(pixel(x, y), rotated.getRGB(x, y));
+        assertEquals(pixel(x, y), transposed.getRGB(x, y));
+        assertEquals(pixel(WIDTH - 1 - x, HEIGHT - 1 - y), flipped.getRGB(x, y));
+      }
+    }
+    assertEquals(2, croppedRotation.getWidth());
+    assertEquals(3, croppedRotation.getHeight());
+    for (int y = 0; y < 3; y++) {
+      for (int x = 0; x < 2; x++) {
+        assertEquals(pixel(y + 1, 1 - x), croppedRotation.getRGB(x, y));
+      }
+    }
+  }
+
+  /**
+   * Test that a view reads through to its source, so a write to the source after the view was
+   * taken shows in the view, while a materialized view keeps its pixels.
+   */
+  @Test
+  public void testWriteToSourceAfterView() {
+    Image image = createImage();
+    Image live = image.flippedView(Direction.HORIZONTAL);
+    Image kept = image.flippedView(Direction.HORIZONTAL);
+    kept.materialize();
+
+    image.setRGB(0, 1, 0xABCDEF);
+    assertEquals(0xABCDEF, live.getRGB(WIDTH - 1, 1));
+    assertEquals(pixel(0, 1), kept.getRGB(WIDTH - 1, 1));
+    assertFalse(image.isRecyclable());
+  }
+
+  /**
+   * Test that writing to a view materializes it, leaving the source unchanged.
+   */
+  @Test
+  public void testWriteToView() {
+    Image image = createImage();
+    Image view = image.transposedView();
+    Image viewOfView = view.rotatedView();
+    view.setRGB(0, 0, 0x123456);
+
+    assertEquals(0x123456, view.getRGB(0, 0));
+    assertEquals(pixel(1, 0), view.getRGB(0, 1));
+    assertEquals(pixel(0, 0), image.getRGB(0, 0));
+    assertTrue(viewOfView.getStore().isReadOnly());
+    assertEquals(pixel(0, 0), viewOfView.getRGB(WIDTH - 1, 0));
+  }
+}
@@ -0,0 +1,114 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.Test;
+
+/**
+ * JUnit test class for the MappedPixelStore class.
+ */
+public class MappedPixelStoreTest {
+
+  private static int countTemporaryFiles() throws IOException {
+    Path directory = Paths.get(System.getProperty("java.io.tmpdir"));
+    int count = 0;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "image*.rgb")) {
+      for (Path ignored : files) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Test that a mapped file keeps the pixels written to it.
+   */
+  @Test
+  public void testFileKeepsPixels() throws IOException {
+    Path file = Files.createTempFile("mapped", ".rgb");
+    try {
+      Image image = Image.mapped(file, 5, 3);
+      image.setRGB(4, 2, 0x123456);
+      image.setRow(0, new int[]{1, 2, 3, 4, 0xFF000005});
+
+      Image reopened = Image.mapped(file, 5, 3);
+      assertEquals(0x123456, reopened.getRGB(4, 2));
+      assertEquals(5, reopened.getRGB(4, 0));
+      assertEquals(0, reopened.getRGB(1, 1));
+      assertEquals(5L * 3 * Integer.BYTES, Files.size(file));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  /**
+   * Test that mapped results of operations are mapped too, and hold the same pixels as on the
+   * heap.
+   */
+  @Test
+  public void testResultsAreMapped() throws IOException {
+    Image heap = new Image(6, 4);
+    Image mapped = Image.mapped(6, 4);
+    for (int y = 0; y < 4; y++) {
+      for (int x = 0; x < 6; x++) {
+        heap.setRGB(x, y, x * 0x102030 + y * 0x010101);
+        mapped.setRGB(x, y, x * 0x102030 + y * 0x010101);
+      }
+    }
+    Image expected = new Sepia().apply(heap);
+    Image actual = new Sepia().apply(mapped);
+    assertTrue(actual.getStore() instanceof MappedPixelStore);
+    for (int y = 0; y < 4; y++) {
+      for (int x = 0; x < 6; x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  /**
+   * Test that images reconstructed from the wavelet coefficients of a mapped image are mapped too,
+   * at full and reduced resolution.
+   */
+  @Test
+  public void testReconstructionsAreMapped() throws IOException {
+    Image image = Image.mapped(6, 4);
+    image.copyFrom(TestImages.gradient(6, 4));
+    WaveletCoefficients coefficients = WaveletCoefficients.of(image);
+
+    Image full = coefficients.reconstruct();
+    assertTrue(full.getStore() instanceof MappedPixelStore);
+    assertTrue(coefficients.reconstruct(1).getStore() instanceof MappedPixelStore);
+    assertTrue(coefficients.compress(50).getStore() instanceof MappedPixelStore);
+    for (int y = 0; y < 4; y++) {
+      for (int x = 0; x < 6; x++) {
+        assertEquals(image.getRGB(x, y), full.getRGB(x, y));
+      }
+    }
+  }
+
+  /**
+   * Test that the temporary files of mapped images are released once the images are dropped.
+   */
+  @Test
+  public void testTemporaryFilesAreReleased() throws Exception {
+    int before = countTemporaryFiles();
+    Image image = Image.mapped(64, 64);
+    for (int i = 0; i < 20; i++) {
+      image = new Sepia().apply(image);
+    }
+    image = null;
+
+    long deadline = System.currentTimeMillis() + 10000;
+    while (countTemporaryFiles() > before && System.currentTimeMillis() < deadline) {
+      System.gc();
+      Thread.sleep(50);
+    }
+    assertTrue(countTemporaryFiles() <= before);
+  }
+}
@@ -0,0 +1,106 @@
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * JUnit test class for the PackedPixelStore class.
+ */
+public class PackedPixelStoreTest {
+
+  private static int[] row(Image image, int y) {
+    int[] row = new int[image.getWidth()];
+    image.getRow(y, row);
+    return row;
+  }
+
+  /**
+   * Test that rows that were never written read as black.
+   */
+  @Test
+  public void testUnwrittenRowsAreBlack() {
+    Image image = new Image(4, 3);
+    image.setRGB(1, 1, 0xABCDEF);
+    int[] row = {7, 7, 7, 7};
+    image.getRow(0, row);
+    assertArrayEquals(new int[4], row);
+    assertEquals(0, image.getRGB(3, 2));
+    assertArrayEquals(new int[]{0, 0xABCDEF, 0, 0}, row(image, 1));
+  }
+
+  /**
+   * Test that a pixel written to a shared row in one image never shows in the other.
+   */
+  @Test
+  public void testSetRGBOnSharedRow() {
+    Image source = TestImages.gradient(4, 3);
+    int[] original = row(source, 1);
+    Image copy = new Image(4, 3);
+    copy.shareRow(1, source, 1);
+
+    copy.setRGB(2, 1, 0x123456);
+    assertArrayEquals(original, row(source, 1));
+    assertEquals(0x123456, copy.getRGB(2, 1));
+
+    source.setRGB(0, 1, 0x654321);
+    assertEquals(original[0], copy.getRGB(0, 1));
+    assertEquals(0x654321, source.getRGB(0, 1));
+  }
+
+  /**
+   * Test that a whole row written to a shared row in either image never shows in the other.
+   */
+  @Test
+  public void testSetRowOnSharedRow() {
+    Image source = TestImages.gradient(4, 3);
+    int[] original = row(source, 2);
+    Image first = new Image(4, 3);
+    Image second = new Image(4, 3);
+    first.shareRow(0, source, 2);
+    second.shareRow(2, source, 2);
+
+    source.setRow(2, new int[]{1, 2, 3, 4});
+    assertArrayEquals(original, row(first, 0));
+    assertArrayEquals(original, row(second, 2));
+
+    first.setRow(0, new int[]{5, 6, 7, 8});
+    assertArrayEquals(original, row(second, 2));
+    assertArrayEquals(new int[]{1, 2, 3, 4}, row(source, 2));
+    assertArrayEquals(new int[]{5, 6, 7, 8}, row(first, 0));
+  }
+
+  /**
+   * Test that sharing a row that was never written shares black, and that writes after it stay
+   * apart.
+   */
+  @Test
+  public void testShareUnwrittenRow() {
+    Image source = new Image(3, 2);
+    Image copy = TestImages.gradient(3, 2);
+    copy.shareRow(1, source, 0);
+    assertArrayEquals(new int[3], row(copy, 1));
+
+    copy.setRGB(0, 1, 0x111111);
+    source.setRGB(2, 0, 0x222222);
+    assertArrayEquals(new int[]{0x111111, 0, 0}, row(copy, 1));
+    assertArrayEquals(new int[]{0, 0, 0x222222}, row(source, 0));
+  }
+
+  /**
+   * Test that the result of an operation that leaves rows unchanged is unaffected by later writes
+   * to its input, and the other way round.
+   */
+  @Test
+  public void testOperationResultIsIndependent() {
+    Image input = TestImages.gradient(5, 4);
+    Image result = new Sepia(0).apply(input);
+    int[] before = row(result, 3);
+    input.setRGB(1, 3, 0xFFFFFF);
+    assertArrayEquals(before, row(result, 3));
+
+    result.setRGB(2, 0, 0);
+    assertEquals(TestImages.gradient(5, 4).getRGB(2, 0), input.getRGB(2, 0));
+  }
+}
@@ -0,0 +1,136 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import model.enums.Color;
+import model.enums.EdgePolicy;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * JUnit test class for the ParallelExecutor class.
+ */
+public class ParallelExecutorTest {
+
+  private static final long DEFAULT_THRESHOLD = 1 << 18;
+
+  private static void assertSamePixels(Image expected, Image actual) {
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  @After
+  public void tearDown() {
+    ParallelExecutor.setPool(ForkJoinPool.commonPool());
+    ParallelExecutor.setThreshold(DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Test that bands run on several threads of a multi-threaded pool and cover every row once.
+   */
+  @Test
+  public void testBandsRunOnSeveralThreads() {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      ParallelExecutor.setPool(pool);
+      ParallelExecutor.setThreshold(0);
+      int height = 4096;
+      int[] visits = new int[height];
+      Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+      // Each band waits until a second band has started, which only another thread can do
+      CountDownLatch started = new CountDownLatch(2);
+      ParallelExecutor.forEachBand(1024, height, (fromRow, toRow) -> {
+        threads.add(Thread.currentThread());
+        started.countDown();
+        try {
+          started.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        for (int i = fromRow; i < toRow; i++) {
+          visits[i]++;
+        }
+      });
+      for (int visit : visits) {
+        assertEquals(1, visit);
+      }
+      assertTrue(threads.size() > 1);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Test that operations give the same result on a multi-threaded pool as sequentially.
+   */
+  @Test
+  public void testParallelMatchesSequential() {
+    Image image = TestImages.random(513, 301, 5);
+    ImageOperation<?>[] operations = {new Blur(), new Sharpen(70), new Sepia(),
+        new GaussianBlur(2.0, 6, 100, EdgePolicy.MIRROR), new CompressImage(60),
+        new AdjustLevel(10, 120, 240, 100)};
+
+    ParallelExecutor.setThreshold(Long.MAX_VALUE);
+    Image[] sequential = new Image[operations.length];
+    for (int i = 0; i < operations.length; i++) {
+      sequential[i] = (Image) operations[i].apply(image);
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      ParallelExecutor.setPool(pool);
+      ParallelExecutor.setThreshold(0);
+      for (int i = 0; i < operations.length; i++) {
+        assertSamePixels(sequential[i], (Image) operations[i].apply(image));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Test that parallel bands writing into a planar destination whose planes are shared with split
+   * components neither lose writes nor reach the components.
+   */
+  @Test
+  public void testPlanarDestinationWithSharedPlanes() {
+    Image image = TestImages.random(700, 400, 9);
+    Image expected = new Blur().apply(image);
+    ForkJoinPool pool = new ForkJoinPool(8);
+    try {
+      ParallelExecutor.setPool(pool);
+      ParallelExecutor.setThreshold(0);
+      for (int run = 0; run < 20; run++) {
+        Image source = TestImages.gradient(700, 400, run);
+        Image destination = Image.fromPlanes(700, 400, source.getPlane(Color.RED),
+            source.getPlane(Color.GREEN), source.getPlane(Color.BLUE));
+        List<Image> components = new SplitComponents().apply(destination);
+
+        new Blur().apply(new Image[]{image}, destination);
+        assertSamePixels(expected, destination);
+        assertNotSame(components.get(0).getPlane(Color.RED).data(),
+            destination.getPlane(Color.RED).data());
+        for (int y = 0; y < 400; y++) {
+          for (int x = 0; x < 700; x++) {
+            assertEquals(source.getRGB(x, y) & 0xFF0000, components.get(0).getRGB(x, y));
+            assertEquals(source.getRGB(x, y) & 0x0000FF, components.get(2).getRGB(x, y));
+          }
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,172 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import controller.ImageUtil;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import model.enums.Color;
+import org.junit.Test;
+
+/**
+ * JUnit test class for the PlanarPixelStore class and the planar images built on it.
+ */
+public class PlanarPixelStoreTest {
+
+  private static Image createImage(int width, int height) {
+    Image image = TestImages.gradient(width, height);
+    return Image.fromPlanes(width, height, image.getPlane(Color.RED),
+        image.getPlane(Color.GREEN), image.getPlane(Color.BLUE));
+  }
+
+  private static void assertSamePixels(Image expected, Image actual) {
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  /**
+   * Test that an image built from planes shares them and reads each channel from its plane, with
+   * missing planes reading as zero.
+   */
+  @Test
+  public void testFromPlanes() {
+    Image source = createImage(4, 3);
+    ChannelPlane red = source.getPlane(Color.RED);
+    ChannelPlane blue = source.getPlane(Color.BLUE);
+    Image image = Image.fromPlanes(4, 3, red, null, blue);
+
+    assertSame(red.data(), image.getPlane(Color.RED).data());
+    assertSame(blue.data(), image.getPlane(Color.BLUE).data());
+    assertNull(image.getPlane(Color.GREEN).data());
+    for (int y = 0; y < 3; y++) {
+      for (int x = 0; x < 4; x++) {
+        assertEquals(source.getRGB(x, y) & 0xFF00FF, image.getRGB(x, y));
+      }
+    }
+  }
+
+  /**
+   * Test that planes of the wrong size are rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testFromPlanesWithWrongSize() {
+    Image.fromPlanes(4, 4, createImage(4, 3).getPlane(Color.RED), null, null);
+  }
+
+  /**
+   * Test that writing to an image that shares a plane copies the plane first, in both directions.
+   */
+  @Test
+  public void testCopyOnWrite() {
+    Image source = createImage(4, 3);
+    Image original = createImage(4, 3);
+    ChannelPlane red = source.getPlane(Color.RED);
+    Image copy = Image.fromPlanes(4, 3, red, source.getPlane(Color.GREEN),
+        source.getPlane(Color.BLUE));
+
+    copy.setRGB(1, 1, 0x123456);
+    assertSamePixels(original, source);
+    assertEquals(0x123456, copy.getRGB(1, 1));
+
+    source.setRow(2, new int[]{0xFFFFFF, 0xFFFFFF, 0xFFFFFF, 0xFFFFFF});
+    assertEquals(original.getRGB(0, 2), copy.getRGB(0, 2));
+    assertEquals(original.getRGB(0, 2) >> 16, red.get(0, 2));
+    assertEquals(0xFFFFFF, source.getRGB(0, 2));
+  }
+
+  /**
+   * Test that splitting a planar image shares its planes with the components.
+   */
+  @Test
+  public void testSplitSharesPlanes() {
+    Image image = createImage(5, 2);
+    List<Image> components = new SplitComponents().apply(image);
+
+    assertSame(image.getPlane(Color.RED).data(), components.get(0).getPlane(Color.RED).data());
+    assertSame(image.getPlane(Color.GREEN).data(),
+        components.get(1).getPlane(Color.GREEN).data());
+    assertSame(image.getPlane(Color.BLUE).data(), components.get(2).getPlane(Color.BLUE).data());
+    assertEquals(image.getRGB(3, 1) & 0x00FF00, components.get(1).getRGB(3, 1));
+  }
+
+  /**
+   * Test that an image read from a file is planar, so that splitting it copies no pixels.
+   */
+  @Test
+  public void testLoadedImageSplitsWithoutCopying() throws IOException {
+    Path file = Files.createTempFile("test", ".ppm");
+    try {
+      Files.write(file, "P3\n2 1\n255\n10 20 30 40 50 60\n".getBytes(StandardCharsets.US_ASCII));
+      Image image = ImageUtil.readPPM(file.toString());
+      assertTrue(image.getStore() instanceof PlanarPixelStore);
+
+      List<Image> components = new SplitComponents().apply(image);
+      assertSame(image.getPlane(Color.RED).data(), components.get(0).getPlane(Color.RED).data());
+      assertEquals(0x280000, components.get(0).getRGB(1, 0));
+      assertEquals(0x00001E, components.get(2).getRGB(0, 0));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  /**
+   * Test that a loaded image recycled as a destination after an rgb-split leaves the split
+   * components as they were, even when bands write into it in parallel.
+   */
+  @Test
+  public void testRecycledDestinationSharedWithSplit() throws IOException {
+    int width = 61;
+    int height = 37;
+    Image expectedSource = TestImages.gradient(width, height);
+    StringBuilder ppm = new StringBuilder("P3\n" + width + " " + height + "\n255\n");
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int rgb = expectedSource.getRGB(x, y);
+        ppm.append(rgb >> 16).append(' ').append((rgb >> 8) & 0xFF).append(' ')
+            .append(rgb & 0xFF).append('\n');
+      }
+    }
+    Path file = Files.createTempFile("test", ".ppm");
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      Files.write(file, ppm.toString().getBytes(StandardCharsets.US_ASCII));
+      Image loaded = ImageUtil.readPPM(file.toString());
+      List<Image> components = new SplitComponents().apply(loaded);
+      BufferPool.releaseImage(loaded);
+      Image destination = BufferPool.acquireImage(width, height);
+      assertSame(loaded, destination);
+
+      ParallelExecutor.setPool(pool);
+      ParallelExecutor.setThreshold(0);
+      Image input = TestImages.random(width, height, 13);
+      new Sepia(100).apply(new Image[]{input}, destination);
+
+      assertSamePixels(new Sepia(100).apply(input), destination);
+      assertNotSame(components.get(1).getPlane(Color.GREEN).data(),
+          destination.getPlane(Color.GREEN).data());
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          assertEquals(expectedSource.getRGB(x, y) & 0xFF0000, components.get(0).getRGB(x, y));
+          assertEquals(expectedSource.getRGB(x, y) & 0x00FF00, components.get(1).getRGB(x, y));
+          assertEquals(expectedSource.getRGB(x, y) & 0x0000FF, components.get(2).getRGB(x, y));
+        }
+      }
+    } finally {
+      ParallelExecutor.setPool(ForkJoinPool.commonPool());
+      ParallelExecutor.setThreshold(1 << 18);
+      pool.shutdown();
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Creates the images that the tests run operations on. The class lives in the model package so
+ * that the model tests can use it without an import, and the other tests import it.
+ */
+public final class TestImages {
+
+  private TestImages() {
+  }
+
+  /**
+   * Creates an image whose channels repeat smooth gradients, so that every channel takes many
+   * values and neighbouring pixels are close.
+   *
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @return The image.
+   */
+  public static Image gradient(int width, int height) {
+    return gradient(width, height, 0);
+  }
+
+  /**
+   * Creates an image like {@link #gradient(int, int)} with every channel shifted by the seed, so
+   * that images of the same size but different seeds differ.
+   *
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @param seed   The shift of the channel values.
+   * @return The image.
+   */
+  public static Image gradient(int width, int height, int seed) {
+    Image image = new Image(width, height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int red = (x * 7 + seed) & 0xFF;
+        int green = (y * 11 + seed) & 0xFF;
+        int blue = (x * y + seed) & 0xFF;
+        image.setRGB(x, y, (red << 16) | (green << 8) | blue);
+      }
+    }
+    return image;
+  }
+
+  /**
+   * Creates an image of uniformly random pixels.
+   *
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @param seed   The seed of the random pixels.
+   * @return The image.
+   */
+  public static Image random(int width, int height, long seed) {
+    Random random = new Random(seed);
+    Image image = new Image(width, height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        image.setRGB(x, y, random.nextInt(1 << 24));
+      }
+    }
+    return image;
+  }
+}
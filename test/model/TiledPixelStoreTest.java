@@ -0,0 +1,80 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+/**
+ * JUnit test class for the lazy tiles of TiledPixelStore.
+ */
+public class TiledPixelStoreTest {
+
+  /**
+   * A split sepia that records the top-left corner of every tile it computes.
+   */
+  private static final class CountingSepia implements TileOperation {
+
+    private final Sepia sepia = new Sepia(60);
+    private final Set<String> computed = new HashSet<>();
+    private int count;
+
+    @Override
+    public void computeTile(Image input, int x, int y, int width, int height, int[] dst) {
+      computed.add(x + "," + y);
+      count++;
+      sepia.computeTile(input, x, y, width, height, dst);
+    }
+  }
+
+  /**
+   * Test that reading a region computes only the tiles it touches, once each, with the same
+   * pixels as the eager operation.
+   */
+  @Test
+  public void testOnlyTouchedTilesAreComputed() {
+    int tile = TiledPixelStore.TILE_SIZE;
+    Image input = TestImages.random(3 * tile + 17, 2 * tile + 5, 3);
+    Image expected = new Sepia(60).apply(input);
+    CountingSepia operation = new CountingSepia();
+    Image lazy = operation.applyLazily(input);
+    assertEquals(0, operation.count);
+
+    int[] region = new int[100 * 50];
+    lazy.getRegion(tile + 10, tile + 20, 100, 50, region);
+    assertEquals(1, operation.count);
+    assertEquals(tile + "," + tile, operation.computed.iterator().next());
+
+    region = new int[40 * 30];
+    lazy.getRegion(tile - 20, tile - 10, 40, 30, region);
+    assertEquals(4, operation.count);
+    for (int i = 0; i < 30; i++) {
+      for (int j = 0; j < 40; j++) {
+        assertEquals(expected.getRGB(tile - 20 + j, tile - 10 + i), region[i * 40 + j]);
+      }
+    }
+
+    assertEquals(expected.getRGB(3 * tile + 16, 2 * tile + 4), lazy.getRGB(3 * tile + 16,
+        2 * tile + 4));
+    assertEquals(5, operation.count);
+  }
+
+  /**
+   * Test that reading rows of a lazy image computes every tile of those rows and matches the
+   * eager operation.
+   */
+  @Test
+  public void testRowsMatchEagerResult() {
+    Image input = TestImages.random(300, 270, 3);
+    Image expected = new Blur(40).apply(input);
+    Image lazy = new Blur(40).applyLazily(input);
+    int[] row = new int[300];
+    for (int y = 0; y < 270; y++) {
+      lazy.getRow(y, row);
+      for (int x = 0; x < 300; x++) {
+        assertEquals(expected.getRGB(x, y), row[x]);
+      }
+    }
+  }
+}
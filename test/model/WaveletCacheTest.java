@@ -0,0 +1,73 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import model.enums.Direction;
+import org.junit.Test;
+
+/**
+ * JUnit test class for keeping the wavelet coefficients of the last image compressed.
+ */
+public class WaveletCacheTest {
+
+  private static void assertSamePixels(Image expected, Image actual) {
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+
+  /**
+   * Test that the coefficients of an image are reused until the image is written, whether by
+   * setting a pixel or by serving as the destination of an operation.
+   */
+  @Test
+  public void testReusedUntilWritten() {
+    Image image = TestImages.gradient(20, 12);
+    WaveletCoefficients first = WaveletCoefficients.cached(image, 1);
+    assertSame(first, WaveletCoefficients.cached(image, 1));
+
+    image.setRGB(3, 4, 0x102030);
+    WaveletCoefficients second = WaveletCoefficients.cached(image, 1);
+    assertNotSame(first, second);
+    assertSame(second, WaveletCoefficients.cached(image, 1));
+
+    new Sepia().apply(new Image[]{TestImages.gradient(20, 12, 7)}, image);
+    assertNotSame(second, WaveletCoefficients.cached(image, 1));
+  }
+
+  /**
+   * Test that only the coefficients of the last image are kept, and that views are transformed
+   * every time.
+   */
+  @Test
+  public void testLastImageOnly() {
+    Image image = TestImages.gradient(20, 12);
+    Image other = TestImages.gradient(20, 12, 3);
+    WaveletCoefficients coefficients = WaveletCoefficients.cached(image, 1);
+    WaveletCoefficients.cached(other, 1);
+    assertNotSame(coefficients, WaveletCoefficients.cached(image, 1));
+
+    Image view = image.flippedView(Direction.HORIZONTAL);
+    assertNotSame(WaveletCoefficients.cached(view, 1), WaveletCoefficients.cached(view, 1));
+  }
+
+  /**
+   * Test that compressing a written image gives the result for its new pixels.
+   */
+  @Test
+  public void testCompressAfterWrite() {
+    Image image = TestImages.random(20, 12, 5);
+    new CompressImage(40).apply(image);
+    new CompressImage(60).apply(image);
+    for (int x = 0; x < 20; x++) {
+      image.setRGB(x, 6, 0xFFFFFF);
+    }
+
+    Image expected = new CompressImage(60).apply(image.croppedView(0, 0, 20, 12));
+    assertSamePixels(expected, new CompressImage(60).apply(image));
+  }
+}